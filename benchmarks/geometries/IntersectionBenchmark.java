@@ -0,0 +1,100 @@
+package geometries;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the intersection kernels of the basic geometries. Every geometry gets the same rays,
+ * aimed around the unit cube so that about half of them hit. The score is in rays per second.
+ *
+ * @author Raz
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IntersectionBenchmark {
+    /**
+     * Amount of rays for each benchmark invocation
+     */
+    private static final int RAYS = 1024;
+
+    private final Sphere sphere = new Sphere(1, new Point(0, 0, 0));
+    private final Triangle triangle = new Triangle(new Point(-1, -1, 0), new Point(1, -1, 0), new Point(0, 1, 0));
+    private final Polygon polygon = new Polygon(new Point(-1, -1, 0), new Point(1, -1, 0),
+            new Point(1, 1, 0), new Point(-1, 1, 0));
+    private final Plane plane = new Plane(new Point(0, 0, 0), new Vector(0, 0, 1));
+    private final TriangleMesh mesh = new TriangleMesh(new double[]{-1, -1, 0, 1, -1, 0, 1, 1, 0, -1, 1, 0},
+            new int[]{0, 1, 2, 0, 2, 3});
+
+    private final Ray[] rays = new Ray[RAYS];
+
+    /**
+     * Builds the rays - from random points around the unit cube towards random points inside it
+     */
+    @Setup
+    public void setup() {
+        Random random = new Random(5783);
+        for (int i = 0; i < RAYS; i++) {
+            Point head = new Point(random.nextDouble(-3, 3), random.nextDouble(-3, 3), random.nextDouble(2, 5));
+            Point target = new Point(random.nextDouble(-1.5, 1.5), random.nextDouble(-1.5, 1.5), random.nextDouble(-1, 1));
+            rays[i] = new Ray(head, target.subtract(head));
+        }
+    }
+
+    /**
+     * All the intersections of every ray with the geometry
+     */
+    private void intersect(Intersectable geometry, Blackhole bh) {
+        for (Ray ray : rays)
+            bh.consume(geometry.findGeoIntersections(ray));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RAYS)
+    public void sphere(Blackhole bh) {
+        intersect(sphere, bh);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RAYS)
+    public void triangle(Blackhole bh) {
+        intersect(triangle, bh);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RAYS)
+    public void polygon(Blackhole bh) {
+        intersect(polygon, bh);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RAYS)
+    public void plane(Blackhole bh) {
+        intersect(plane, bh);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RAYS)
+    public void mesh(Blackhole bh) {
+        intersect(mesh, bh);
+    }
+
+    /**
+     * The closest-hit query, which doesn't build intersection lists
+     */
+    @Benchmark
+    @OperationsPerInvocation(RAYS)
+    public void sphereClosest(Blackhole bh) {
+        for (Ray ray : rays)
+            bh.consume(sphere.findClosestGeoIntersection(ray));
+    }
+}
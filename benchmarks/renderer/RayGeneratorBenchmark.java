@@ -0,0 +1,57 @@
+package renderer;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import primitives.Point;
+import primitives.RayPacket;
+import primitives.Vector;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the camera rays - {@link Camera#constructRay(int, int, int, int)} against the
+ * {@link RayGenerator} single rays and tile packets. The score is in rays per second.
+ *
+ * @author Raz
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RayGeneratorBenchmark {
+    /**
+     * The rays are the pixels of a TILE x TILE tile
+     */
+    private static final int TILE = 32;
+
+    private final Camera camera = new Camera(new Point(0, 0, -1000), new Vector(0, 0, 1), new Vector(0, 1, 0))
+            .setVPDistance(1000).setVPSize(200, 200);
+    private final RayGenerator generator = camera.createRayGenerator(800, 800);
+    private final RayPacket packet = new RayPacket(TILE * TILE);
+
+    @Benchmark
+    @OperationsPerInvocation(TILE * TILE)
+    public void constructRay(Blackhole bh) {
+        for (int i = 0; i < TILE; i++)
+            for (int j = 0; j < TILE; j++)
+                bh.consume(camera.constructRay(800, 800, j, i));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TILE * TILE)
+    public void generatorRay(Blackhole bh) {
+        for (int i = 0; i < TILE; i++)
+            for (int j = 0; j < TILE; j++)
+                bh.consume(generator.constructRay(j, i));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TILE * TILE)
+    public RayPacket generatorTile() {
+        packet.clear();
+        generator.fillTile(0, 0, TILE, TILE, packet);
+        return packet;
+    }
+}
@@ -0,0 +1,55 @@
+package renderer;
+
+import org.openjdk.jmh.annotations.*;
+import primitives.Point;
+import primitives.Vector;
+import special.TeapotTest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of full frame renders with {@link Camera#renderImage()} on the teapot and the depth of field
+ * scenes. The image is rendered but not written. The score is in pixels per second - with depth of
+ * field every pixel traces many rays.
+ *
+ * @author Raz
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class RenderBenchmark {
+    /**
+     * The image is RESOLUTION x RESOLUTION pixels
+     */
+    private static final int RESOLUTION = 200;
+
+    /**
+     * The scene - "teapot" or "dof"
+     */
+    @Param({"teapot", "dof"})
+    public String model;
+
+    private Camera camera;
+
+    /**
+     * Builds the scene and its camera
+     */
+    @Setup
+    public void setup() {
+        camera = model.equals("teapot")
+                ? new Camera(new Point(0, 0, -1000), new Vector(0, 0, 1), new Vector(0, 1, 0))
+                .setVPDistance(1000).setVPSize(200, 200).setRayTracer(new RayTracerBasic(TeapotTest.createScene()))
+                : DoFTests.createCamera().setRayTracer(new RayTracerBasic(DoFTests.createScene()));
+        camera.setImageWriter(new ImageWriter(model, RESOLUTION, RESOLUTION))
+                .setProgressListener(ProgressListener.NONE);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RESOLUTION * RESOLUTION)
+    public Camera renderImage() {
+        return camera.renderImage();
+    }
+}
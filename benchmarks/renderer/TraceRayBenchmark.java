@@ -0,0 +1,53 @@
+package renderer;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+import special.TeapotTest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of {@link RayTracerBasic#traceRay(Ray)} - the shading of the primary rays of the teapot
+ * camera, with the shadow, reflection and refraction rays they spawn. The score is in primary rays
+ * per second.
+ *
+ * @author Raz
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TraceRayBenchmark {
+    /**
+     * The rays are the pixels of a RESOLUTION x RESOLUTION view plane
+     */
+    private static final int RESOLUTION = 64;
+
+    private final Ray[] rays = new Ray[RESOLUTION * RESOLUTION];
+    private RayTracerBasic rayTracer;
+
+    /**
+     * Builds the teapot scene and the primary rays of its camera
+     */
+    @Setup
+    public void setup() {
+        rayTracer = new RayTracerBasic(TeapotTest.createScene());
+        Camera camera = new Camera(new Point(0, 0, -1000), new Vector(0, 0, 1), new Vector(0, 1, 0))
+                .setVPDistance(1000).setVPSize(200, 200);
+        for (int i = 0; i < RESOLUTION; i++)
+            for (int j = 0; j < RESOLUTION; j++)
+                rays[i * RESOLUTION + j] = camera.constructRay(RESOLUTION, RESOLUTION, j, i);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RESOLUTION * RESOLUTION)
+    public void traceRay(Blackhole bh) {
+        for (Ray ray : rays)
+            bh.consume(rayTracer.traceRay(ray));
+    }
+}
@@ -0,0 +1,191 @@
+package scene;
+
+import geometries.Geometries;
+import geometries.Instance;
+import geometries.Triangle;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import primitives.Point;
+import primitives.Ray;
+import primitives.RayPacket;
+import primitives.Transform;
+import primitives.Vector;
+import special.TeapotTest;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the BVH - building the tree with every strategy, refitting it, and the three
+ * traversal queries on camera-like rays. The closest-hit query is also measured on a grid of rays,
+ * one by one and in packets of 8 x 8 neighbouring rays of a 256 x 256 grid. The traversal scores are
+ * in rays per second.
+ *
+ * @author Raz
+ */
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AABBBenchmark {
+    /**
+     * Amount of rays for each traversal invocation
+     */
+    private static final int RAYS = 1024;
+    /**
+     * Edge of the square of grid rays in a packet
+     */
+    private static final int PACKET_EDGE = 8;
+
+    /**
+     * The scene - the teapot model, a soup of random triangles, or 500 instances of the teapot
+     */
+    @Param({"teapot", "soup", "teapots"})
+    public String model;
+
+    /**
+     * The strategy the tree is built with
+     */
+    @Param({"BINNED_SAH", "FULL_SAH"})
+    public AABB.BuildStrategy strategy;
+
+    private Geometries geometries;
+    private AABB bvh;
+    private final Ray[] rays = new Ray[RAYS];
+    private final Ray[] gridRays = new Ray[RAYS];
+    private final RayPacket[] packets = new RayPacket[RAYS / (PACKET_EDGE * PACKET_EDGE)];
+
+    /**
+     * Builds the scene, its tree and the rays - from a point in front of the model towards random
+     * points on its bounding box, and towards a grid of points on it
+     */
+    @Setup
+    public void setup() {
+        Random random = new Random(1863);
+        geometries = switch (model) {
+            case "teapot" -> TeapotTest.createScene().geometries;
+            case "teapots" -> teapots(random, 500);
+            default -> soup(random, 100000);
+        };
+        bvh = new AABB(geometries, strategy);
+        geometries.findMinMaxCenter();
+        Point min = geometries.getMinABBA(), max = geometries.getMaxABBA();
+        Point head = new Point((min.getX() + max.getX()) / 2, (min.getY() + max.getY()) / 2,
+                min.getZ() - (max.getZ() - min.getZ()) * 4);
+        for (int i = 0; i < RAYS; i++) {
+            Point target = new Point(random.nextDouble(min.getX(), max.getX()), random.nextDouble(min.getY(), max.getY()),
+                    min.getZ());
+            rays[i] = new Ray(head, target.subtract(head));
+        }
+
+        // the grid rays are in random squares of a 256 x 256 grid on the box, a square per packet
+        int edge = 256;
+        for (int p = 0; p < packets.length; p++)
+            packets[p] = new RayPacket(PACKET_EDGE * PACKET_EDGE);
+        for (int i = 0, x0 = 0, y0 = 0; i < RAYS; i++) {
+            int p = i / (PACKET_EDGE * PACKET_EDGE), k = i % (PACKET_EDGE * PACKET_EDGE);
+            if (k == 0) {
+                x0 = random.nextInt(edge / PACKET_EDGE) * PACKET_EDGE;
+                y0 = random.nextInt(edge / PACKET_EDGE) * PACKET_EDGE;
+            }
+            int x = x0 + k % PACKET_EDGE, y = y0 + k / PACKET_EDGE;
+            Point target = new Point(min.getX() + (max.getX() - min.getX()) * (x + 0.5) / edge,
+                    min.getY() + (max.getY() - min.getY()) * (y + 0.5) / edge, min.getZ());
+            gridRays[i] = new Ray(head, target.subtract(head));
+            packets[p].add(gridRays[i]);
+        }
+    }
+
+    /**
+     * Random small triangles spread in a cube
+     *
+     * @param random the random generator
+     * @param count  amount of triangles
+     * @return the geometries
+     */
+    private static Geometries soup(Random random, int count) {
+        Geometries geometries = new Geometries();
+        for (int i = 0; i < count; i++) {
+            Point p = new Point(random.nextDouble(-100, 100), random.nextDouble(-100, 100), random.nextDouble(-100, 100));
+            geometries.add(new Triangle(p, p.add(new Vector(random.nextDouble(0.5, 2), 0, random.nextDouble(-1, 1))),
+                    p.add(new Vector(0, random.nextDouble(0.5, 2), random.nextDouble(-1, 1)))));
+        }
+        return geometries;
+    }
+
+    /**
+     * Instances of one teapot BVH in random places on a grid, each rotated about the vertical axis
+     *
+     * @param random the random generator
+     * @param count  amount of instances
+     * @return the geometries
+     */
+    private static Geometries teapots(Random random, int count) {
+        AABB teapot = new AABB(TeapotTest.createScene().geometries);
+        Geometries geometries = new Geometries();
+        int edge = (int) Math.ceil(Math.sqrt(count));
+        for (int i = 0; i < count; i++)
+            geometries.add(new Instance(teapot, Transform.rotation(new Vector(0, 1, 0), random.nextDouble(360))
+                    .then(Transform.translation(200 * (i % edge), 200 * (i / edge), 0))));
+        return geometries;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public AABB build() {
+        return new AABB(geometries, strategy);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public AABB refit() {
+        return bvh.refit();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(RAYS)
+    public void findGeoIntersections(Blackhole bh) {
+        for (Ray ray : rays)
+            bh.consume(bvh.findGeoIntersections(ray));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(RAYS)
+    public void findClosestGeoIntersection(Blackhole bh) {
+        for (Ray ray : rays)
+            bh.consume(bvh.findClosestGeoIntersection(ray));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(RAYS)
+    public void findClosestGeoIntersectionGrid(Blackhole bh) {
+        for (Ray ray : gridRays)
+            bh.consume(bvh.findClosestGeoIntersection(ray));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(RAYS)
+    public void findClosestGeoIntersectionsPacket(Blackhole bh) {
+        for (RayPacket packet : packets)
+            bh.consume(bvh.findClosestGeoIntersections(packet));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(RAYS)
+    public void findTransparency(Blackhole bh) {
+        for (Ray ray : rays)
+            bh.consume(bvh.findTransparency(ray, Double.POSITIVE_INFINITY, 0.001));
+    }
+}
@@ -0,0 +1,71 @@
+package scene;
+
+import geometries.TriangleMesh;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of loading a scene file - a grid mesh of millions of triangles, written once and read on
+ * every invocation
+ *
+ * @author Raz
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SceneFileBenchmark {
+    /**
+     * Amount of grid cells per edge, 2 triangles per cell
+     */
+    @Param({"1000"})
+    public int edge;
+
+    private Path file;
+
+    /**
+     * Writes the grid mesh to a temporary file
+     */
+    @Setup
+    public void setup() throws IOException {
+        int vertexEdge = edge + 1;
+        double[] vertices = new double[3 * vertexEdge * vertexEdge];
+        for (int y = 0, v = 0; y < vertexEdge; y++)
+            for (int x = 0; x < vertexEdge; x++, v += 3) {
+                vertices[v] = x;
+                vertices[v + 1] = y;
+                vertices[v + 2] = Math.sin(x * 0.1) * Math.cos(y * 0.1);
+            }
+        int[] indices = new int[6 * edge * edge];
+        for (int y = 0, i = 0; y < edge; y++)
+            for (int x = 0; x < edge; x++, i += 6) {
+                int a = y * vertexEdge + x;
+                indices[i] = a;
+                indices[i + 1] = a + 1;
+                indices[i + 2] = a + vertexEdge;
+                indices[i + 3] = a + 1;
+                indices[i + 4] = a + vertexEdge + 1;
+                indices[i + 5] = a + vertexEdge;
+            }
+        Scene scene = new Scene("Grid");
+        scene.addGeometries(new TriangleMesh(vertices, indices));
+        file = Files.createTempFile("grid", ".rts");
+        SceneFile.write(scene, file);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.delete(file);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Scene read() throws IOException {
+        return SceneFile.read(file);
+    }
+}
@@ -11,6 +11,8 @@ import static primitives.Util.*;
  * @author Yoni
  */
 public class Cylinder extends Tube {
+    private static final long serialVersionUID = 1L;
+
     private final double height;
 
     /**
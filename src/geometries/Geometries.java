@@ -1,14 +1,18 @@
 package geometries;
 
+import primitives.Double3;
 import primitives.Point;
 import primitives.Ray;
+import primitives.RayPacket;
 
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 
 public class Geometries extends Intersectable{
+    private static final long serialVersionUID = 1L;
 
-    public LinkedList<Intersectable> bodies;
+    private final LinkedList<Intersectable> bodies;
 
 
     /**
@@ -30,8 +34,10 @@ public class Geometries extends Intersectable{
     /***
      * add geometries to te list
      * @param geometries to add
+     * @throws IllegalStateException if the collection is frozen
      */
     public void add(Intersectable... geometries){
+        checkNotFrozen();
         for (Intersectable geometry : geometries) {
             bodies.add(geometry);
         }
@@ -40,18 +46,50 @@ public class Geometries extends Intersectable{
     /***
      * add geometries to te list
      * @param geometries to add
+     * @throws IllegalStateException if the collection is frozen
      */
     public Geometries add(List<Intersectable> geometries){
+        checkNotFrozen();
         bodies.addAll(geometries);
         return this;
     }
 
+    /**
+     * @return the bodies of the collection, unmodifiable - bodies are added only by the add methods
+     */
+    public List<Intersectable> getBodies() {
+        return Collections.unmodifiableList(bodies);
+    }
+
+    /**
+     * Freezes the bodies, and then the collection - no body can be added afterwards
+     *
+     * @return this collection
+     */
+    @Override
+    public Geometries freeze() {
+        for (Intersectable body : bodies)
+            body.freeze();
+        super.freeze();
+        return this;
+    }
+
     @Override
     public void findMinMaxCenter() {
-        minAABB = new Point(0,0,0);
-        maxAABB = new Point(0,0,0);
+        // an empty collection has no bounds, like an unbounded one
+        if (bodies.isEmpty()) {
+            minAABB = maxAABB = centerAABB = null;
+            return;
+        }
+        minAABB = new Point(Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY);
+        maxAABB = new Point(Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY);
         for(Intersectable i:bodies){
-            i.findMinMaxCenter();
+            i.updateMinMaxCenter();
+            // a body without bounds (plane, tube) makes the whole collection unbounded
+            if (i.minAABB == null || i.maxAABB == null) {
+                minAABB = maxAABB = centerAABB = null;
+                return;
+            }
             minAABB = Point.createMinPoint(minAABB, i.minAABB);
             maxAABB = Point.createMaxPoint(maxAABB, i.maxAABB);
         }
@@ -61,14 +99,41 @@ public class Geometries extends Intersectable{
 
     @Override
     protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDis) {
-        LinkedList<GeoPoint> list = null;
+        return findGeoIntersectionsByHits(ray, maxDis);
+    }
+
+    @Override
+    protected void findHitsHelper(Ray ray, double maxDis, HitBuffer hits) {
+        for (Intersectable body : bodies)
+            body.findHits(ray, maxDis, hits);
+    }
+
+    @Override
+    protected boolean findClosestHitHelper(Ray ray, double maxDis, HitBuffer hits) {
+        int start = hits.size();
         for (Intersectable body : bodies) {
-            var temp = body.findGeoIntersections(ray, maxDis);
-            if (temp != null){
-                if (list == null) list = new LinkedList<>();
-                list.addAll(temp);
+            if (body.findClosestHit(ray, maxDis, hits)) {
+                // a hit is found only up to the kept one, so the new hit replaces it
+                hits.keep(hits.size() - 1, start);
+                maxDis = hits.getDistance(start);
             }
         }
-        return list;
+        return hits.size() > start;
+    }
+
+    @Override
+    protected void findClosestGeoIntersectionsHelper(RayPacket packet, boolean[] active, double[] maxDis, GeoPoint[] hits) {
+        for (Intersectable body : bodies) {
+            body.findClosestGeoIntersections(packet, active, maxDis, hits);
+        }
+    }
+
+    @Override
+    protected Double3 findTransparencyHelper(Ray ray, double maxDis, Double3 ktr, double minK) {
+        for (Intersectable body : bodies) {
+            ktr = body.findTransparency(ray, maxDis, ktr, minK);
+            if (ktr.lowerThan(minK)) return Double3.ZERO;
+        }
+        return ktr;
     }
 }
@@ -3,6 +3,7 @@ package geometries;
 import primitives.Color;
 import primitives.Material;
 import primitives.Point;
+import primitives.Ray;
 import primitives.Vector;
 
 /**
@@ -11,6 +12,7 @@ import primitives.Vector;
  * @author Yoni
  */
 public abstract class Geometry extends Intersectable{
+    private static final long serialVersionUID = 1L;
 
     protected Color emission = Color.BLACK;
 
@@ -27,8 +29,10 @@ public abstract class Geometry extends Intersectable{
     /**
      * set the material
      * @return emission
+     * @throws IllegalStateException if the geometry is frozen
      */
     public Geometry setMaterial(Material material) {
+        checkNotFrozen();
         this.material = material;
         return this;
     }
@@ -46,8 +50,10 @@ public abstract class Geometry extends Intersectable{
      * set emission
      * @param emission to set
      * @return Geometry object
+     * @throws IllegalStateException if the geometry is frozen
      */
     public Geometry setEmission(Color emission) {
+        checkNotFrozen();
         this.emission = emission;
         return this;
     }
@@ -59,5 +65,17 @@ public abstract class Geometry extends Intersectable{
      */
     public abstract Vector getNormal(Point p);
 
+    /**
+     * Builds the hit of a record of a {@link HitBuffer}
+     *
+     * @param ray the ray
+     * @param t   the distance of the hit on the ray
+     * @param id  the id of the primitive inside the geometry, -1 for a single primitive
+     * @return the hit
+     */
+    GeoPoint createGeoPoint(Ray ray, double t, int id) {
+        return new GeoPoint(this, ray, t);
+    }
+
 
 }
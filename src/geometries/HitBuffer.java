@@ -0,0 +1,256 @@
+package geometries;
+
+import geometries.Intersectable.GeoPoint;
+import primitives.Ray;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reusable buffer of intersection records - the distance of a hit on the ray, the geometry that was
+ * hit and the id of the primitive inside the geometry (the triangle of a {@link TriangleMesh}, -1 for
+ * a single primitive). The records are kept in flat arrays that grow as needed and are reused by the
+ * next queries, so the intersection queries write their hits without allocating, and the
+ * {@link GeoPoint} is built only for the hit that is used.
+ * <p>
+ * Bodies that can't describe their hits by a record (e.g. an {@link Instance}, whose hits are moved
+ * into the scene) write a hit that is already built.
+ * <p>
+ * A buffer is used as a stack: a query remembers {@link #size()}, works on the records it writes from
+ * there on and truncates the buffer back when it is done, so nested queries share a buffer. Each
+ * thread has its own buffer for the queries that don't get one from the caller - see {@link #local()}.
+ *
+ * @author Raz
+ */
+public final class HitBuffer {
+    /**
+     * The initial amount of records
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The buffer of every thread
+     */
+    private static final ThreadLocal<HitBuffer> LOCAL = ThreadLocal.withInitial(HitBuffer::new);
+
+    /**
+     * The distances of the hits on the ray
+     */
+    private double[] distances;
+    /**
+     * The geometries that were hit
+     */
+    private Geometry[] geometries;
+    /**
+     * The ids of the primitives inside the geometries, -1 for a single primitive
+     */
+    private int[] ids;
+    /**
+     * The hits that are already built, null for a hit built on demand
+     */
+    private GeoPoint[] points;
+    /**
+     * Amount of records
+     */
+    private int size = 0;
+
+    /**
+     * Constructs an empty buffer
+     */
+    public HitBuffer() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty buffer
+     *
+     * @param capacity the initial amount of records
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    public HitBuffer(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("Capacity must be positive");
+        distances = new double[capacity];
+        geometries = new Geometry[capacity];
+        ids = new int[capacity];
+        points = new GeoPoint[capacity];
+    }
+
+    /**
+     * @return the buffer of the current thread
+     */
+    public static HitBuffer local() {
+        return LOCAL.get();
+    }
+
+    /**
+     * @return the amount of records
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes all the records
+     */
+    public void clear() {
+        truncate(0);
+    }
+
+    /**
+     * Removes the records from an index on
+     *
+     * @param size the amount of records to keep
+     */
+    public void truncate(int size) {
+        // the references are released, the rest of the records are just overwritten
+        Arrays.fill(points, size, this.size, null);
+        Arrays.fill(geometries, size, this.size, null);
+        this.size = size;
+    }
+
+    /**
+     * Adds a hit of a single primitive
+     *
+     * @param geometry the geometry that was hit
+     * @param t        the distance of the hit on the ray
+     */
+    public void add(Geometry geometry, double t) {
+        add(geometry, -1, t);
+    }
+
+    /**
+     * Adds a hit of a primitive inside a geometry
+     *
+     * @param geometry the geometry that was hit
+     * @param id       the id of the primitive inside the geometry
+     * @param t        the distance of the hit on the ray
+     */
+    public void add(Geometry geometry, int id, double t) {
+        if (size == distances.length) grow();
+        distances[size] = t;
+        geometries[size] = geometry;
+        ids[size++] = id;
+    }
+
+    /**
+     * Adds a hit that is already built
+     *
+     * @param geoPoint the hit
+     * @param t        the distance of the hit on the ray
+     */
+    public void add(GeoPoint geoPoint, double t) {
+        add(geoPoint.geometry, -1, t);
+        points[size - 1] = geoPoint;
+    }
+
+    /**
+     * Replaces a record by a hit that is already built
+     *
+     * @param i        the record index
+     * @param geoPoint the hit
+     * @param t        the distance of the hit on the ray
+     */
+    public void set(int i, GeoPoint geoPoint, double t) {
+        distances[i] = t;
+        geometries[i] = geoPoint.geometry;
+        ids[i] = -1;
+        points[i] = geoPoint;
+    }
+
+    /**
+     * Doubles the capacity
+     */
+    private void grow() {
+        int capacity = 2 * distances.length;
+        distances = Arrays.copyOf(distances, capacity);
+        geometries = Arrays.copyOf(geometries, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        points = Arrays.copyOf(points, capacity);
+    }
+
+    /**
+     * @param i the record index
+     * @return the distance of the hit on the ray
+     */
+    public double getDistance(int i) {
+        return distances[i];
+    }
+
+    /**
+     * @param i the record index
+     * @return the geometry that was hit
+     */
+    public Geometry getGeometry(int i) {
+        return geometries[i];
+    }
+
+    /**
+     * @param i the record index
+     * @return the id of the primitive inside the geometry, -1 for a single primitive
+     */
+    public int getId(int i) {
+        return ids[i];
+    }
+
+    /**
+     * The hit of a record, built on the first call
+     *
+     * @param i   the record index
+     * @param ray the ray of the query that wrote the record
+     * @return the hit
+     */
+    public GeoPoint getGeoPoint(int i, Ray ray) {
+        GeoPoint gp = points[i];
+        if (gp == null) points[i] = gp = geometries[i].createGeoPoint(ray, distances[i], ids[i]);
+        return gp;
+    }
+
+    /**
+     * The hits of the records from an index on, built
+     *
+     * @param start the first record
+     * @param ray   the ray of the query that wrote the records
+     * @return the hits, or null if there are no records from the index
+     */
+    public List<GeoPoint> getGeoPoints(int start, Ray ray) {
+        if (start >= size) return null;
+        List<GeoPoint> list = new ArrayList<>(size - start);
+        for (int i = start; i < size; i++)
+            list.add(getGeoPoint(i, ray));
+        return list;
+    }
+
+    /**
+     * Keeps a single record of the records from an index on - it is moved to that index and the rest
+     * are removed
+     *
+     * @param i     the record to keep
+     * @param start the first record
+     */
+    public void keep(int i, int start) {
+        if (i != start) {
+            distances[start] = distances[i];
+            geometries[start] = geometries[i];
+            ids[start] = ids[i];
+            points[start] = points[i];
+        }
+        truncate(start + 1);
+    }
+
+    /**
+     * Keeps the closest record of the records from an index on (the first one of equally close
+     * records) - see {@link #keep(int, int)}
+     *
+     * @param start the first record
+     * @return the distance of the closest record, or NaN if there are no records from the index
+     */
+    public double keepClosest(int start) {
+        if (start >= size) return Double.NaN;
+        int closest = start;
+        for (int i = start + 1; i < size; i++)
+            if (distances[i] < distances[closest]) closest = i;
+        keep(closest, start);
+        return distances[start];
+    }
+}
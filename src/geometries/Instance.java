@@ -0,0 +1,242 @@
+package geometries;
+
+import primitives.Double3;
+import primitives.Point;
+import primitives.Ray;
+import primitives.RayPacket;
+import primitives.Transform;
+import primitives.Vector;
+
+import java.util.List;
+
+/**
+ * Instance of a shared body, placed in the scene by an affine transform.
+ * <p>
+ * The body is kept in its own (object) space and is not copied - the rays are transformed into the
+ * object space, and the hits are transformed back. Many instances of a model share one body, so the
+ * memory grows with the amount of models and not with the amount of placed objects. A model is
+ * shared best as an {@link scene.AABB} built once over its geometries; the BVH of the scene then
+ * holds every instance as a single primitive, bounded by the transformed bounds of its body.
+ * <p>
+ * The hits refer to the geometries of the shared body, with their materials and emissions.
+ *
+ * @author Raz
+ */
+public class Instance extends Intersectable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The shared body, in object space
+     */
+    private final Intersectable body;
+    /**
+     * The transform from object space to the scene
+     */
+    private Transform toWorld;
+    /**
+     * The transform from the scene to object space
+     */
+    private Transform toObject;
+
+    /**
+     * GeoPoint on an instance - the hit of the shared body moved into the scene, which transforms the
+     * point and the normal of the body only when they are needed
+     */
+    private static class InstanceGeoPoint extends GeoPoint {
+        /**
+         * The hit in object space
+         */
+        private final GeoPoint local;
+        /**
+         * The transform of the instance
+         */
+        private final Transform toWorld;
+        /**
+         * The hit in the scene, null until it is needed
+         */
+        private Point point;
+
+        InstanceGeoPoint(GeoPoint local, Transform toWorld, double t) {
+            super(local.geometry, (Point) null, t);
+            this.local = local;
+            this.toWorld = toWorld;
+        }
+
+        @Override
+        public Point getPoint() {
+            if (point == null) point = toWorld.transformPoint(local.getPoint());
+            return point;
+        }
+
+        @Override
+        public Vector getNormal() {
+            return toWorld.transformNormal(local.getNormal());
+        }
+    }
+
+    /**
+     * Constructs an instance of a body
+     *
+     * @param body      the shared body, in object space
+     * @param transform the transform from object space to the scene
+     */
+    public Instance(Intersectable body, Transform transform) {
+        this.body = body;
+        setTransform(transform);
+    }
+
+    /**
+     * @return the shared body
+     */
+    public Intersectable getBody() {
+        return body;
+    }
+
+    /**
+     * @return the transform from object space to the scene
+     */
+    public Transform getTransform() {
+        return toWorld;
+    }
+
+    /**
+     * Moves the instance - a BVH over the instance is then updated by {@link scene.AABB#refit()}
+     *
+     * @param transform the new transform from object space to the scene
+     * @return the instance
+     * @throws IllegalStateException if the instance is frozen
+     */
+    public Instance setTransform(Transform transform) {
+        checkNotFrozen();
+        toWorld = transform;
+        toObject = transform.inverse();
+        return this;
+    }
+
+    /**
+     * The ray in object space. Its direction is normalized again, so a distance on it is the distance
+     * on the scene ray times the length of the transformed direction.
+     *
+     * @param ray the ray in the scene
+     * @param dir the direction of the ray transformed into object space
+     * @return the ray in object space
+     */
+    private Ray toObject(Ray ray, Vector dir) {
+        return new Ray(toObject.transformPoint(ray.getP0()), dir);
+    }
+
+    /**
+     * Freezes the shared body, and then the instance - it can't be moved afterwards
+     *
+     * @return this instance
+     */
+    @Override
+    public Instance freeze() {
+        body.freeze();
+        super.freeze();
+        return this;
+    }
+
+    @Override
+    public void findMinMaxCenter() {
+        body.updateMinMaxCenter();
+        Point min = body.getMinABBA(), max = body.getMaxABBA();
+        if (min == null || max == null) {
+            minAABB = maxAABB = centerAABB = null;
+            return;
+        }
+        // the bounds of the 8 transformed corners of the body box
+        double[] bounds = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+                Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        for (int corner = 0; corner < 8; corner++) {
+            Point p = toWorld.transformPoint(new Point((corner & 1) == 0 ? min.getX() : max.getX(),
+                    (corner & 2) == 0 ? min.getY() : max.getY(), (corner & 4) == 0 ? min.getZ() : max.getZ()));
+            bounds[0] = Math.min(bounds[0], p.getX());
+            bounds[1] = Math.min(bounds[1], p.getY());
+            bounds[2] = Math.min(bounds[2], p.getZ());
+            bounds[3] = Math.max(bounds[3], p.getX());
+            bounds[4] = Math.max(bounds[4], p.getY());
+            bounds[5] = Math.max(bounds[5], p.getZ());
+        }
+        minAABB = new Point(bounds[0], bounds[1], bounds[2]);
+        maxAABB = new Point(bounds[3], bounds[4], bounds[5]);
+        centerAABB = new Point((bounds[0] + bounds[3]) / 2, (bounds[1] + bounds[4]) / 2, (bounds[2] + bounds[5]) / 2);
+    }
+
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDis) {
+        return findGeoIntersectionsByHits(ray, maxDis);
+    }
+
+    @Override
+    protected void findHitsHelper(Ray ray, double maxDis, HitBuffer hits) {
+        Vector dir = toObject.transformVector(ray.getDir());
+        double scale = dir.length();
+        Ray local = toObject(ray, dir);
+        int start = hits.size();
+        body.findHits(local, maxDis * scale, hits);
+        toWorld(hits, start, local, scale);
+    }
+
+    @Override
+    protected boolean findClosestHitHelper(Ray ray, double maxDis, HitBuffer hits) {
+        Vector dir = toObject.transformVector(ray.getDir());
+        double scale = dir.length();
+        Ray local = toObject(ray, dir);
+        int start = hits.size();
+        if (!body.findClosestHit(local, maxDis * scale, hits)) return false;
+        toWorld(hits, start, local, scale);
+        return true;
+    }
+
+    /**
+     * Moves the hits of the body into the scene - the records of the object space ray are replaced by
+     * the built hits of the instance, since a record of the body can't be built on the scene ray
+     *
+     * @param hits  the buffer
+     * @param start the first hit of the body
+     * @param local the ray in object space
+     * @param scale the length of the transformed direction of the scene ray
+     */
+    private void toWorld(HitBuffer hits, int start, Ray local, double scale) {
+        for (int i = start; i < hits.size(); i++) {
+            double t = hits.getDistance(i) / scale;
+            hits.set(i, new InstanceGeoPoint(hits.getGeoPoint(i, local), toWorld, t), t);
+        }
+    }
+
+    @Override
+    protected void findClosestGeoIntersectionsHelper(RayPacket packet, boolean[] active, double[] maxDis, GeoPoint[] hits) {
+        // the packet in object space keeps the packet traversal of the body
+        int n = packet.size();
+        if (n == 0) return;
+        RayPacket local = new RayPacket(n);
+        double[] scales = new double[n], localMaxDis = new double[n];
+        GeoPoint[] localHits = new GeoPoint[n];
+        for (int k = 0; k < n; k++) {
+            if (!active[k]) {
+                // a placeholder keeps the indices of the packets the same
+                local.add(packet.ox[k], packet.oy[k], packet.oz[k], packet.dx[k], packet.dy[k], packet.dz[k]);
+                scales[k] = 1;
+                continue;
+            }
+            Ray ray = packet.getRay(k);
+            Vector dir = toObject.transformVector(ray.getDir());
+            local.add(toObject(ray, dir));
+            scales[k] = dir.length();
+            localMaxDis[k] = maxDis[k] * scales[k];
+        }
+        body.findClosestGeoIntersections(local, active, localMaxDis, localHits);
+        for (int k = 0; k < n; k++)
+            if (localHits[k] != null) {
+                maxDis[k] = localMaxDis[k] / scales[k];
+                hits[k] = new InstanceGeoPoint(localHits[k], toWorld, maxDis[k]);
+            }
+    }
+
+    @Override
+    protected Double3 findTransparencyHelper(Ray ray, double maxDis, Double3 ktr, double minK) {
+        Vector dir = toObject.transformVector(ray.getDir());
+        return body.findTransparency(toObject(ray, dir), maxDis * dir.length(), ktr, minK);
+    }
+}
@@ -1,8 +1,13 @@
 package geometries;
 
+import primitives.Double3;
 import primitives.Point;
 import primitives.Ray;
+import primitives.RayPacket;
+import primitives.Vector;
 
+import java.io.Serializable;
+import java.util.Arrays;
 import java.util.List;
 
 
@@ -14,10 +19,13 @@ import java.util.List;
 
  GeoPoint objects representing the intersection points between the object and a given Ray object.
  */
-public abstract class Intersectable {
+public abstract class Intersectable implements Serializable {
+    private static final long serialVersionUID = 1L;
 
     /**
      The GeoPoint class represents a single intersection point between a Ray object and a Geometry object.
+     Every GeoPoint carries its distance t on the ray that found it, so hits are compared with no point
+     computed. The point is read with {@link #getPoint()}, which replaced the public point field.
      */
     public static class GeoPoint {
 
@@ -27,27 +35,74 @@ public abstract class Intersectable {
         public Geometry geometry;
 
         /**
-         The Point object representing the intersection point
+         The distance of the intersection point on the ray
          */
-        public Point point;
+        public final double t;
 
+        /**
+         The Point object representing the intersection point, null until it is needed if the GeoPoint
+         was built on a ray
+         */
+        private Point point;
 
+        /**
+         The ray the intersection point is on, null if the GeoPoint was built on a point
+         */
+        private final Ray ray;
 
         /**
-         Constructs a new GeoPoint object with the given Geometry object and Point object.
+         Constructs a new GeoPoint object with the given Geometry object, Point object and its distance on the ray.
          @param geometry the Geometry object that was intersected
          @param point the Point object representing the intersection point
+         @param t the distance of the point on the ray
+         @throws IllegalArgumentException if the distance is NaN
          */
-        public GeoPoint(Geometry geometry, Point point) {
+        public GeoPoint(Geometry geometry, Point point, double t) {
+            if (Double.isNaN(t)) throw new IllegalArgumentException("Distance must be a number");
             this.geometry = geometry;
             this.point = point;
+            this.t = t;
+            this.ray = null;
+        }
+
+        /**
+         Constructs a new GeoPoint object at a distance on a ray - the point is computed only when it is needed,
+         so the candidate hits of a query that are not used cost no point.
+         @param geometry the Geometry object that was intersected
+         @param ray the ray
+         @param t the distance of the point on the ray
+         @throws IllegalArgumentException if the distance is NaN
+         */
+        public GeoPoint(Geometry geometry, Ray ray, double t) {
+            if (Double.isNaN(t)) throw new IllegalArgumentException("Distance must be a number");
+            this.geometry = geometry;
+            this.ray = ray;
+            this.t = t;
+        }
+
+        /**
+         Returns the intersection point, computed on the first call if the GeoPoint was built on a ray.
+         @return the intersection point
+         */
+        public Point getPoint() {
+            if (point == null) point = ray.getPoint(t);
+            return point;
+        }
+
+        /**
+         Returns the normal of the intersected geometry at the intersection point.
+         Geometries made of many faces (e.g. a triangle mesh) return hits that know their own face.
+         @return the normal vector
+         */
+        public Vector getNormal() {
+            return geometry.getNormal(getPoint());
         }
 
         @Override
         public boolean equals(Object obj) {
             if (this == obj) return true;
             if (obj instanceof GeoPoint other)
-                return this.geometry.equals(other.geometry) && this.point.equals(other.point);
+                return this.geometry.equals(other.geometry) && this.getPoint().equals(other.getPoint());
             return false;
         }
 
@@ -55,7 +110,7 @@ public abstract class Intersectable {
         public String toString() {
             return "GeoPoint{" +
                     "geometry=" + geometry +
-                    ", point=" + point +
+                    ", point=" + getPoint() +
                     '}';
         }
     }
@@ -86,6 +141,48 @@ public abstract class Intersectable {
 
     public abstract void findMinMaxCenter();
 
+    /**
+     Whether the body is frozen - see {@link #freeze()}
+     */
+    private boolean frozen = false;
+
+    /**
+     Freezes the body - its bounds are computed once and kept, and any change of the body is rejected
+     afterwards. Collections and instances freeze their bodies first, so the bounds of a frozen
+     collection are never computed again by visiting its bodies.
+     @return this body
+     */
+    public Intersectable freeze() {
+        if (!frozen) {
+            findMinMaxCenter();
+            frozen = true;
+        }
+        return this;
+    }
+
+    /**
+     @return true if the body is frozen
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     Computes the bounds of the body by {@link #findMinMaxCenter()}, unless the body is frozen and its
+     bounds are already kept
+     */
+    public final void updateMinMaxCenter() {
+        if (!frozen) findMinMaxCenter();
+    }
+
+    /**
+     Rejects a change of a frozen body
+     @throws IllegalStateException if the body is frozen
+     */
+    protected final void checkNotFrozen() {
+        if (frozen) throw new IllegalStateException("Can't change a frozen body");
+    }
+
     public final List<GeoPoint> findGeoIntersections(Ray ray){
         return findGeoIntersectionsHelper(ray,Double.POSITIVE_INFINITY);
     }
@@ -105,6 +202,163 @@ public abstract class Intersectable {
      */
     protected abstract List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDis);
 
+    public final GeoPoint findClosestGeoIntersection(Ray ray){
+        return findClosestGeoIntersectionHelper(ray, Double.POSITIVE_INFINITY);
+    }
+
+    public final GeoPoint findClosestGeoIntersection(Ray ray, double maxDis){
+        return findClosestGeoIntersectionHelper(ray, maxDis);
+    }
+
+    /**
+     Finds the closest intersection point between the Intersectable object and the given Ray object.
+     The default implementation writes the closest hit into the buffer of the thread by
+     {@link #findClosestHitHelper(Ray, double, HitBuffer)}, and builds the GeoPoint of that hit only.
+     @param ray the Ray object to intersect with the Intersectable object
+     @param maxDis the max distance that if the intersection distance from the ray origin greater then this we ignore it
+     @return the closest GeoPoint on the ray, or null if no intersection points were found
+     */
+    protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDis) {
+        HitBuffer hits = HitBuffer.local();
+        int start = hits.size();
+        try {
+            return findClosestHitHelper(ray, maxDis, hits) ? hits.getGeoPoint(start, ray) : null;
+        } finally {
+            hits.truncate(start);
+        }
+    }
+
+    public final void findHits(Ray ray, double maxDis, HitBuffer hits){
+        findHitsHelper(ray, maxDis, hits);
+    }
+
+    /**
+     Writes the intersections up to maxDis into a hit buffer, after its current records.
+     The default implementation adds the built hits of {@link #findGeoIntersectionsHelper(Ray, double)};
+     primitives override it to write their records without allocating.
+     @param ray the Ray object to intersect with the Intersectable object
+     @param maxDis the max distance that if the intersection distance from the ray origin greater then this we ignore it
+     @param hits the buffer for the hits
+     */
+    protected void findHitsHelper(Ray ray, double maxDis, HitBuffer hits) {
+        var geoList = findGeoIntersectionsHelper(ray, maxDis);
+        if (geoList == null) return;
+        for (GeoPoint geoPoint : geoList)
+            hits.add(geoPoint, geoPoint.t);
+    }
+
+    /**
+     The intersections of {@link #findHitsHelper(Ray, double, HitBuffer)}, built - for bodies that
+     implement {@link #findGeoIntersectionsHelper(Ray, double)} by their hit records
+     @param ray the Ray object to intersect with the Intersectable object
+     @param maxDis the max distance that if the intersection distance from the ray origin greater then this we ignore it
+     @return a list of GeoPoint objects, or null if no intersection points were found
+     */
+    protected final List<GeoPoint> findGeoIntersectionsByHits(Ray ray, double maxDis) {
+        HitBuffer hits = HitBuffer.local();
+        int start = hits.size();
+        try {
+            findHitsHelper(ray, maxDis, hits);
+            return hits.getGeoPoints(start, ray);
+        } finally {
+            hits.truncate(start);
+        }
+    }
+
+    public final boolean findClosestHit(Ray ray, double maxDis, HitBuffer hits){
+        return findClosestHitHelper(ray, maxDis, hits);
+    }
+
+    /**
+     Writes the closest intersection up to maxDis into a hit buffer, after its current records.
+     The default implementation writes all the hits and keeps the closest one; collections override it
+     to shrink maxDis to the closest distance found so far, so farther bodies are skipped.
+     @param ray the Ray object to intersect with the Intersectable object
+     @param maxDis the max distance that if the intersection distance from the ray origin greater then this we ignore it
+     @param hits the buffer for the hit
+     @return true if a hit was written (a single record), false if no intersection points were found
+     */
+    protected boolean findClosestHitHelper(Ray ray, double maxDis, HitBuffer hits) {
+        int start = hits.size();
+        findHitsHelper(ray, maxDis, hits);
+        return !Double.isNaN(hits.keepClosest(start));
+    }
+
+    /**
+     Finds the closest intersection points of all the rays of a packet.
+     @param packet the rays
+     @return the closest GeoPoint of every ray of the packet, null for a ray without intersections
+     */
+    public final GeoPoint[] findClosestGeoIntersections(RayPacket packet){
+        int size = packet.size();
+        boolean[] active = new boolean[size];
+        Arrays.fill(active, true);
+        double[] maxDis = new double[size];
+        Arrays.fill(maxDis, Double.POSITIVE_INFINITY);
+        GeoPoint[] hits = new GeoPoint[size];
+        findClosestGeoIntersectionsHelper(packet, active, maxDis, hits);
+        return hits;
+    }
+
+    public final void findClosestGeoIntersections(RayPacket packet, boolean[] active, double[] maxDis, GeoPoint[] hits){
+        findClosestGeoIntersectionsHelper(packet, active, maxDis, hits);
+    }
+
+    /**
+     Packet version of {@link #findClosestGeoIntersectionHelper(Ray, double)} - finds the closest intersections
+     of the active rays of a packet. A hit of ray k up to maxDis[k] replaces hits[k], and maxDis[k] becomes
+     its distance, so a packet can be passed through several bodies and keeps the closest hits.
+     The default implementation queries the rays one by one; collections override it to traverse once per packet.
+     @param packet the rays
+     @param active which rays of the packet take part in the query (not changed)
+     @param maxDis the max distance of every ray, updated to the distance of its new hit
+     @param hits the closest hit of every ray so far, updated with the new hits
+     */
+    protected void findClosestGeoIntersectionsHelper(RayPacket packet, boolean[] active, double[] maxDis, GeoPoint[] hits) {
+        for (int k = 0; k < packet.size(); k++) {
+            if (!active[k]) continue;
+            Ray ray = packet.getRay(k);
+            GeoPoint gp = findClosestGeoIntersectionHelper(ray, maxDis[k]);
+            if (gp != null) {
+                hits[k] = gp;
+                maxDis[k] = gp.t;
+            }
+        }
+    }
+
+    public final Double3 findTransparency(Ray ray, double maxDis, double minK){
+        return findTransparencyHelper(ray, maxDis, Double3.ONE, minK);
+    }
+
+    public final Double3 findTransparency(Ray ray, double maxDis, Double3 ktr, double minK){
+        return findTransparencyHelper(ray, maxDis, ktr, minK);
+    }
+
+    /**
+     Occlusion query - multiplies the given transparency by the kT of every body the ray hits closer than maxDis.
+     The query stops at the first hit that brings the transparency below minK (an opaque body does it at once),
+     so only transparent bodies let it go on.
+     @param ray the Ray object to intersect with the Intersectable object
+     @param maxDis the max distance that if the intersection distance from the ray origin greater then this we ignore it
+     @param ktr the transparency accumulated so far
+     @param minK the transparency below which the ray is considered blocked
+     @return the accumulated transparency, or Double3.ZERO if the ray is blocked
+     */
+    protected Double3 findTransparencyHelper(Ray ray, double maxDis, Double3 ktr, double minK) {
+        HitBuffer hits = HitBuffer.local();
+        int start = hits.size();
+        try {
+            findHitsHelper(ray, maxDis, hits);
+            for (int i = start; i < hits.size(); i++) {
+                ktr = ktr.product(hits.getGeometry(i).getMaterial().kT);
+                if (ktr.lowerThan(minK)) return Double3.ZERO;
+            }
+            return ktr;
+        } finally {
+            hits.truncate(start);
+        }
+    }
+
     /**
      Finds the intersection points between the Intersectable object and the given Ray object.
      This method calls findGeoIntersections to get a list of GeoPoint objects, then maps each GeoPoint to its
@@ -115,6 +369,6 @@ public abstract class Intersectable {
      */
     public List<Point> findIntersections(Ray ray) {
         var geoList = findGeoIntersections(ray);
-        return geoList == null ? null : geoList.stream().map(gp -> gp.point).toList();
+        return geoList == null ? null : geoList.stream().map(GeoPoint::getPoint).toList();
     }
 }
\ No newline at end of file
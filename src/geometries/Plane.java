@@ -3,6 +3,7 @@ package geometries;
 import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
+import primitives.VectorMath;
 import static primitives.Util.*;
 
 import java.util.List;
@@ -13,6 +14,8 @@ import java.util.List;
  * @author Yoni
  */
 public class Plane extends Geometry {
+    private static final long serialVersionUID = 1L;
+
     private final Point p0;
     private final Vector normal;
 
@@ -61,16 +64,33 @@ public class Plane extends Geometry {
 
     @Override
     protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDis) {
-        if(ray.getP0().equals(this.p0)) return null;
-        double nv = this.normal.dotProduct(ray.getDir());
-        if(isZero(nv))
-            return null;
+        return findGeoIntersectionsByHits(ray, maxDis);
+    }
+
+    @Override
+    protected void findHitsHelper(Ray ray, double maxDis, HitBuffer hits) {
+        double t = findIntersectionDistance(ray, maxDis);
+        if (!Double.isNaN(t)) hits.add(this, t);
+    }
+
+    /**
+     * Finds the distance on the ray to its intersection with the plane, computed on raw components
+     * without creating any object
+     *
+     * @param ray    the ray
+     * @param maxDis the max distance on the ray
+     * @return the distance of the intersection, or NaN if there is no intersection up to maxDis
+     */
+    double findIntersectionDistance(Ray ray, double maxDis) {
+        Point head = ray.getP0();
+        Vector dir = ray.getDir();
+        double dx = p0.getX() - head.getX(), dy = p0.getY() - head.getY(), dz = p0.getZ() - head.getZ();
+        if (isZero(dx) && isZero(dy) && isZero(dz)) return Double.NaN;
+        double nx = normal.getX(), ny = normal.getY(), nz = normal.getZ();
+        double nv = VectorMath.dot(nx, ny, nz, dir.getX(), dir.getY(), dir.getZ());
+        if (isZero(nv)) return Double.NaN;
 
-        double t = alignZero(this.normal.dotProduct(this.p0.subtract(ray.getP0()))/ nv);
-        List<GeoPoint> geoPoints = null;
-        if(t > 0 && alignZero(t - maxDis) <= 0){
-            geoPoints = List.of(new GeoPoint(this, ray.getPoint(t)));
-        }
-        return geoPoints;
+        double t = alignZero(VectorMath.dot(nx, ny, nz, dx, dy, dz) / nv);
+        return t > 0 && alignZero(t - maxDis) <= 0 ? t : Double.NaN;
     }
 }
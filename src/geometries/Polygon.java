@@ -3,6 +3,7 @@ package geometries;
 import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
+import primitives.VectorMath;
 
 import java.util.List;
 
@@ -16,6 +17,8 @@ import static primitives.Util.isZero;
  * @author Dan
  */
 public class Polygon extends Geometry {
+    private static final long serialVersionUID = 1L;
+
     /**
      * List of polygon's vertices
      */
@@ -25,6 +28,17 @@ public class Polygon extends Geometry {
      */
     protected final Plane plane;
     private final int size;
+    /**
+     * The edges of the polygon, 3 values per edge - edge i goes from vertex i - 1 (the last vertex
+     * for i = 0) to vertex i
+     */
+    protected final double[] edges;
+    /**
+     * The moments of the edges (the cross product of the edge start by its end), 3 values per edge.
+     * For a ray head h, the normal of the side spanned from h by an edge (a - h) x (b - h) is the
+     * moment minus h x edge, so the intersections don't subtract the ray head from the vertices.
+     */
+    protected final double[] moments;
 
     /**
      * Polygon constructor based on vertices list. The list must be ordered by edge
@@ -53,6 +67,18 @@ public class Polygon extends Geometry {
             throw new IllegalArgumentException("A polygon can't have less than 3 vertices");
         this.vertices = List.of(vertices);
         size = vertices.length;
+        edges = new double[3 * size];
+        moments = new double[3 * size];
+        for (int i = 0; i < size; i++) {
+            Point a = vertices[i == 0 ? size - 1 : i - 1], b = vertices[i];
+            double ax = a.getX(), ay = a.getY(), az = a.getZ(), bx = b.getX(), by = b.getY(), bz = b.getZ();
+            edges[3 * i] = bx - ax;
+            edges[3 * i + 1] = by - ay;
+            edges[3 * i + 2] = bz - az;
+            moments[3 * i] = ay * bz - az * by;
+            moments[3 * i + 1] = az * bx - ax * bz;
+            moments[3 * i + 2] = ax * by - ay * bx;
+        }
 
         // Generate the plane according to the first three vertices and associate the
         // polygon with this plane.
@@ -88,13 +114,22 @@ public class Polygon extends Geometry {
         }
     }
 
+    /**
+     * getter for vertices
+     *
+     * @return the vertices by their edge path order (unmodifiable)
+     */
+    public List<Point> getVertices() {
+        return vertices;
+    }
+
     @Override
     public void findMinMaxCenter() {
         double sumX = 0;
         double sumY = 0;
         double sumZ = 0;
 
-        Point minPoint = new Point(0, 0, 0);
+        Point minPoint = new Point(Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY);
         Point maxPoint = new Point(Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY,Double.NEGATIVE_INFINITY);
         for (Point p : vertices) {
             minPoint = Point.createMinPoint(minPoint, p);
@@ -116,25 +151,25 @@ public class Polygon extends Geometry {
 
     @Override
     protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDis) {
+        return findGeoIntersectionsByHits(ray, maxDis);
+    }
 
-        Vector[] vectors = new Vector[vertices.size()], dotProductVectors = new Vector[vertices.size()];
-
-        List<GeoPoint> points = plane.findGeoIntersections(ray, maxDis);
-
-        if (points == null) return null;
-
-        for (int i = 0; i < vectors.length; i++) {
-            vectors[i] = this.vertices.get(i).subtract(ray.getP0());
-        }
-
-        for (int i = 0; i < vectors.length; i++) {
-            dotProductVectors[i] = vectors[i].crossProduct(vectors[(i + 1) % vectors.length]);
-        }
-
-        for (int i = 0; i < vectors.length; i++) {
-            if (alignZero(ray.getDir().dotProduct(dotProductVectors[i])) <= 0) return null;
+    @Override
+    protected void findHitsHelper(Ray ray, double maxDis, HitBuffer hits) {
+        double t = plane.findIntersectionDistance(ray, maxDis);
+        if (Double.isNaN(t)) return;
+
+        // the edges test is done on raw components, nothing is allocated
+        Point head = ray.getP0();
+        Vector dir = ray.getDir();
+        double hx = head.getX(), hy = head.getY(), hz = head.getZ();
+        double vx = dir.getX(), vy = dir.getY(), vz = dir.getZ();
+        for (int i = 0; i < 3 * size; i += 3) {
+            double ex = edges[i], ey = edges[i + 1], ez = edges[i + 2];
+            double nx = moments[i] - (hy * ez - hz * ey), ny = moments[i + 1] - (hz * ex - hx * ez),
+                    nz = moments[i + 2] - (hx * ey - hy * ex);
+            if (alignZero(VectorMath.dot(vx, vy, vz, nx, ny, nz)) <= 0) return;
         }
-
-        return points.stream().map(gp -> new GeoPoint(this, gp.point)).toList();
+        hits.add(this, t);
     }
 }
@@ -6,6 +6,8 @@ package geometries;
  * @author Yoni
  */
 public abstract class RadialGeometry extends Geometry {
+    private static final long serialVersionUID = 1L;
+
     /**
      * the radius
      */
@@ -3,8 +3,8 @@ package geometries;
 import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
+import primitives.VectorMath;
 
-import java.util.LinkedList;
 import java.util.List;
 import static primitives.Util.*;
 /**
@@ -13,7 +13,13 @@ import static primitives.Util.*;
  * @author Yoni
  */
 public class Sphere extends RadialGeometry {
+    private static final long serialVersionUID = 1L;
+
     private final Point center;
+    /**
+     * The squared radius, kept for the intersections
+     */
+    private final double radiusSquared;
 
     /**
      * constructor that takes sphere by -
@@ -24,6 +30,7 @@ public class Sphere extends RadialGeometry {
     public Sphere(double radius, Point center) {
         super(radius);
         this.center = center;
+        radiusSquared = radius * radius;
     }
 
     /**
@@ -46,30 +53,61 @@ public class Sphere extends RadialGeometry {
 
     @Override
     protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray,double maxDis) {
-        double tm = 0, d = 0;
-        if(!this.center.equals(ray.getP0())) {
-            var u = this.center.subtract(ray.getP0());
-            tm = ray.getDir().dotProduct(u);
-            d = Math.sqrt(u.dotProduct(u) - tm*tm);
-        }
+        return findGeoIntersectionsByHits(ray, maxDis);
+    }
 
-        if(d >= this.radius){
-            return null;
-        }
-        var th = Math.sqrt(this.radius* this.radius - d*d);
-        var t1 = tm + th;
-        var t2 = tm - th;
-        List<Point> lst = new LinkedList<>();
+    @Override
+    protected void findHitsHelper(Ray ray, double maxDis, HitBuffer hits) {
+        findHits(ray, maxDis, hits, false);
+    }
 
-        if(t1 > 0 && !isZero(t1) &&  alignZero(t2 - maxDis) <= 0){
-            lst.add(ray.getPoint(t1));
-        }
+    @Override
+    protected boolean findClosestHitHelper(Ray ray, double maxDis, HitBuffer hits) {
+        return findHits(ray, maxDis, hits, true);
+    }
 
-        if(t2 > 0 && !isZero(t2) &&  alignZero(t2 - maxDis) <= 0){
-            lst.add(ray.getPoint(t2));
+    /**
+     * Finds the intersections of the ray with the sphere in range (0, maxDis] and writes them into the
+     * buffer, the far one first. Both distances are derived from a single computation on raw components,
+     * without creating any object.
+     *
+     * @param ray     the ray
+     * @param maxDis  the max distance
+     * @param hits    the buffer
+     * @param closest true to write only the closest intersection
+     * @return true if an intersection was written
+     */
+    private boolean findHits(Ray ray, double maxDis, HitBuffer hits, boolean closest) {
+        Point head = ray.getP0();
+        Vector dir = ray.getDir();
+        double ux = center.getX() - head.getX(), uy = center.getY() - head.getY(), uz = center.getZ() - head.getZ();
+        double tm = 0, d2 = 0;
+        if (!(isZero(ux) && isZero(uy) && isZero(uz))) {
+            tm = VectorMath.dot(dir.getX(), dir.getY(), dir.getZ(), ux, uy, uz);
+            d2 = VectorMath.lengthSquared(ux, uy, uz) - tm * tm;
+        }
+        if (d2 >= radiusSquared) return false;
+        double th = Math.sqrt(radiusSquared - d2);
+        double near = tm - th, far = tm + th;
+        boolean nearValid = isValid(near, maxDis);
+        if (closest && nearValid) {
+            hits.add(this, near);
+            return true;
         }
-        if(lst.isEmpty())
-            return null;
-        return lst.stream().map(p -> new GeoPoint(this, p)).toList();
+        boolean farValid = isValid(far, maxDis);
+        if (farValid) hits.add(this, far);
+        if (nearValid) hits.add(this, near);
+        return farValid || nearValid;
+    }
+
+    /**
+     * Checks whether a distance on the ray is an intersection in range (0, maxDis]
+     *
+     * @param t      the distance
+     * @param maxDis the max distance
+     * @return true if the distance is in range
+     */
+    private static boolean isValid(double t, double maxDis) {
+        return t > 0 && !isZero(t) && alignZero(t - maxDis) <= 0;
     }
 }
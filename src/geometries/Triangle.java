@@ -2,18 +2,19 @@ package geometries;
 
 import primitives.Point;
 import primitives.Ray;
+import primitives.Vector;
+import primitives.VectorMath;
 
 import static primitives.Util.*;
 
-import java.util.LinkedList;
-import java.util.List;
-
 /**
  * class that represent triangle
  *
  * @author Yoni
  */
 public class Triangle extends Polygon {
+    private static final long serialVersionUID = 1L;
+
     /**
      * constructor that build the triangle from 3 points
      *
@@ -26,22 +27,35 @@ public class Triangle extends Polygon {
     }
 
     @Override
-    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDis) {
-        List<GeoPoint> points = plane.findGeoIntersections(ray, maxDis);
-        if(points == null) return null;
-
-        var v1 = this.vertices.get(0).subtract(ray.getP0());
-        var v2 = this.vertices.get(1).subtract(ray.getP0());
-        var v3 = this.vertices.get(2).subtract(ray.getP0());
-        var n1 = v1.crossProduct(v2).normalize();
-        var n2 = v2.crossProduct(v3).normalize();
-        var n3 = v3.crossProduct(v1).normalize();
-        var v = ray.getDir();
-        if ((alignZero(v.dotProduct(n1)) > 0 && alignZero(v.dotProduct(n2)) > 0 && alignZero(v.dotProduct(n3)) > 0) ||
-                (alignZero(v.dotProduct(n1)) < 0 && alignZero(v.dotProduct(n2)) < 0 && alignZero(v.dotProduct(n3)) < 0)) {
-            return points.stream().map(gp -> new GeoPoint(this, gp.point)).toList();
-        }
-        return null;
+    protected void findHitsHelper(Ray ray, double maxDis, HitBuffer hits) {
+        double t = plane.findIntersectionDistance(ray, maxDis);
+        if (Double.isNaN(t)) return;
+
+        // the edges test is done on raw components, nothing is allocated
+        Point head = ray.getP0();
+        Vector dir = ray.getDir();
+        double hx = head.getX(), hy = head.getY(), hz = head.getZ();
+        double vx = dir.getX(), vy = dir.getY(), vz = dir.getZ();
+        double s1 = edgeSide(0, hx, hy, hz, vx, vy, vz);
+        double s2 = edgeSide(3, hx, hy, hz, vx, vy, vz);
+        double s3 = edgeSide(6, hx, hy, hz, vx, vy, vz);
+        if ((s1 > 0 && s2 > 0 && s3 > 0) || (s1 < 0 && s2 < 0 && s3 < 0))
+            hits.add(this, t);
+    }
+
+    /**
+     * The (aligned to zero) dot product of the ray direction with the normal of the side
+     * spanned from the ray head by an edge
+     *
+     * @param i the index of the edge in the edges and moments arrays
+     * @return the side of the edge the ray passes by, 0 if it passes on the edge
+     */
+    private double edgeSide(int i, double hx, double hy, double hz, double vx, double vy, double vz) {
+        double ex = edges[i], ey = edges[i + 1], ez = edges[i + 2];
+        double nx = moments[i] - (hy * ez - hz * ey), ny = moments[i + 1] - (hz * ex - hx * ez),
+                nz = moments[i + 2] - (hx * ey - hy * ex);
+        double length = Math.sqrt(VectorMath.lengthSquared(nx, ny, nz));
+        return isZero(length) ? 0 : alignZero(VectorMath.dot(vx, vy, vz, nx, ny, nz) / length);
     }
 
     @Override
@@ -0,0 +1,355 @@
+package geometries;
+
+import primitives.Double3;
+import primitives.IntersectionKernels;
+import primitives.Point;
+import primitives.Ray;
+import primitives.RayPacket;
+import primitives.Vector;
+import primitives.VectorMath;
+
+import java.util.List;
+
+import static primitives.Util.isZero;
+
+/**
+ * Triangle mesh - many triangles with a shared emission and material, kept in flat arrays.
+ * <p>
+ * The vertices are shared between the triangles and each triangle holds only the indices of its
+ * three vertices and its two precomputed edges, which feed the Moller-Trumbore intersection kernel.
+ * Inside a BVH every triangle of the mesh is a separate primitive of the tree.
+ *
+ * @author Raz
+ */
+public class TriangleMesh extends Geometry {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Vertices coordinates, 3 values per vertex
+     */
+    private final double[] vertices;
+    /**
+     * Vertices indices, 3 values per triangle
+     */
+    private final int[] indices;
+    /**
+     * Precomputed edges v1 - v0 and v2 - v0, 6 values per triangle
+     */
+    private final double[] edges;
+    /**
+     * Amount of triangles
+     */
+    private final int size;
+
+    /**
+     * GeoPoint on a triangle of a mesh, which knows the normal of its own triangle
+     */
+    private static class MeshGeoPoint extends GeoPoint {
+        /**
+         * The index of the triangle
+         */
+        private final int triangle;
+
+        MeshGeoPoint(TriangleMesh mesh, Ray ray, double t, int triangle) {
+            super(mesh, ray, t);
+            this.triangle = triangle;
+        }
+
+        @Override
+        public Vector getNormal() {
+            return ((TriangleMesh) geometry).getTriangleNormal(triangle);
+        }
+    }
+
+    /**
+     * Constructs a mesh from vertex and index arrays. The arrays are used as is (not copied).
+     *
+     * @param vertices vertices coordinates, 3 values per vertex
+     * @param indices  vertices indices, 3 values per triangle
+     * @throws IllegalArgumentException if the arrays are not in triples, an index is out of range
+     *                                  or a triangle is degenerate
+     */
+    public TriangleMesh(double[] vertices, int[] indices) {
+        if (vertices.length % 3 != 0 || indices.length % 3 != 0)
+            throw new IllegalArgumentException("Mesh arrays must hold triples");
+        this.vertices = vertices;
+        this.indices = indices;
+        size = indices.length / 3;
+        edges = new double[6 * size];
+        int vertexCount = vertices.length / 3;
+        for (int i = 0; i < size; i++) {
+            for (int k = 0; k < 3; k++)
+                if (indices[3 * i + k] < 0 || indices[3 * i + k] >= vertexCount)
+                    throw new IllegalArgumentException("Mesh vertex index out of range");
+            checkTriangle(vertices, i);
+            computeEdges(i);
+        }
+    }
+
+    /**
+     * Checks that a triangle of the mesh is not degenerate on the given vertices
+     *
+     * @param vertices vertices coordinates, 3 values per vertex
+     * @param triangle the triangle index
+     * @throws IllegalArgumentException if the triangle is degenerate
+     */
+    private void checkTriangle(double[] vertices, int triangle) {
+        int a = 3 * indices[3 * triangle], b = 3 * indices[3 * triangle + 1], c = 3 * indices[3 * triangle + 2];
+        if (isZero(VectorMath.crossLength(vertices[b] - vertices[a], vertices[b + 1] - vertices[a + 1],
+                vertices[b + 2] - vertices[a + 2], vertices[c] - vertices[a], vertices[c + 1] - vertices[a + 1],
+                vertices[c + 2] - vertices[a + 2])))
+            throw new IllegalArgumentException("Mesh triangle can't be degenerate");
+    }
+
+    /**
+     * Computes the edges of a triangle from its vertices
+     *
+     * @param triangle the triangle index
+     */
+    private void computeEdges(int triangle) {
+        int a = 3 * indices[3 * triangle], b = 3 * indices[3 * triangle + 1], c = 3 * indices[3 * triangle + 2];
+        for (int k = 0; k < 3; k++) {
+            edges[6 * triangle + k] = vertices[b + k] - vertices[a + k];
+            edges[6 * triangle + 3 + k] = vertices[c + k] - vertices[a + k];
+        }
+    }
+
+    /**
+     * Moves the vertices of the mesh, keeping its triangles - the new coordinates are copied into the
+     * vertices array and the edges are computed again. A BVH over the mesh is then updated by
+     * {@link scene.AABB#refit()}. A rejected update leaves the mesh as is.
+     *
+     * @param vertices the new vertices coordinates, 3 values per vertex
+     * @throws IllegalArgumentException if the amount of coordinates is not the amount of the mesh, or a
+     *                                  triangle is degenerate on the new vertices
+     * @throws IllegalStateException    if the mesh is frozen
+     */
+    public void updateVertices(double[] vertices) {
+        checkNotFrozen();
+        if (vertices.length != this.vertices.length)
+            throw new IllegalArgumentException("Mesh vertices can't be added or removed");
+        for (int i = 0; i < size; i++)
+            checkTriangle(vertices, i);
+        System.arraycopy(vertices, 0, this.vertices, 0, vertices.length);
+        for (int i = 0; i < size; i++)
+            computeEdges(i);
+    }
+
+    /**
+     * The vertices array of the mesh, as is (not copied) - it must not be modified, the vertices are
+     * moved by {@link #updateVertices(double[])}
+     *
+     * @return vertices coordinates, 3 values per vertex
+     */
+    public double[] getVertices() {
+        return vertices;
+    }
+
+    /**
+     * The indices array of the mesh, as is (not copied) - it must not be modified
+     *
+     * @return vertices indices, 3 values per triangle
+     */
+    public int[] getIndices() {
+        return indices;
+    }
+
+    /**
+     * @return the amount of triangles in the mesh
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Writes the bounds of a triangle
+     *
+     * @param triangle the triangle index
+     * @param out      array for the bounds: minX, minY, minZ, maxX, maxY, maxZ
+     * @param offset   the position in the array
+     */
+    public void getTriangleBounds(int triangle, double[] out, int offset) {
+        for (int k = 0; k < 3; k++) {
+            double a = vertices[3 * indices[3 * triangle] + k];
+            double b = vertices[3 * indices[3 * triangle + 1] + k];
+            double c = vertices[3 * indices[3 * triangle + 2] + k];
+            out[offset + k] = Math.min(a, Math.min(b, c));
+            out[offset + k + 3] = Math.max(a, Math.max(b, c));
+        }
+    }
+
+    /**
+     * Writes the center (average of the vertices) of a triangle
+     *
+     * @param triangle the triangle index
+     * @param out      array for the center coordinates
+     * @param offset   the position in the array
+     */
+    public void getTriangleCenter(int triangle, double[] out, int offset) {
+        for (int k = 0; k < 3; k++)
+            out[offset + k] = (vertices[3 * indices[3 * triangle] + k] + vertices[3 * indices[3 * triangle + 1] + k]
+                    + vertices[3 * indices[3 * triangle + 2] + k]) / 3;
+    }
+
+    /**
+     * The normal of a triangle - (v1 - v0) x (v2 - v0) normalized, like {@link Triangle}
+     *
+     * @param triangle the triangle index
+     * @return the normal
+     */
+    public Vector getTriangleNormal(int triangle) {
+        int e = 6 * triangle;
+        return new Vector(edges[e + 1] * edges[e + 5] - edges[e + 2] * edges[e + 4],
+                edges[e + 2] * edges[e + 3] - edges[e] * edges[e + 5],
+                edges[e] * edges[e + 4] - edges[e + 1] * edges[e + 3]).normalize();
+    }
+
+    /**
+     * Moller-Trumbore intersection of the ray with a triangle on the precomputed edges. Like
+     * {@link Triangle}, hits on the edges and vertices don't count.
+     *
+     * @param triangle the triangle index
+     * @param ray      the ray
+     * @param maxDis   the max distance on the ray
+     * @return the distance of the intersection, or NaN if there is no intersection up to maxDis
+     */
+    public double findTriangleIntersectionDistance(int triangle, Ray ray, double maxDis) {
+        Vector dir = ray.getDir();
+        Point head = ray.getP0();
+        int e = 6 * triangle, a = 3 * indices[3 * triangle];
+        return IntersectionKernels.triangleDistance(vertices[a], vertices[a + 1], vertices[a + 2],
+                edges[e], edges[e + 1], edges[e + 2], edges[e + 3], edges[e + 4], edges[e + 5],
+                head.getX(), head.getY(), head.getZ(), dir.getX(), dir.getY(), dir.getZ(), maxDis);
+    }
+
+    /**
+     * Intersection of the ray with a triangle
+     *
+     * @param triangle the triangle index
+     * @param ray      the ray
+     * @param maxDis   the max distance on the ray
+     * @return the intersection, or null if there is no intersection up to maxDis
+     */
+    public GeoPoint findTriangleIntersection(int triangle, Ray ray, double maxDis) {
+        double t = findTriangleIntersectionDistance(triangle, ray, maxDis);
+        return Double.isNaN(t) ? null : new MeshGeoPoint(this, ray, t, triangle);
+    }
+
+    /**
+     * Intersections of a list of rays of a packet with a triangle, by the packet kernels - a ray that
+     * hits the triangle up to its max distance gets the hit, and its distance becomes the max distance
+     *
+     * @param triangle  the triangle index
+     * @param packet    the packet
+     * @param maxDis    the max distances of the packet rays, updated
+     * @param rays      the indices of the tested rays in the packet, in increasing order
+     * @param count     the amount of tested rays
+     * @param hits      the closest hits of the packet rays, updated
+     * @param distances scratch array of at least count distances
+     */
+    public void findTriangleIntersections(int triangle, RayPacket packet, double[] maxDis, int[] rays, int count,
+                                          GeoPoint[] hits, double[] distances) {
+        int e = 6 * triangle, a = 3 * indices[3 * triangle];
+        IntersectionKernels.get().intersectTriangle(vertices[a], vertices[a + 1], vertices[a + 2],
+                edges[e], edges[e + 1], edges[e + 2], edges[e + 3], edges[e + 4], edges[e + 5],
+                packet, maxDis, rays, count, distances);
+        for (int r = 0; r < count; r++) {
+            if (Double.isNaN(distances[r])) continue;
+            int k = rays[r];
+            hits[k] = new MeshGeoPoint(this, packet.getRay(k), distances[r], triangle);
+            maxDis[k] = distances[r];
+        }
+    }
+
+    /**
+     * Occlusion query of a single triangle - see {@link #findTransparency(Ray, double, Double3, double)}
+     *
+     * @param triangle the triangle index
+     * @param ray      the ray
+     * @param maxDis   the max distance on the ray
+     * @param ktr      the transparency accumulated so far
+     * @param minK     the transparency below which the ray is considered blocked
+     * @return the accumulated transparency, or Double3.ZERO if the ray is blocked
+     */
+    public Double3 findTriangleTransparency(int triangle, Ray ray, double maxDis, Double3 ktr, double minK) {
+        if (Double.isNaN(findTriangleIntersectionDistance(triangle, ray, maxDis))) return ktr;
+        ktr = ktr.product(getMaterial().kT);
+        return ktr.lowerThan(minK) ? Double3.ZERO : ktr;
+    }
+
+    /**
+     * The normal at a point of the mesh. Prefer {@link GeoPoint#getNormal()} of the mesh hits, which
+     * knows its triangle - this method has to look for the triangle that contains the point.
+     *
+     * @param p the point on the mesh
+     * @return the normal of the triangle that contains the point
+     */
+    @Override
+    public Vector getNormal(Point p) {
+        for (int i = 0; i < size; i++) {
+            Vector n = getTriangleNormal(i);
+            int a = 3 * indices[3 * i];
+            if (!isZero(VectorMath.dot(p.getX() - vertices[a], p.getY() - vertices[a + 1], p.getZ() - vertices[a + 2],
+                    n.getX(), n.getY(), n.getZ())))
+                continue;
+            // the point is in the plane of the triangle - check it is inside by a ray from above it
+            if (!Double.isNaN(findTriangleIntersectionDistance(i, new Ray(p.add(n), n.scale(-1)), 2))) return n;
+        }
+        throw new IllegalArgumentException("The point is not on the mesh");
+    }
+
+    @Override
+    public void findMinMaxCenter() {
+        double[] box = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+                Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        for (int i = 0; i < indices.length; i++)
+            for (int k = 0; k < 3; k++) {
+                box[k] = Math.min(box[k], vertices[3 * indices[i] + k]);
+                box[k + 3] = Math.max(box[k + 3], vertices[3 * indices[i] + k]);
+            }
+        minAABB = new Point(box[0], box[1], box[2]);
+        maxAABB = new Point(box[3], box[4], box[5]);
+        centerAABB = new Point((box[0] + box[3]) / 2, (box[1] + box[4]) / 2, (box[2] + box[5]) / 2);
+    }
+
+    @Override
+    GeoPoint createGeoPoint(Ray ray, double t, int id) {
+        return new MeshGeoPoint(this, ray, t, id);
+    }
+
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDis) {
+        return findGeoIntersectionsByHits(ray, maxDis);
+    }
+
+    @Override
+    protected void findHitsHelper(Ray ray, double maxDis, HitBuffer hits) {
+        for (int i = 0; i < size; i++) {
+            double t = findTriangleIntersectionDistance(i, ray, maxDis);
+            if (!Double.isNaN(t)) hits.add(this, i, t);
+        }
+    }
+
+    @Override
+    protected boolean findClosestHitHelper(Ray ray, double maxDis, HitBuffer hits) {
+        int closest = -1;
+        double closestT = maxDis;
+        for (int i = 0; i < size; i++) {
+            double t = findTriangleIntersectionDistance(i, ray, closestT);
+            if (!Double.isNaN(t)) {
+                closest = i;
+                closestT = t;
+            }
+        }
+        if (closest < 0) return false;
+        hits.add(this, closest, closestT);
+        return true;
+    }
+
+    @Override
+    protected Double3 findTransparencyHelper(Ray ray, double maxDis, Double3 ktr, double minK) {
+        for (int i = 0; i < size && !ktr.lowerThan(minK); i++)
+            ktr = findTriangleTransparency(i, ray, maxDis, ktr, minK);
+        return ktr;
+    }
+}
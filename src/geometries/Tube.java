@@ -14,6 +14,8 @@ import static primitives.Util.isZero;
  * @author Yoni
  */
 public class Tube extends RadialGeometry {
+    private static final long serialVersionUID = 1L;
+
     /**
      * the axis ray
      */
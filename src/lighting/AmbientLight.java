@@ -7,6 +7,8 @@ import primitives.Double3;
  * Represents ambient light in a scene.
  */
 public class AmbientLight extends Light{
+    private static final long serialVersionUID = 1L;
+
     /**
      * A constant representing no ambient light.
      */
@@ -11,6 +11,7 @@ import primitives.Vector;
  It extends Light abstract class and implements the LightSource interface.
  */
 public class DirectionalLight extends Light implements LightSource{
+    private static final long serialVersionUID = 1L;
 
     /**
      * The direction of the light source
@@ -38,6 +39,14 @@ public class DirectionalLight extends Light implements LightSource{
     }
 
 
+    /**
+     * Returns the direction of the light source.
+     * @return The normalized direction of the light source.
+     */
+    public Vector getDirection() {
+        return direction;
+    }
+
     @Override
     public Color getIntensity(Point p) {
         return this.getIntensity();
@@ -2,11 +2,14 @@ package lighting;
 
 import primitives.Color;
 
+import java.io.Serializable;
+
 /**
  Light is an abstract class that represents a basic light source in the scene.
  It has a single field for the light intensity and a constructor that initializes it.
  */
-abstract class Light {
+abstract class Light implements Serializable {
+    private static final long serialVersionUID = 1L;
 
     /**
      * The intensity of the light source.
@@ -17,6 +17,12 @@ public interface LightSource {
      */
     public Color getIntensity(Point p);
 
+    /**
+     * Returns the intensity of the light source, before its attenuation.
+     * @return The intensity of the light source.
+     */
+    public Color getIntensity();
+
     /**
      * Returns the direction of the light from a given point in the scene.
      * @param p The point in the scene to calculate the direction of the light from.
@@ -10,6 +10,7 @@ import primitives.Vector;
  * Implements the LightSource interface, which specifies methods for getting the intensity and direction of the light.
  */
 public class PointLight extends Light implements LightSource {
+    private static final long serialVersionUID = 1L;
 
     /**
      * The position of the point light source.
@@ -72,6 +73,42 @@ public class PointLight extends Light implements LightSource {
         return this;
     }
 
+    /**
+     * Returns the position of the point light source.
+     *
+     * @return The position of the point light source.
+     */
+    public Point getPosition() {
+        return position;
+    }
+
+    /**
+     * Returns the constant attenuation coefficient of the point light source.
+     *
+     * @return The constant attenuation coefficient.
+     */
+    public double getkC() {
+        return kC;
+    }
+
+    /**
+     * Returns the linear attenuation coefficient of the point light source.
+     *
+     * @return The linear attenuation coefficient.
+     */
+    public double getkL() {
+        return kL;
+    }
+
+    /**
+     * Returns the quadratic attenuation coefficient of the point light source.
+     *
+     * @return The quadratic attenuation coefficient.
+     */
+    public double getkQ() {
+        return kQ;
+    }
+
     /**
      * Calculates the intensity of the light at a given point, taking into account the distance from the light
      * source and the attenuation coefficients.
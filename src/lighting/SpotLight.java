@@ -13,6 +13,8 @@ import static primitives.Util.alignZero;
  It also allows for adjusting the narrowness of the beam of light.
  */
 public class SpotLight extends PointLight{
+    private static final long serialVersionUID = 1L;
+
     Vector direction;
     double narrowBean = 1;
 
@@ -37,6 +39,22 @@ public class SpotLight extends PointLight{
         this.direction=direction.normalize();
     }
 
+    /**
+     * Returns the direction the light shines in.
+     * @return The normalized direction of the SpotLight.
+     */
+    public Vector getDirection() {
+        return direction;
+    }
+
+    /**
+     * Returns the narrowness of the beam of light for the spotlight.
+     * @return The narrowness of the beam of light.
+     */
+    public double getNarrowBeam() {
+        return narrowBean;
+    }
+
     @Override
     public Color getIntensity(Point p) {
         return super.getIntensity(p).scale(Math.pow(Math.max(0, getL(p).dotProduct(direction)),this.narrowBean));
@@ -1,11 +1,15 @@
 package primitives;
 
+import java.io.Serializable;
+
 /** Wrapper class for java.jwt.Color The constructors operate with any
  * non-negative RGB values. The colors are maintained without upper limit of
  * 255. Some additional operations are added that are useful for manipulating
  * light's colors
  * @author Dan Zilberstein */
-public class Color {
+public class Color implements Serializable {
+   private static final long serialVersionUID = 1L;
+
    /** The internal fields maintain RGB components as double numbers from 0 to
     * whatever... */
    private final Double3     rgb;
@@ -53,6 +57,35 @@ public class Color {
       return new java.awt.Color(ir > 255 ? 255 : ir, ig > 255 ? 255 : ig, ib > 255 ? 255 : ib);
    }
 
+   /** Red component getter - the raw unclamped value
+    * @return the red component */
+   public double getRed() { return rgb.d1; }
+
+   /** Green component getter - the raw unclamped value
+    * @return the green component */
+   public double getGreen() { return rgb.d2; }
+
+   /** Blue component getter - the raw unclamped value
+    * @return the blue component */
+   public double getBlue() { return rgb.d3; }
+
+   /** Packed RGB getter - the color as 0xRRGGBB, like {@link java.awt.Color#getRGB()} without the alpha
+    * and without allocating a java.awt.Color. Every component is clamped to 0..255, so it can't spill
+    * into the other components
+    * @return the packed RGB components */
+   public int getRGB() {
+      return toByte(rgb.d1) << 16 | toByte(rgb.d2) << 8 | toByte(rgb.d3);
+   }
+
+   /** Converts a component to a byte value - any value bigger than 255 is set to 255, and any value lower
+    * than 0 (or not a number) is set to 0
+    * @param  component the component
+    * @return           the byte value, 0..255 */
+   private static int toByte(double component) {
+      int value = (int) component;
+      return value > 255 ? 255 : value < 0 ? 0 : value;
+   }
+
    /** Operation of adding this and one or more other colors (by component)
     * @param  colors one or more other colors to add
     * @return        new Color object which is a result of the operation */
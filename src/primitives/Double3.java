@@ -3,6 +3,8 @@
  */
 package primitives;
 
+import java.io.Serializable;
+
 import static primitives.Util.isZero;
 
 /**
@@ -10,7 +12,9 @@ import static primitives.Util.isZero;
  *
  * @author Dan Zilberstein
  */
-public class Double3 {
+public class Double3 implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     /**
      * Zero triad (0,0,0)
      */
@@ -56,6 +60,27 @@ public class Double3 {
         this.d3 = value;
     }
 
+    /**
+     * @return the first number
+     */
+    public double getD1() {
+        return d1;
+    }
+
+    /**
+     * @return the second number
+     */
+    public double getD2() {
+        return d2;
+    }
+
+    /**
+     * @return the third number
+     */
+    public double getD3() {
+        return d3;
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (this == obj) return true;
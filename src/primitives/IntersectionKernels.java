@@ -0,0 +1,184 @@
+package primitives;
+
+import static primitives.Util.alignZero;
+import static primitives.Util.isZero;
+
+/**
+ * Intersection kernels on raw components - the slab test of a ray against a box and the Moller-Trumbore
+ * test of a ray against a triangle, for a single ray and for many rays of a {@link RayPacket}.
+ * <p>
+ * The packet kernels have two backends: a scalar one, and a SIMD one on the JDK Vector API that tests
+ * several rays per instruction. The SIMD backend is used when the {@code jdk.incubator.vector} module
+ * is present (run with {@code --add-modules jdk.incubator.vector}) and the CPU has at least 4 double
+ * lanes, unless the {@code raytracer.simd} system property is {@code false}. Both backends give the
+ * same results as the single ray kernels, bit for bit.
+ *
+ * @author Raz
+ */
+public abstract class IntersectionKernels {
+    /**
+     * Name of the SIMD backend class, loaded by reflection so this class doesn't need the module
+     */
+    private static final String VECTOR_KERNELS = "primitives.VectorIntersectionKernels";
+    /**
+     * Minimal amount of double lanes for using the SIMD backend
+     */
+    private static final int MIN_LANES = 4;
+    /**
+     * Holder of the kernels used by the packet traversal - loaded on first use, and not while this class
+     * is initialized as the superclass of a backend
+     */
+    private static final class Loaded {
+        /**
+         * The kernels used by the packet traversal
+         */
+        private static final IntersectionKernels KERNELS = load(!"false".equals(System.getProperty("raytracer.simd")));
+    }
+
+    /**
+     * @return the packet kernels - the SIMD backend if it's available, the scalar one otherwise
+     */
+    public static IntersectionKernels get() {
+        return Loaded.KERNELS;
+    }
+
+    /**
+     * Loads the packet kernels
+     *
+     * @param simd whether to try the SIMD backend
+     * @return the SIMD backend if requested and available, the scalar backend otherwise
+     */
+    static IntersectionKernels load(boolean simd) {
+        if (simd && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                IntersectionKernels kernels = (IntersectionKernels) Class.forName(VECTOR_KERNELS)
+                        .getDeclaredConstructor().newInstance();
+                if (kernels.lanes() >= MIN_LANES) return kernels;
+            } catch (ReflectiveOperationException | LinkageError ignored) {
+                // no usable Vector API - the scalar backend does the same work
+            }
+        }
+        return new ScalarIntersectionKernels();
+    }
+
+    /**
+     * @return the amount of rays the backend tests at once
+     */
+    public abstract int lanes();
+
+    /**
+     * Slab test of the rays of a list against a box - keeps at the start of the list the rays that enter
+     * the box up to their max distance, in their order
+     *
+     * @param minX   the box minimal x
+     * @param minY   the box minimal y
+     * @param minZ   the box minimal z
+     * @param maxX   the box maximal x
+     * @param maxY   the box maximal y
+     * @param maxZ   the box maximal z
+     * @param packet the packet
+     * @param invX   the inverse of the x components of the directions of the packet rays
+     * @param invY   the inverse of the y components of the directions of the packet rays
+     * @param invZ   the inverse of the z components of the directions of the packet rays
+     * @param maxDis the max distances of the packet rays
+     * @param rays   the indices of the tested rays in the packet, in increasing order
+     * @param count  the amount of tested rays
+     * @return the amount of rays that enter the box
+     */
+    public abstract int enterBox(double minX, double minY, double minZ, double maxX, double maxY, double maxZ,
+                                 RayPacket packet, double[] invX, double[] invY, double[] invZ, double[] maxDis,
+                                 int[] rays, int count);
+
+    /**
+     * Intersection of the rays of a list with a triangle - see
+     * {@link #triangleDistance(double, double, double, double, double, double, double, double, double, double, double, double, double, double, double, double)}
+     *
+     * @param ax        the first vertex x
+     * @param ay        the first vertex y
+     * @param az        the first vertex z
+     * @param e1x       the first edge (second vertex - first vertex) x
+     * @param e1y       the first edge y
+     * @param e1z       the first edge z
+     * @param e2x       the second edge (third vertex - first vertex) x
+     * @param e2y       the second edge y
+     * @param e2z       the second edge z
+     * @param packet    the packet
+     * @param maxDis    the max distances of the packet rays
+     * @param rays      the indices of the tested rays in the packet, in increasing order
+     * @param count     the amount of tested rays
+     * @param distances array for the distance of the intersection of every tested ray, NaN for no intersection
+     */
+    public abstract void intersectTriangle(double ax, double ay, double az, double e1x, double e1y, double e1z,
+                                           double e2x, double e2y, double e2z, RayPacket packet, double[] maxDis,
+                                           int[] rays, int count, double[] distances);
+
+    /**
+     * Slab test of a ray against a box, clipped to the range (0, maxDis]. A ray parallel to a slab and
+     * starting on its border gives NaN, which does not clip the range.
+     *
+     * @return the distance where the ray enters the box (0 if it starts inside), or infinity if it misses the box
+     */
+    public static double entryDistance(double minX, double minY, double minZ, double maxX, double maxY, double maxZ,
+                                       double ox, double oy, double oz, double invX, double invY, double invZ,
+                                       double maxDis) {
+        double tmin = 0, tmax = maxDis, t1, t2, tmp;
+        t1 = (minX - ox) * invX;
+        t2 = (maxX - ox) * invX;
+        if (t1 > t2) {
+            tmp = t1;
+            t1 = t2;
+            t2 = tmp;
+        }
+        if (t1 > tmin) tmin = t1;
+        if (t2 < tmax) tmax = t2;
+        if (tmin > tmax) return Double.POSITIVE_INFINITY;
+        t1 = (minY - oy) * invY;
+        t2 = (maxY - oy) * invY;
+        if (t1 > t2) {
+            tmp = t1;
+            t1 = t2;
+            t2 = tmp;
+        }
+        if (t1 > tmin) tmin = t1;
+        if (t2 < tmax) tmax = t2;
+        if (tmin > tmax) return Double.POSITIVE_INFINITY;
+        t1 = (minZ - oz) * invZ;
+        t2 = (maxZ - oz) * invZ;
+        if (t1 > t2) {
+            tmp = t1;
+            t1 = t2;
+            t2 = tmp;
+        }
+        if (t1 > tmin) tmin = t1;
+        if (t2 < tmax) tmax = t2;
+        return tmin > tmax ? Double.POSITIVE_INFINITY : tmin;
+    }
+
+    /**
+     * Moller-Trumbore intersection of a ray with a triangle given by a vertex and two edges. Like
+     * the Triangle geometry, hits on the edges and vertices don't count.
+     *
+     * @return the distance of the intersection, or NaN if there is no intersection up to maxDis
+     */
+    public static double triangleDistance(double ax, double ay, double az, double e1x, double e1y, double e1z,
+                                          double e2x, double e2y, double e2z, double ox, double oy, double oz,
+                                          double dx, double dy, double dz, double maxDis) {
+        // p = dir x e2
+        double px = dy * e2z - dz * e2y, py = dz * e2x - dx * e2z, pz = dx * e2y - dy * e2x;
+        double det = VectorMath.dot(e1x, e1y, e1z, px, py, pz);
+        if (isZero(det)) return Double.NaN;
+        double inv = 1 / det;
+
+        double sx = ox - ax, sy = oy - ay, sz = oz - az;
+        double u = alignZero(VectorMath.dot(sx, sy, sz, px, py, pz) * inv);
+        if (u <= 0 || u >= 1) return Double.NaN;
+
+        // q = s x e1
+        double qx = sy * e1z - sz * e1y, qy = sz * e1x - sx * e1z, qz = sx * e1y - sy * e1x;
+        double v = alignZero(VectorMath.dot(dx, dy, dz, qx, qy, qz) * inv);
+        if (v <= 0 || alignZero(1 - u - v) <= 0) return Double.NaN;
+
+        double t = alignZero(VectorMath.dot(e2x, e2y, e2z, qx, qy, qz) * inv);
+        return t > 0 && alignZero(t - maxDis) <= 0 ? t : Double.NaN;
+    }
+}
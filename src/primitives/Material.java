@@ -1,9 +1,12 @@
 package primitives;
 
+import java.io.Serializable;
+
 /**
  * Represents the material of a geometrical object, such as its diffuse and specular coefficients and shininess.
  */
-public class Material {
+public class Material implements Serializable {
+    private static final long serialVersionUID = 1L;
 
     /**
      * The transparency coefficient of the material.
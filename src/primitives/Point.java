@@ -1,5 +1,6 @@
 package primitives;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
@@ -11,7 +12,9 @@ import static primitives.Util.isZero;
  *
  * @author Raz
  */
-public class Point {
+public class Point implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     /**
      * Vector in the space
      */
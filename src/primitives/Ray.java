@@ -2,6 +2,7 @@ package primitives;
 
 import geometries.Intersectable.GeoPoint;
 
+import java.io.Serializable;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -13,7 +14,8 @@ import static primitives.Util.isZero;
  *
  * @author Raz
  */
-public class Ray {
+public class Ray implements Serializable {
+    private static final long serialVersionUID = 1L;
 
     /**
      * Delta for moving the ray
@@ -41,13 +43,27 @@ public class Ray {
         this.p0 = p;
     }
 
+    /**
+     * constructor for Ray from the direction components, without an intermediate vector
+     *
+     * @param p  point value
+     * @param dx direction x component
+     * @param dy direction y component
+     * @param dz direction z component
+     * @throws IllegalArgumentException if the direction is zero
+     */
+    public Ray(Point p, double dx, double dy, double dz) {
+        this.dir = Vector.normalized(dx, dy, dz);
+        this.p0 = p;
+    }
+
     /**
      * get the point
      * @param t for scale in dir
      * @return P0 + dir scale in t
      */
     public Point getPoint(double t){
-        return this.p0.add(this.getDir().scale(t));
+        return new Point(p0.xyz.d1 + dir.xyz.d1 * t, p0.xyz.d2 + dir.xyz.d2 * t, p0.xyz.d3 + dir.xyz.d3 * t);
     }
     @Override
     public boolean equals(Object obj) {
@@ -78,25 +94,36 @@ public class Ray {
      @return The closest point in the list to p0.
      */
     public Point findClosesPoint(List<Point> points){
-        return points == null || points.isEmpty() ? null
-                : findClosestGeoPoint(points.stream().map(p -> new GeoPoint(null, p)).toList()).point;
-    }
+        if (points == null || points.isEmpty()) return null;
+        Point min = points.get(0);
+        double minDistance = p0.distanceSquared(min);
 
-    public GeoPoint findClosestGeoPoint(List<GeoPoint> geoPoints){
-        if (geoPoints.isEmpty()) return null;
-        GeoPoint min = geoPoints.get(0);
-        double minDistance = p0.distance(geoPoints.get(0).point);
-
-        for (GeoPoint geoPoint : geoPoints){
-            double distance = p0.distance(geoPoint.point);
+        for (Point point : points){
+            double distance = p0.distanceSquared(point);
             if (distance < minDistance){
-                min = geoPoint;
+                min = point;
                 minDistance = distance;
             }
         }
         return min;
     }
 
+    /**
+     Finds the closest GeoPoint in a list of GeoPoints to p0.
+     The GeoPoints found on this ray are compared by their distance t, with no point computed.
+
+     @param geoPoints A list of GeoPoints to search for the closest one.
+
+     @return The closest GeoPoint in the list to p0.
+     */
+    public GeoPoint findClosestGeoPoint(List<GeoPoint> geoPoints){
+        if (geoPoints.isEmpty()) return null;
+        GeoPoint min = geoPoints.get(0);
+        for (GeoPoint geoPoint : geoPoints)
+            if (geoPoint.t < min.t) min = geoPoint;
+        return min;
+    }
+
     /**
      * Construct ray that is moved by the delta in the normal/-normal direction
      * @param head the ray head
@@ -128,4 +155,21 @@ public class Ray {
 
         return rays;
     }
+
+    /**
+     * Constructs the rays from a list of points to a given point into a packet, for tracing them together
+     *
+     * @param point the destination point
+     * @param points the list of points to construct rays from
+     * @param packet the packet to add the rays to
+     * @return the packet
+     * @throws IllegalStateException if the packet is too small
+     */
+    public static RayPacket constructRaysFromListOfPointsToPoint(Point point, List<Point> points, RayPacket packet) {
+        for (Point p : points) {
+            packet.add(new Ray(p, point.subtract(p)));
+        }
+
+        return packet;
+    }
 }
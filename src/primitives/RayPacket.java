@@ -0,0 +1,129 @@
+package primitives;
+
+/**
+ * Reusable buffer of rays kept as a structure of arrays - the heads and the (normalized) directions
+ * of the rays are in separate arrays of doubles, so a batch of rays is filled and traversed without
+ * allocating a Ray per ray.
+ *
+ * @author Raz
+ */
+public class RayPacket {
+    /**
+     * Heads of the rays
+     */
+    public final double[] ox, oy, oz;
+    /**
+     * Normalized directions of the rays
+     */
+    public final double[] dx, dy, dz;
+    /**
+     * The rays as Ray objects, created when they are first needed
+     */
+    private final Ray[] rays;
+    /**
+     * Amount of rays in the packet
+     */
+    private int size = 0;
+
+    /**
+     * Constructs an empty packet
+     *
+     * @param capacity the maximal amount of rays
+     * @throws IllegalArgumentException if the capacity isn't positive
+     */
+    public RayPacket(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("Packet capacity must be positive");
+        ox = new double[capacity];
+        oy = new double[capacity];
+        oz = new double[capacity];
+        dx = new double[capacity];
+        dy = new double[capacity];
+        dz = new double[capacity];
+        rays = new Ray[capacity];
+    }
+
+    /**
+     * @return the amount of rays in the packet
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the maximal amount of rays
+     */
+    public int capacity() {
+        return ox.length;
+    }
+
+    /**
+     * Empties the packet for reuse
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Adds a ray by its components, normalizing the direction like {@link Ray}
+     *
+     * @param px head x component
+     * @param py head y component
+     * @param pz head z component
+     * @param vx direction x component
+     * @param vy direction y component
+     * @param vz direction z component
+     * @return the index of the ray in the packet
+     * @throws IllegalStateException if the packet is full
+     */
+    public int add(double px, double py, double pz, double vx, double vy, double vz) {
+        double length = Math.sqrt(vx * vx + vy * vy + vz * vz);
+        return put(px, py, pz, vx / length, vy / length, vz / length);
+    }
+
+    /**
+     * Adds a ray
+     *
+     * @param ray the ray
+     * @return the index of the ray in the packet
+     * @throws IllegalStateException if the packet is full
+     */
+    public int add(Ray ray) {
+        Point p = ray.getP0();
+        Vector v = ray.getDir();
+        int index = put(p.getX(), p.getY(), p.getZ(), v.getX(), v.getY(), v.getZ());
+        rays[index] = ray;
+        return index;
+    }
+
+    /**
+     * Puts a ray with a normalized direction at the end of the packet
+     *
+     * @return the index of the ray in the packet
+     * @throws IllegalStateException if the packet is full
+     */
+    private int put(double px, double py, double pz, double vx, double vy, double vz) {
+        if (size == ox.length) throw new IllegalStateException("Ray packet is full");
+        ox[size] = px;
+        oy[size] = py;
+        oz[size] = pz;
+        dx[size] = vx;
+        dy[size] = vy;
+        dz[size] = vz;
+        rays[size] = null;
+        return size++;
+    }
+
+    /**
+     * A ray of the packet as a Ray object - the ray that was added, or a Ray created once from the
+     * components
+     *
+     * @param index the index of the ray
+     * @return the ray
+     */
+    public Ray getRay(int index) {
+        Ray ray = rays[index];
+        if (ray == null)
+            rays[index] = ray = new Ray(new Point(ox[index], oy[index], oz[index]), dx[index], dy[index], dz[index]);
+        return ray;
+    }
+}
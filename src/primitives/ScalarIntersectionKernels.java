@@ -0,0 +1,38 @@
+package primitives;
+
+/**
+ * The scalar backend of the packet kernels - the single ray kernels applied ray by ray
+ *
+ * @author Raz
+ */
+final class ScalarIntersectionKernels extends IntersectionKernels {
+    @Override
+    public int lanes() {
+        return 1;
+    }
+
+    @Override
+    public int enterBox(double minX, double minY, double minZ, double maxX, double maxY, double maxZ,
+                        RayPacket packet, double[] invX, double[] invY, double[] invZ, double[] maxDis,
+                        int[] rays, int count) {
+        int entered = 0;
+        for (int r = 0; r < count; r++) {
+            int k = rays[r];
+            if (entryDistance(minX, minY, minZ, maxX, maxY, maxZ, packet.ox[k], packet.oy[k], packet.oz[k],
+                    invX[k], invY[k], invZ[k], maxDis[k]) != Double.POSITIVE_INFINITY)
+                rays[entered++] = k;
+        }
+        return entered;
+    }
+
+    @Override
+    public void intersectTriangle(double ax, double ay, double az, double e1x, double e1y, double e1z,
+                                  double e2x, double e2y, double e2z, RayPacket packet, double[] maxDis,
+                                  int[] rays, int count, double[] distances) {
+        for (int r = 0; r < count; r++) {
+            int k = rays[r];
+            distances[r] = triangleDistance(ax, ay, az, e1x, e1y, e1z, e2x, e2y, e2z,
+                    packet.ox[k], packet.oy[k], packet.oz[k], packet.dx[k], packet.dy[k], packet.dz[k], maxDis[k]);
+        }
+    }
+}
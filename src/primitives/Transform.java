@@ -0,0 +1,177 @@
+package primitives;
+
+import java.io.Serializable;
+
+import static primitives.Util.isZero;
+
+/**
+ * Affine transform of the space - a 3 x 3 linear part and a translation, kept with its inverse.
+ * The inverse is composed along with the transform, so it is never computed from a matrix.
+ * <p>
+ * Transforms are immutable and are composed with {@link #then(Transform)}, e.g. a model that is
+ * scaled, then rotated and then moved into place:
+ * {@code Transform.scaling(2).then(Transform.rotation(new Vector(0, 1, 0), 90)).then(Transform.translation(10, 0, 0))}
+ *
+ * @author Raz
+ */
+public final class Transform implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The identity transform
+     */
+    public static final Transform IDENTITY = translation(0, 0, 0);
+
+    /**
+     * The matrix rows, 4 values per row: the linear part and the translation
+     */
+    private final double[] matrix;
+    /**
+     * The rows of the inverse matrix
+     */
+    private final double[] inverse;
+
+    /**
+     * Constructs a transform with a known inverse
+     *
+     * @param matrix  the rows of the matrix
+     * @param inverse the rows of the inverse matrix
+     */
+    private Transform(double[] matrix, double[] inverse) {
+        this.matrix = matrix;
+        this.inverse = inverse;
+    }
+
+    /**
+     * Translation by a vector
+     *
+     * @param dx translation x component
+     * @param dy translation y component
+     * @param dz translation z component
+     * @return the transform
+     */
+    public static Transform translation(double dx, double dy, double dz) {
+        return new Transform(new double[]{1, 0, 0, dx, 0, 1, 0, dy, 0, 0, 1, dz},
+                new double[]{1, 0, 0, -dx, 0, 1, 0, -dy, 0, 0, 1, -dz});
+    }
+
+    /**
+     * Scaling about the origin, a factor per axis
+     *
+     * @param sx x axis factor
+     * @param sy y axis factor
+     * @param sz z axis factor
+     * @return the transform
+     * @throws IllegalArgumentException if a factor is zero
+     */
+    public static Transform scaling(double sx, double sy, double sz) {
+        if (isZero(sx) || isZero(sy) || isZero(sz)) throw new IllegalArgumentException("Scaling factor can't be zero");
+        return new Transform(new double[]{sx, 0, 0, 0, 0, sy, 0, 0, 0, 0, sz, 0},
+                new double[]{1 / sx, 0, 0, 0, 0, 1 / sy, 0, 0, 0, 0, 1 / sz, 0});
+    }
+
+    /**
+     * Uniform scaling about the origin
+     *
+     * @param s the factor
+     * @return the transform
+     * @throws IllegalArgumentException if the factor is zero
+     */
+    public static Transform scaling(double s) {
+        return scaling(s, s, s);
+    }
+
+    /**
+     * Rotation about an axis through the origin, counterclockwise when the axis points at the viewer
+     *
+     * @param axis    the axis direction
+     * @param degrees the angle in degrees
+     * @return the transform
+     */
+    public static Transform rotation(Vector axis, double degrees) {
+        Vector u = axis.normalize();
+        double x = u.getX(), y = u.getY(), z = u.getZ();
+        double angle = Math.toRadians(degrees), cos = Math.cos(angle), sin = Math.sin(angle), c = 1 - cos;
+        double[] m = {
+                cos + x * x * c, x * y * c - z * sin, x * z * c + y * sin, 0,
+                y * x * c + z * sin, cos + y * y * c, y * z * c - x * sin, 0,
+                z * x * c - y * sin, z * y * c + x * sin, cos + z * z * c, 0};
+        // the inverse of a rotation is its transpose
+        double[] inv = {m[0], m[4], m[8], 0, m[1], m[5], m[9], 0, m[2], m[6], m[10], 0};
+        return new Transform(m, inv);
+    }
+
+    /**
+     * Composition of this transform and another one applied after it
+     *
+     * @param next the transform applied after this one
+     * @return the composed transform
+     */
+    public Transform then(Transform next) {
+        return new Transform(multiply(next.matrix, matrix), multiply(inverse, next.inverse));
+    }
+
+    /**
+     * @return the inverse transform
+     */
+    public Transform inverse() {
+        return new Transform(inverse, matrix);
+    }
+
+    /**
+     * Product of two affine matrices
+     *
+     * @param a the left matrix rows
+     * @param b the right matrix rows
+     * @return the rows of a * b
+     */
+    private static double[] multiply(double[] a, double[] b) {
+        double[] m = new double[12];
+        for (int r = 0; r < 12; r += 4) {
+            for (int c = 0; c < 4; c++)
+                m[r + c] = a[r] * b[c] + a[r + 1] * b[4 + c] + a[r + 2] * b[8 + c];
+            m[r + 3] += a[r + 3];
+        }
+        return m;
+    }
+
+    /**
+     * Transforms a point
+     *
+     * @param p the point
+     * @return the transformed point
+     */
+    public Point transformPoint(Point p) {
+        double x = p.getX(), y = p.getY(), z = p.getZ();
+        double[] m = matrix;
+        return new Point(m[0] * x + m[1] * y + m[2] * z + m[3], m[4] * x + m[5] * y + m[6] * z + m[7],
+                m[8] * x + m[9] * y + m[10] * z + m[11]);
+    }
+
+    /**
+     * Transforms a vector - by the linear part only, a direction is not moved
+     *
+     * @param v the vector
+     * @return the transformed vector, not normalized
+     */
+    public Vector transformVector(Vector v) {
+        double x = v.getX(), y = v.getY(), z = v.getZ();
+        double[] m = matrix;
+        return new Vector(m[0] * x + m[1] * y + m[2] * z, m[4] * x + m[5] * y + m[6] * z,
+                m[8] * x + m[9] * y + m[10] * z);
+    }
+
+    /**
+     * Transforms a normal of a surface - by the transpose of the inverse linear part, so it stays
+     * orthogonal to the transformed surface under a non-uniform scaling
+     *
+     * @param n the normal
+     * @return the transformed normal, normalized
+     */
+    public Vector transformNormal(Vector n) {
+        double x = n.getX(), y = n.getY(), z = n.getZ();
+        double[] inv = inverse;
+        return Vector.normalized(inv[0] * x + inv[4] * y + inv[8] * z, inv[1] * x + inv[5] * y + inv[9] * z,
+                inv[2] * x + inv[6] * y + inv[10] * z);
+    }
+}
@@ -1,11 +1,14 @@
 package primitives;
 
+import static primitives.Util.isZero;
+
 /**
  * This class will present Vector in the space
  *
  * @author Raz
  */
 public class Vector extends Point {
+    private static final long serialVersionUID = 1L;
 
     /**
      * constructor for Vector
@@ -15,7 +18,34 @@ public class Vector extends Point {
      */
     Vector(Double3 xyz) {
         super(xyz);
-        if (xyz.equals(Double3.ZERO)) throw new IllegalArgumentException("Vector can't be zero");
+        if (isZero(xyz.d1) && isZero(xyz.d2) && isZero(xyz.d3)) throw new IllegalArgumentException("Vector can't be zero");
+    }
+
+    /**
+     * Unchecked constructor for results that can't be zero (e.g. a normalized vector)
+     *
+     * @param x first number value
+     * @param y second number value
+     * @param z third number value
+     * @param unchecked marker of the unchecked constructor
+     */
+    private Vector(double x, double y, double z, boolean unchecked) {
+        super(x, y, z);
+    }
+
+    /**
+     * Normalized vector of the given components, without an intermediate vector
+     *
+     * @param x first number value
+     * @param y second number value
+     * @param z third number value
+     * @return the normalized vector, the same as {@code new Vector(x, y, z).normalize()}
+     * @throws IllegalArgumentException if the Vector is vector 0 => (0,0,0)
+     */
+    static Vector normalized(double x, double y, double z) {
+        if (isZero(x) && isZero(y) && isZero(z)) throw new IllegalArgumentException("Vector can't be zero");
+        double length = Math.sqrt(x * x + y * y + z * z);
+        return new Vector(x / length, y / length, z / length, true);
     }
 
     /**
@@ -28,7 +58,7 @@ public class Vector extends Point {
      */
     public Vector(double x, double y, double z) {
         super(x, y, z);
-        if (xyz.equals(Double3.ZERO)) throw new IllegalArgumentException("Vector can't be zero");
+        if (isZero(x) && isZero(y) && isZero(z)) throw new IllegalArgumentException("Vector can't be zero");
     }
 
     @Override
@@ -111,6 +141,7 @@ public class Vector extends Point {
      * @return the normal vector
      */
     public Vector normalize() {
-        return new Vector(this.xyz.reduce(this.length()));
+        double length = this.length();
+        return new Vector(this.xyz.d1 / length, this.xyz.d2 / length, this.xyz.d3 / length, true);
     }
 }
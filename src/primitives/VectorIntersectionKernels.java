@@ -0,0 +1,165 @@
+package primitives;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+import static jdk.incubator.vector.VectorOperators.GE;
+import static jdk.incubator.vector.VectorOperators.GT;
+import static jdk.incubator.vector.VectorOperators.LE;
+import static jdk.incubator.vector.VectorOperators.LT;
+
+/**
+ * The SIMD backend of the packet kernels, on the JDK Vector API - the rays are tested in groups of
+ * the preferred vector size of the CPU (8 rays with AVX-512), and the rest of the list ray by ray.
+ * <p>
+ * The lanes follow the single ray kernels operation by operation (no fused multiply-add), and the
+ * NaN cases of the comparisons are kept, so the results are the same bit for bit. This class is
+ * only loaded by {@link IntersectionKernels#load(boolean)} when the module is present.
+ *
+ * @author Raz
+ */
+final class VectorIntersectionKernels extends IntersectionKernels {
+    /**
+     * The vector shape - the widest the CPU supports
+     */
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    /**
+     * Numbers below it in absolute value are zero, like {@link Util#isZero(double)}
+     */
+    private static final double ZERO_BOUND = 0x1p-40;
+
+    @Override
+    public int lanes() {
+        return SPECIES.length();
+    }
+
+    @Override
+    public int enterBox(double minX, double minY, double minZ, double maxX, double maxY, double maxZ,
+                        RayPacket packet, double[] invX, double[] invY, double[] invZ, double[] maxDis,
+                        int[] rays, int count) {
+        int lanes = SPECIES.length(), entered = 0, r = 0;
+        while (r < count) {
+            if (!isGroup(rays, r, count)) {
+                int k = rays[r++];
+                if (entryDistance(minX, minY, minZ, maxX, maxY, maxZ, packet.ox[k], packet.oy[k], packet.oz[k],
+                        invX[k], invY[k], invZ[k], maxDis[k]) != Double.POSITIVE_INFINITY)
+                    rays[entered++] = k;
+                continue;
+            }
+            int k = rays[r];
+            // the slab test per axis: the near and far distances of the slab, and the range clipped by them.
+            // NaN compares false and does not clip the range
+            DoubleVector tmin = DoubleVector.zero(SPECIES), tmax = DoubleVector.fromArray(SPECIES, maxDis, k);
+            DoubleVector origin = DoubleVector.fromArray(SPECIES, packet.ox, k), inv = DoubleVector.fromArray(SPECIES, invX, k);
+            DoubleVector t1 = DoubleVector.broadcast(SPECIES, minX).sub(origin).mul(inv);
+            DoubleVector t2 = DoubleVector.broadcast(SPECIES, maxX).sub(origin).mul(inv);
+            VectorMask<Double> swap = t1.compare(GT, t2);
+            DoubleVector near = t1.blend(t2, swap), far = t2.blend(t1, swap);
+            tmin = tmin.blend(near, near.compare(GT, tmin));
+            tmax = tmax.blend(far, far.compare(LT, tmax));
+
+            origin = DoubleVector.fromArray(SPECIES, packet.oy, k);
+            inv = DoubleVector.fromArray(SPECIES, invY, k);
+            t1 = DoubleVector.broadcast(SPECIES, minY).sub(origin).mul(inv);
+            t2 = DoubleVector.broadcast(SPECIES, maxY).sub(origin).mul(inv);
+            swap = t1.compare(GT, t2);
+            near = t1.blend(t2, swap);
+            far = t2.blend(t1, swap);
+            tmin = tmin.blend(near, near.compare(GT, tmin));
+            tmax = tmax.blend(far, far.compare(LT, tmax));
+
+            origin = DoubleVector.fromArray(SPECIES, packet.oz, k);
+            inv = DoubleVector.fromArray(SPECIES, invZ, k);
+            t1 = DoubleVector.broadcast(SPECIES, minZ).sub(origin).mul(inv);
+            t2 = DoubleVector.broadcast(SPECIES, maxZ).sub(origin).mul(inv);
+            swap = t1.compare(GT, t2);
+            near = t1.blend(t2, swap);
+            far = t2.blend(t1, swap);
+            tmin = tmin.blend(near, near.compare(GT, tmin));
+            tmax = tmax.blend(far, far.compare(LT, tmax));
+
+            // a box entered at infinity is missed, like the infinity result of the single ray kernel.
+            // The ranges are never NaN
+            far = tmax.min(Double.MAX_VALUE);
+            VectorMask<Double> enter = tmin.compare(LE, far);
+            // the list is compacted in place - a ray is never written after the rays that follow it.
+            // The rays of a coherent packet mostly enter a box together or miss it together. On JDK 17 a
+            // mask that leaves the vector operations (toLong, laneIsSet, and) is built on the heap, so the
+            // lanes of a partly entered group compare the vectors
+            if (enter.allTrue()) {
+                if (entered < r) System.arraycopy(rays, r, rays, entered, lanes);
+                entered += lanes;
+            } else if (enter.anyTrue()) {
+                for (int lane = 0; lane < lanes; lane++)
+                    if (tmin.lane(lane) <= far.lane(lane)) rays[entered++] = rays[r + lane];
+            }
+            r += lanes;
+        }
+        return entered;
+    }
+
+    @Override
+    public void intersectTriangle(double ax, double ay, double az, double e1x, double e1y, double e1z,
+                                  double e2x, double e2y, double e2z, RayPacket packet, double[] maxDis,
+                                  int[] rays, int count, double[] distances) {
+        int lanes = SPECIES.length(), r = 0;
+        while (r < count) {
+            int k = rays[r];
+            if (!isGroup(rays, r, count)) {
+                distances[r++] = triangleDistance(ax, ay, az, e1x, e1y, e1z, e2x, e2y, e2z, packet.ox[k], packet.oy[k],
+                        packet.oz[k], packet.dx[k], packet.dy[k], packet.dz[k], maxDis[k]);
+                continue;
+            }
+            DoubleVector dx = DoubleVector.fromArray(SPECIES, packet.dx, k), dy = DoubleVector.fromArray(SPECIES, packet.dy, k),
+                    dz = DoubleVector.fromArray(SPECIES, packet.dz, k);
+
+            // p = dir x e2
+            DoubleVector px = dy.mul(e2z).sub(dz.mul(e2y)), py = dz.mul(e2x).sub(dx.mul(e2z)),
+                    pz = dx.mul(e2y).sub(dy.mul(e2x));
+            DoubleVector det = px.mul(e1x).add(py.mul(e1y)).add(pz.mul(e1z));
+            VectorMask<Double> miss = det.abs().compare(LT, ZERO_BOUND);
+            DoubleVector inv = DoubleVector.broadcast(SPECIES, 1).div(det);
+
+            DoubleVector sx = DoubleVector.fromArray(SPECIES, packet.ox, k).sub(ax),
+                    sy = DoubleVector.fromArray(SPECIES, packet.oy, k).sub(ay),
+                    sz = DoubleVector.fromArray(SPECIES, packet.oz, k).sub(az);
+            // alignZero(x) <= 0 is x < ZERO_BOUND, and a value that passes it is not aligned
+            DoubleVector u = sx.mul(px).add(sy.mul(py)).add(sz.mul(pz)).mul(inv);
+            miss = miss.or(u.compare(LT, ZERO_BOUND)).or(u.compare(GE, 1));
+            if (miss.allTrue()) {
+                DoubleVector.broadcast(SPECIES, Double.NaN).intoArray(distances, r);
+                r += lanes;
+                continue;
+            }
+
+            // q = s x e1
+            DoubleVector qx = sy.mul(e1z).sub(sz.mul(e1y)), qy = sz.mul(e1x).sub(sx.mul(e1z)),
+                    qz = sx.mul(e1y).sub(sy.mul(e1x));
+            DoubleVector v = dx.mul(qx).add(dy.mul(qy)).add(dz.mul(qz)).mul(inv);
+            miss = miss.or(v.compare(LT, ZERO_BOUND))
+                    .or(DoubleVector.broadcast(SPECIES, 1).sub(u).sub(v).compare(LT, ZERO_BOUND));
+
+            DoubleVector t = qx.mul(e2x).add(qy.mul(e2y)).add(qz.mul(e2z)).mul(inv);
+            VectorMask<Double> hit = miss.not().and(t.compare(GE, ZERO_BOUND))
+                    .and(t.sub(DoubleVector.fromArray(SPECIES, maxDis, k)).compare(LT, ZERO_BOUND));
+            DoubleVector.broadcast(SPECIES, Double.NaN).blend(t, hit).intoArray(distances, r);
+            r += lanes;
+        }
+    }
+
+    /**
+     * Whether the rays of the list from the given position fill a vector and are adjacent in the packet,
+     * so their values are loaded straight from the packet arrays. The gathers of the Vector API are
+     * slower than scalar loads, so the other rays are tested one by one.
+     *
+     * @param rays  the list of rays, in increasing order
+     * @param r     the position in the list
+     * @param count the amount of rays in the list
+     * @return whether the group is a vector of adjacent rays
+     */
+    private static boolean isGroup(int[] rays, int r, int count) {
+        int lanes = SPECIES.length();
+        return r + lanes <= count && rays[r + lanes - 1] - rays[r] == lanes - 1;
+    }
+}
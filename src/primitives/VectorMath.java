@@ -0,0 +1,55 @@
+package primitives;
+
+/**
+ * Allocation free vector math on raw components, for the hot loops of intersection and shading.
+ * The methods take the coordinates as separate doubles and return scalars, so the callers keep
+ * their intermediate values in local variables instead of creating Vector objects.
+ *
+ * @author Raz
+ */
+public final class VectorMath {
+
+    /**
+     * Empty private constructor to hide the public one
+     */
+    private VectorMath() {
+    }
+
+    /**
+     * Dot product of two vectors
+     *
+     * @return a . b
+     */
+    public static double dot(double ax, double ay, double az, double bx, double by, double bz) {
+        return ax * bx + ay * by + az * bz;
+    }
+
+    /**
+     * Squared length of a vector
+     *
+     * @return |a|^2
+     */
+    public static double lengthSquared(double ax, double ay, double az) {
+        return ax * ax + ay * ay + az * az;
+    }
+
+    /**
+     * Length of the cross product of two vectors
+     *
+     * @return |a x b|
+     */
+    public static double crossLength(double ax, double ay, double az, double bx, double by, double bz) {
+        double cx = ay * bz - az * by, cy = az * bx - ax * bz, cz = ax * by - ay * bx;
+        return Math.sqrt(cx * cx + cy * cy + cz * cz);
+    }
+
+    /**
+     * Scalar triple product of three vectors
+     *
+     * @return v . (a x b)
+     */
+    public static double triple(double vx, double vy, double vz,
+                                double ax, double ay, double az, double bx, double by, double bz) {
+        return vx * (ay * bz - az * by) + vy * (az * bx - ax * bz) + vz * (ax * by - ay * bx);
+    }
+}
@@ -3,10 +3,16 @@ package renderer;
 import primitives.Color;
 import primitives.Point;
 import primitives.Ray;
+import primitives.RayPacket;
 import primitives.Vector;
 
+import java.io.Serializable;
 import java.util.*;
-import java.util.stream.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import static primitives.Util.alignZero;
 import static primitives.Util.isZero;
@@ -14,11 +20,14 @@ import static primitives.Util.isZero;
 /**
  * This class represents a camera in a 3D space.
  * <p>
- * It defines the camera's position, orientation, and view plane parameters.
+ * It defines the camera's position, orientation, and view plane parameters. A camera is serializable
+ * with its ray tracer and scene, without the image writer, so a {@link RenderFarm} can send it to its
+ * workers.
  */
-public class Camera {
+public class Camera implements Serializable {
+    private static final long serialVersionUID = 1L;
 
-    ImageWriter imageWriter;
+    transient ImageWriter imageWriter;
     /**
      * Ray tracer
      */
@@ -64,7 +73,7 @@ public class Camera {
     /**
      * DoF points on the aperture plane
      */
-    List<Point> DoFPoints = null;
+    transient List<Point> DoFPoints = null;
 
 
     /**
@@ -72,6 +81,80 @@ public class Camera {
      */
     int gridDensity = 7;
 
+    /**
+     * Amount of depth of field rays an adaptive pixel starts with
+     */
+    private static final int DOF_INITIAL_RAYS = 8;
+
+    /**
+     * Whether the depth of field rays of a pixel are added only while their colors disagree
+     */
+    private boolean DoFAdaptive = false;
+
+    /**
+     * Variance of the average color (per component, in 0..255 units squared) below which an adaptive
+     * pixel stops adding depth of field rays
+     */
+    private double DoFVarianceThreshold = 1;
+
+    /**
+     * Maximal amount of depth of field rays of an adaptive pixel, 0 for all the aperture points
+     */
+    private int DoFMaxRays = 0;
+
+    /**
+     * Whether the pixels are adaptively supersampled
+     */
+    private boolean antiAliasing = false;
+
+    /**
+     * Maximal recursion depth of the adaptive supersampling - a pixel is divided into up to
+     * 4^depth cells
+     */
+    private int antiAliasingDepth = 3;
+
+    /**
+     * Color difference (per component, in 0..255 units) above which the corners of a cell are
+     * considered different and the cell is divided
+     */
+    private double antiAliasingThreshold = 8;
+
+    /**
+     * The target of the pixels of the current render - the image writer, or the tile buffer of a
+     * render farm worker
+     */
+    private transient PixelWriter pixelWriter = null;
+
+    /**
+     * Generator of the rays of the current render
+     */
+    private transient RayGenerator rayGenerator = null;
+
+    /**
+     * The progress of the last render
+     */
+    private transient RenderProgress renderProgress = null;
+
+    /**
+     * Tile edge size in pixels - the unit of work of the render threads
+     */
+    private int tileSize = 32;
+
+    /**
+     * Amount of render threads, 0 for all the available processors
+     */
+    private int threadsCount = 0;
+
+    /**
+     * The pool of render threads, created by the first render and reused by the next ones
+     */
+    private transient ForkJoinPool renderPool = null;
+
+    /**
+     * Listener for the progress of the renders
+     */
+    transient ProgressListener progressListener = ProgressListener.CONSOLE;
+
     /**
      * Constructs a camera object with the specified position, direction, and up direction vectors.
      *
@@ -89,9 +172,127 @@ public class Camera {
     }
 
     /**
-     * check if all fields are not empty
+     * Renders the image into the image writer
+     *
+     * @return the camera object
+     * @throws MissingResourceException if a required field is not set
      */
     public Camera renderImage() {
+        prepareRender();
+        int width = imageWriter.getNx(), height = imageWriter.getNy();
+        renderProgress = new RenderProgress((long) width * height, progressListener);
+        renderRegion(0, 0, width, height, renderProgress);
+        return this;
+    }
+
+    /**
+     * Prepares the camera for rendering regions of the image of the image writer - {@link #renderImage()}
+     * does it for the whole image, and the workers of a {@link RenderFarm} once for all their tiles
+     *
+     * @throws MissingResourceException if a required field is not set
+     */
+    void prepareRender() {
+        if (imageWriter == null) {
+            throw new MissingResourceException("Image writer not given", "Camera", "imageWriter");
+        }
+        prepareRender(imageWriter);
+    }
+
+    /**
+     * Prepares the camera for rendering regions of an image into a pixel writer - the workers of a
+     * {@link RenderFarm} render into their tile buffers
+     *
+     * @param pixelWriter the target of the pixels
+     * @throws MissingResourceException if a required field is not set
+     */
+    void prepareRender(PixelWriter pixelWriter) {
+        validate();
+        this.pixelWriter = pixelWriter;
+        rayGenerator = createRayGenerator(pixelWriter.getNx(), pixelWriter.getNy());
+        if(DoFActive) {
+            this.DoFPoints = Point.generatePointsOnCircle(location, vUp, vRight, apertureRadius, gridDensity);
+            if (DoFAdaptive) this.DoFPoints = spreadOrder(DoFPoints);
+        }
+    }
+
+    /**
+     * Renders a rectangle of the image into the pixel writer of the render, on the render threads
+     *
+     * @param x0       the x-coordinate of the first pixel
+     * @param y0       the y-coordinate of the first pixel
+     * @param x1       the x-coordinate after the last pixel
+     * @param y1       the y-coordinate after the last pixel
+     * @param progress the progress of the render
+     */
+    void renderRegion(int x0, int y0, int x1, int y1, RenderProgress progress) {
+        if (antiAliasing && !DoFActive) {
+            SharedCorners shared = new SharedCorners(x0, y0, x1, y1, tileSize);
+            renderTiles(x0, y0, x1, y1, progress,
+                    (tx0, ty0, tx1, ty1) -> renderTileAntiAliased(tx0, ty0, tx1, ty1, shared));
+        }
+        else if (!DoFActive)
+            renderTiles(x0, y0, x1, y1, progress, this::renderTile);
+        else
+            renderTiles(x0, y0, x1, y1, progress, pixels((j, i) -> renderPixel(j, i)));
+    }
+
+    /**
+     * Renders the image progressively - every pass traces one sample of every pixel, adds it to an
+     * accumulation buffer and writes the average of the samples so far into the image writer, so a
+     * preview is ready after the first pass.
+     * <p>
+     * With depth of field the samples are the aperture points, and every pixel takes them in its own
+     * order so the early passes are noisy rather than ghosted. After a pass per aperture point every
+     * pixel is the average of all the aperture points, like in {@link #renderImage()}. Without depth
+     * of field a single pass renders the image.
+     * <p>
+     * The pixels are written again in every pass, so the image writer must allow it (not a
+     * {@link StreamingImageWriter}).
+     *
+     * @param maxPasses the maximal amount of passes, 0 for all the samples
+     * @param listener  called after every pass, e.g. to write a snapshot of the image
+     * @return the camera object
+     * @throws MissingResourceException if a required field is not set
+     */
+    public Camera renderProgressive(int maxPasses, FrameListener listener) {
+        if (maxPasses < 0) throw new IllegalArgumentException("Passes count can't be negative");
+        if (imageWriter == null) {
+            throw new MissingResourceException("Image writer not given", "Camera", "imageWriter");
+        }
+        validate();
+        pixelWriter = imageWriter;
+        int width = imageWriter.getNx(), height = imageWriter.getNy();
+        rayGenerator = createRayGenerator(width, height);
+        if (DoFActive)
+            this.DoFPoints = Point.generatePointsOnCircle(location, vUp, vRight, apertureRadius, gridDensity);
+        int samples = DoFActive ? DoFPoints.size() : 1;
+        int passes = maxPasses == 0 ? samples : Math.min(maxPasses, samples);
+        renderProgress = new RenderProgress((long) width * height * passes, progressListener);
+
+        float[] accumulation = new float[3 * width * height];
+        for (int pass = 1; pass <= passes; pass++) {
+            int sample = pass - 1, count = pass;
+            renderTiles(0, 0, width, height, renderProgress, pixels((j, i) -> {
+                Color color = DoFActive ? traceAperturePoint(j, i, sample) : traceCenter(j, i);
+                int index = 3 * (i * width + j);
+                float r = accumulation[index] += (float) color.getRed();
+                float g = accumulation[index + 1] += (float) color.getGreen();
+                float b = accumulation[index + 2] += (float) color.getBlue();
+                imageWriter.writePixel(j, i, new Color(r / count, g / count, b / count));
+                return 1;
+            }));
+            listener.onFrame(pass, passes, imageWriter);
+        }
+        return this;
+    }
+
+    /**
+     * Checks that the fields of the view and the ray tracer are set - the image writer is checked by the
+     * renders that write into it
+     *
+     * @throws MissingResourceException if a required field is not set
+     */
+    private void validate() {
         if (location == null) {
             throw new MissingResourceException("location not given", "Camera", "location");
         }
@@ -120,10 +321,6 @@ public class Camera {
             throw new MissingResourceException("VPWidth not given", "Camera", "VPWidth");
         }
 
-        if (imageWriter == null) {
-            throw new MissingResourceException("Image writer not given", "Camera", "imageWriter");
-        }
-
         if (rayTracer == null) {
             throw new MissingResourceException("Ray tracer base writer not given", "Camera", "rayTracerBase");
         }
@@ -134,29 +331,464 @@ public class Camera {
             throw new MissingResourceException("Focal length not set", "Camera", "focalLength");
         }
 
-        int width = imageWriter.getNx(), height = imageWriter.getNy();
-        Pixel.initialize(height, width, 1);
-        if(DoFActive) {
-            this.DoFPoints = Point.generatePointsOnCircle(location, vUp, vRight, apertureRadius, gridDensity);
-            IntStream.range(0, height).parallel().forEach(i -> {
-                IntStream.range(0, width).parallel().forEach(j -> {
-                    var focalPoint = constructRay(width, height, j, i).getPoint(focalLength);
-                    imageWriter.writePixel(j, i, rayTracer.traceMultipleRays(Ray.constructRaysFromListOfPointsToPoint(focalPoint, DoFPoints)));
-                    Pixel.pixelDone();
-                    Pixel.printPixel();
-                });
-            });
-        }else {
-
-            IntStream.range(0, height).parallel().forEach(i -> {
-                IntStream.range(0, width).parallel().forEach(j -> {
-                    imageWriter.writePixel(j, i, rayTracer.traceRay(constructRay(width, height, j, i)));
-                    Pixel.pixelDone();
-                    Pixel.printPixel();
-                });
-            });
+    }
+
+    /**
+     * Renders a tile of the image
+     */
+    @FunctionalInterface
+    private interface TileTask {
+        /**
+         * @param x0 the x-coordinate of the first pixel
+         * @param y0 the y-coordinate of the first pixel
+         * @param x1 the x-coordinate after the last pixel
+         * @param y1 the y-coordinate after the last pixel
+         * @return the amount of primary rays traced
+         */
+        int render(int x0, int y0, int x1, int y1);
+    }
+
+    /**
+     * Renders a pixel of the image
+     */
+    @FunctionalInterface
+    private interface PixelTask {
+        /**
+         * @param j the x-coordinate of the pixel on the view plane
+         * @param i the y-coordinate of the pixel on the view plane
+         * @return the amount of primary rays traced
+         */
+        int render(int j, int i);
+    }
+
+    /**
+     * Tile task that runs the pixel task on every pixel of the tile
+     *
+     * @param pixelTask the pixel task
+     * @return the tile task
+     */
+    private static TileTask pixels(PixelTask pixelTask) {
+        return (x0, y0, x1, y1) -> {
+            int rays = 0;
+            for (int i = y0; i < y1; i++)
+                for (int j = x0; j < x1; j++)
+                    rays += pixelTask.render(j, i);
+            return rays;
+        };
+    }
+
+    /**
+     * Runs the tile task on all the tiles of a rectangle of the image, on the pool of render threads
+     *
+     * @param x0       the x-coordinate of the first pixel
+     * @param y0       the y-coordinate of the first pixel
+     * @param x1       the x-coordinate after the last pixel
+     * @param y1       the y-coordinate after the last pixel
+     * @param progress the progress of the render
+     * @param tileTask the tile task
+     */
+    private void renderTiles(int x0, int y0, int x1, int y1, RenderProgress progress, TileTask tileTask) {
+        int tilesX = (x1 - x0 + tileSize - 1) / tileSize, tilesY = (y1 - y0 + tileSize - 1) / tileSize;
+        ForkJoinPool pool = getRenderPool();
+        int threads = pool.getParallelism();
+        // the row of tiles at the first row that isn't done, and enough rows after it for all the threads
+        int rowsAhead = tileSize * (1 + (threads + tilesX - 1) / tilesX);
+        AtomicInteger next = new AtomicInteger();
+        List<TilesTask> workers = new ArrayList<>(threads);
+        for (int k = 0; k < threads; k++)
+            workers.add(new TilesTask(next, tilesX * tilesY, tilesX, rowsAhead, x0, y0, x1, y1, progress, tileTask));
+        pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(workers)));
+    }
+
+    /**
+     * The pool of render threads of the camera - the pool of the previous renders, or a new one if there
+     * is none yet or the amount of threads was changed. The idle threads of the pool end by themselves.
+     *
+     * @return the pool
+     */
+    private synchronized ForkJoinPool getRenderPool() {
+        int parallelism = threadsCount > 0 ? threadsCount : Runtime.getRuntime().availableProcessors();
+        if (renderPool == null || renderPool.getParallelism() != parallelism) {
+            if (renderPool != null) renderPool.shutdown();
+            renderPool = new ForkJoinPool(parallelism);
         }
-        return this;
+        return renderPool;
+    }
+
+    /**
+     * Fork-join task of a render thread rendering the tiles (numbered row by row) of a rectangle of the
+     * image. The threads take the tiles one by one from a shared counter, so the tiles are rendered in
+     * row order and a thread that is done with a tile takes the next one - the image rows that aren't
+     * done stay within a few rows of tiles, which bounds the memory of a {@link StreamingImageWriter}.
+     */
+    private class TilesTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The next tile to render, shared by the threads
+         */
+        private final AtomicInteger next;
+        /**
+         * Amount of tiles
+         */
+        private final int count;
+        /**
+         * Amount of tiles in a row
+         */
+        private final int tilesX;
+        /**
+         * Amount of rows from the first row that isn't done on that a tile may start at - see
+         * {@link PixelWriter#awaitRow(int, int)}
+         */
+        private final int rowsAhead;
+        /**
+         * The rendered rectangle - its first pixel and the pixel after its last one
+         */
+        private final int x0, y0, x1, y1;
+        /**
+         * The progress of the render
+         */
+        private final RenderProgress progress;
+        /**
+         * The task of every tile
+         */
+        private final TileTask tileTask;
+
+        TilesTask(AtomicInteger next, int count, int tilesX, int rowsAhead, int x0, int y0, int x1, int y1,
+                  RenderProgress progress, TileTask tileTask) {
+            this.next = next;
+            this.count = count;
+            this.tilesX = tilesX;
+            this.rowsAhead = rowsAhead;
+            this.x0 = x0;
+            this.y0 = y0;
+            this.x1 = x1;
+            this.y1 = y1;
+            this.progress = progress;
+            this.tileTask = tileTask;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                for (int tile = next.getAndIncrement(); tile < count; tile = next.getAndIncrement()) {
+                    int tx0 = x0 + (tile % tilesX) * tileSize, ty0 = y0 + (tile / tilesX) * tileSize;
+                    int tx1 = Math.min(tx0 + tileSize, x1), ty1 = Math.min(ty0 + tileSize, y1);
+                    pixelWriter.awaitRow(ty0, rowsAhead);
+                    int rays = tileTask.render(tx0, ty0, tx1, ty1);
+                    pixelWriter.tileDone(tx0, ty0, tx1, ty1);
+                    progress.pixelsDone((long) (tx1 - tx0) * (ty1 - ty0), rays);
+                }
+            } catch (RuntimeException | Error e) {
+                // the rows of the tile won't be done - the other threads stop, and don't wait for them
+                next.set(count);
+                if (pixelWriter instanceof StreamingImageWriter streaming) streaming.close();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Renders a tile with a ray through the center of every pixel - the rays of the tile are generated
+     * row by row into a packet and traced by a single traversal of the scene
+     *
+     * @param x0 the x-coordinate of the first pixel
+     * @param y0 the y-coordinate of the first pixel
+     * @param x1 the x-coordinate after the last pixel
+     * @param y1 the y-coordinate after the last pixel
+     * @return the amount of primary rays traced
+     */
+    private int renderTile(int x0, int y0, int x1, int y1) {
+        RayPacket packet = new RayPacket((x1 - x0) * (y1 - y0));
+        rayGenerator.fillTile(x0, y0, x1, y1, packet);
+        Color[] colors = rayTracer.traceRays(packet);
+        for (int i = y0, k = 0; i < y1; i++)
+            for (int j = x0; j < x1; j++)
+                pixelWriter.writePixel(j, i, colors[k++]);
+        return colors.length;
+    }
+
+    /**
+     * Traces the ray(s) of a single pixel and writes its color
+     *
+     * @param j  the x-coordinate of the pixel on the view plane
+     * @param i  the y-coordinate of the pixel on the view plane
+     * @return the amount of primary rays traced
+     */
+    private int renderPixel(int j, int i) {
+        if (DoFActive) {
+            var focalPoint = rayGenerator.constructRay(j, i).getPoint(focalLength);
+            if (DoFAdaptive) return renderAdaptiveDoF(j, i, focalPoint);
+            pixelWriter.writePixel(j, i, rayTracer.traceMultipleRays(
+                    Ray.constructRaysFromListOfPointsToPoint(focalPoint, DoFPoints, new RayPacket(DoFPoints.size()))));
+            return DoFPoints.size();
+        }
+        pixelWriter.writePixel(j, i, traceCenter(j, i));
+        return 1;
+    }
+
+    /**
+     * Traces the ray through the center of a pixel
+     *
+     * @param j  the x-coordinate of the pixel on the view plane
+     * @param i  the y-coordinate of the pixel on the view plane
+     * @return the color of the ray
+     */
+    private Color traceCenter(int j, int i) {
+        return rayTracer.traceRay(rayGenerator.constructRay(j, i));
+    }
+
+    /**
+     * Traces the depth of field rays of a pixel adaptively and writes its color - starts with a few
+     * aperture points and doubles their amount while the variance of the average color is above the
+     * threshold, up to the ray budget
+     *
+     * @param j          the x-coordinate of the pixel on the view plane
+     * @param i          the y-coordinate of the pixel on the view plane
+     * @param focalPoint the focal point of the pixel
+     * @return the amount of rays traced
+     */
+    private int renderAdaptiveDoF(int j, int i, Point focalPoint) {
+        int budget = DoFMaxRays == 0 ? DoFPoints.size() : Math.min(DoFMaxRays, DoFPoints.size());
+        double r = 0, g = 0, b = 0, r2 = 0, g2 = 0, b2 = 0;
+        int count = 0;
+        RayPacket packet = new RayPacket(budget);
+        for (int batch = Math.min(DOF_INITIAL_RAYS, budget); ; batch = Math.min(2 * count, budget)) {
+            // every batch is traced as a packet
+            packet.clear();
+            Ray.constructRaysFromListOfPointsToPoint(focalPoint, DoFPoints.subList(count, batch), packet);
+            for (Color color : rayTracer.traceRays(packet)) {
+                count++;
+                r += color.getRed();
+                g += color.getGreen();
+                b += color.getBlue();
+                r2 += color.getRed() * color.getRed();
+                g2 += color.getGreen() * color.getGreen();
+                b2 += color.getBlue() * color.getBlue();
+            }
+            if (count == budget) break;
+            // variance of the average - the samples variance over their amount
+            double variance = Math.max(r2 / count - (r / count) * (r / count),
+                    Math.max(g2 / count - (g / count) * (g / count), b2 / count - (b / count) * (b / count))) / count;
+            if (variance <= DoFVarianceThreshold) break;
+        }
+        pixelWriter.writePixel(j, i, new Color(r / count, g / count, b / count));
+        return count;
+    }
+
+    /**
+     * Renders a tile with adaptive supersampling. The rays go through the pixel corners, which are
+     * shared by the neighbouring pixels of the tile, and the corners on the borders of the tile are
+     * shared with the neighbouring tiles. A pixel whose corners agree is their average, otherwise it is
+     * divided into 4 cells recursively, up to the maximal depth.
+     *
+     * @param x0     the x-coordinate of the first pixel
+     * @param y0     the y-coordinate of the first pixel
+     * @param x1     the x-coordinate after the last pixel
+     * @param y1     the y-coordinate after the last pixel
+     * @param shared the corners on the borders between the tiles
+     * @return the amount of primary rays traced
+     */
+    private int renderTileAntiAliased(int x0, int y0, int x1, int y1, SharedCorners shared) {
+        int w = x1 - x0 + 1;
+        Color[] corners = new Color[w * (y1 - y0 + 1)];
+        // the corners that the neighbouring tiles didn't trace yet are traced as a packet
+        RayPacket packet = new RayPacket(corners.length);
+        int[] traced = new int[corners.length];
+        for (int i = y0, k = 0; i <= y1; i++)
+            for (int j = x0; j <= x1; j++, k++)
+                if ((corners[k] = shared.get(j, i)) == null) {
+                    traced[packet.size()] = k;
+                    packet.add(rayGenerator.constructRay((double) j, i));
+                }
+        int[] rays = {packet.size()};
+        if (rays[0] > 0) {
+            Color[] colors = rayTracer.traceRays(packet);
+            for (int m = 0; m < colors.length; m++) {
+                int k = traced[m];
+                corners[k] = colors[m];
+                shared.set(x0 + k % w, y0 + k / w, colors[m]);
+            }
+        }
+        for (int i = y0; i < y1; i++)
+            for (int j = x0; j < x1; j++) {
+                int k = (i - y0) * w + j - x0;
+                pixelWriter.writePixel(j, i, traceCell(j, i, 1, corners[k], corners[k + 1],
+                        corners[k + w], corners[k + w + 1], antiAliasingDepth, rays));
+            }
+        return rays[0];
+    }
+
+    /**
+     * The pixel corners on the borders between the tiles of a rendered rectangle. The first of the two
+     * tiles of a border traces its corners and keeps them here, and the other tile takes them from here
+     * instead of tracing them again. Tiles that are rendered at the same time may both trace a corner -
+     * it is the same color either way.
+     */
+    private static final class SharedCorners {
+        /**
+         * The rendered rectangle - its first pixel and the pixel after its last one
+         */
+        private final int x0, y0, x1, y1;
+        /**
+         * Tile edge size in pixels
+         */
+        private final int tileSize;
+        /**
+         * Amount of corners on the horizontal borders
+         */
+        private final int rowsSize;
+        /**
+         * The corners on the horizontal borders, border by border, then the corners on the vertical
+         * borders that aren't on a horizontal border, null for a corner that isn't traced yet
+         */
+        private final AtomicReferenceArray<Color> corners;
+
+        SharedCorners(int x0, int y0, int x1, int y1, int tileSize) {
+            this.x0 = x0;
+            this.y0 = y0;
+            this.x1 = x1;
+            this.y1 = y1;
+            this.tileSize = tileSize;
+            int bordersX = (x1 - x0 - 1) / tileSize, bordersY = (y1 - y0 - 1) / tileSize;
+            rowsSize = bordersY * (x1 - x0 + 1);
+            corners = new AtomicReferenceArray<>(rowsSize + bordersX * (y1 - y0 + 1));
+        }
+
+        /**
+         * @param j the x-coordinate of the corner
+         * @param i the y-coordinate of the corner
+         * @return the index of the corner, or -1 if it isn't on a border between tiles
+         */
+        private int index(int j, int i) {
+            int dx = j - x0, dy = i - y0;
+            if (dy > 0 && i < y1 && dy % tileSize == 0) return (dy / tileSize - 1) * (x1 - x0 + 1) + dx;
+            if (dx > 0 && j < x1 && dx % tileSize == 0) return rowsSize + (dx / tileSize - 1) * (y1 - y0 + 1) + dy;
+            return -1;
+        }
+
+        /**
+         * @param j the x-coordinate of the corner
+         * @param i the y-coordinate of the corner
+         * @return the color of the corner, or null if it isn't traced yet or isn't on a border
+         */
+        Color get(int j, int i) {
+            int k = index(j, i);
+            return k < 0 ? null : corners.get(k);
+        }
+
+        /**
+         * Keeps the color of a corner, if it is on a border
+         *
+         * @param j     the x-coordinate of the corner
+         * @param i     the y-coordinate of the corner
+         * @param color the color of the corner
+         */
+        void set(int j, int i, Color color) {
+            int k = index(j, i);
+            if (k >= 0) corners.set(k, color);
+        }
+    }
+
+    /**
+     * The color of a square cell of the view plane by its corners - their average if they agree, or
+     * the average of its 4 sub-cells
+     *
+     * @param x     the x-coordinate of the top left corner, in pixels
+     * @param y     the y-coordinate of the top left corner, in pixels
+     * @param size  the cell edge size, in pixels
+     * @param c00   the color of the top left corner
+     * @param c10   the color of the top right corner
+     * @param c01   the color of the bottom left corner
+     * @param c11   the color of the bottom right corner
+     * @param depth the allowed recursion depth
+     * @param rays  counter of the traced rays
+     * @return the color of the cell
+     */
+    private Color traceCell(double x, double y, double size,
+                            Color c00, Color c10, Color c01, Color c11, int depth, int[] rays) {
+        if (depth == 0 || (agree(c00.getRed(), c10.getRed(), c01.getRed(), c11.getRed())
+                && agree(c00.getGreen(), c10.getGreen(), c01.getGreen(), c11.getGreen())
+                && agree(c00.getBlue(), c10.getBlue(), c01.getBlue(), c11.getBlue())))
+            return c00.add(c10, c01, c11).reduce(4);
+
+        double half = size / 2;
+        Color top = traceViewPlane(x + half, y), left = traceViewPlane(x, y + half);
+        Color center = traceViewPlane(x + half, y + half);
+        Color right = traceViewPlane(x + size, y + half), bottom = traceViewPlane(x + half, y + size);
+        rays[0] += 5;
+        return traceCell(x, y, half, c00, top, left, center, depth - 1, rays)
+                .add(traceCell(x + half, y, half, top, c10, center, right, depth - 1, rays),
+                        traceCell(x, y + half, half, left, center, c01, bottom, depth - 1, rays),
+                        traceCell(x + half, y + half, half, center, right, bottom, c11, depth - 1, rays))
+                .reduce(4);
+    }
+
+    /**
+     * @return whether the 4 color components are within the anti-aliasing threshold
+     */
+    private boolean agree(double a, double b, double c, double d) {
+        return Math.max(Math.max(a, b), Math.max(c, d)) - Math.min(Math.min(a, b), Math.min(c, d)) <= antiAliasingThreshold;
+    }
+
+    /**
+     * Traces the ray through a point of the view plane
+     *
+     * @param x  the x-coordinate of the point from the left edge, in pixels
+     * @param y  the y-coordinate of the point from the top edge, in pixels
+     * @return the color of the ray
+     */
+    private Color traceViewPlane(double x, double y) {
+        return rayTracer.traceRay(rayGenerator.constructRay(x, y));
+    }
+
+    /**
+     * Orders the aperture points so that every prefix of the list is spread over the aperture - each
+     * point is the farthest one from the points before it, starting from the one nearest to the center
+     *
+     * @param points the aperture points
+     * @return the ordered points
+     */
+    private List<Point> spreadOrder(List<Point> points) {
+        List<Point> remaining = new ArrayList<>(points), ordered = new ArrayList<>(points.size());
+        if (remaining.isEmpty()) return ordered;
+        Point last = remaining.stream().min(Comparator.comparingDouble(location::distanceSquared)).orElseThrow();
+        remaining.remove(last);
+        ordered.add(last);
+        // distances of the remaining points from the nearest ordered point
+        double[] distances = new double[remaining.size()];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        while (!remaining.isEmpty()) {
+            int next = 0;
+            for (int k = 0; k < remaining.size(); k++) {
+                distances[k] = Math.min(distances[k], remaining.get(k).distanceSquared(last));
+                if (distances[k] > distances[next]) next = k;
+            }
+            last = remaining.get(next);
+            ordered.add(last);
+            int end = remaining.size() - 1;
+            remaining.set(next, remaining.get(end));
+            distances[next] = distances[end];
+            remaining.remove(end);
+        }
+        return ordered;
+    }
+
+    /**
+     * Traces a single depth of field ray of a pixel - from an aperture point to the focal point of
+     * the pixel. Every pixel takes the aperture points in its own (hashed) order.
+     *
+     * @param j      the x-coordinate of the pixel on the view plane
+     * @param i      the y-coordinate of the pixel on the view plane
+     * @param sample the sample number of the pixel
+     * @return the color of the ray
+     */
+    private Color traceAperturePoint(int j, int i, int sample) {
+        int hash = i * 0x9E3779B9 ^ j * 0x85EBCA6B;
+        hash ^= hash >>> 15;
+        Point aperturePoint = DoFPoints.get(Math.floorMod(hash + sample, DoFPoints.size()));
+        Point focalPoint = rayGenerator.constructRay(j, i).getPoint(focalLength);
+        return rayTracer.traceRay(new Ray(aperturePoint, focalPoint.subtract(aperturePoint)));
     }
 
     /**
@@ -204,6 +836,18 @@ public class Camera {
         return new Ray(location, pIJ.subtract(location));
     }
 
+    /**
+     * Creates the generator of the rays of the camera for an image resolution - the rays of
+     * {@link #constructRay(int, int, int, int)}, with the view plane computations done once
+     *
+     * @param nX the number of pixels along the width of the view plane
+     * @param nY the number of pixels along the height of the view plane
+     * @return the ray generator
+     */
+    public RayGenerator createRayGenerator(int nX, int nY) {
+        return new RayGenerator(location, vTo, vUp, vRight, VPDistance, VPWidth, VPHeight, nX, nY);
+    }
+
     public Camera setImageWriter(ImageWriter imageWriter) {
         this.imageWriter = imageWriter;
         return this;
@@ -234,6 +878,124 @@ public class Camera {
         return this;
     }
 
+    /**
+     * Sets adaptive depth of field sampling - every pixel starts with a few aperture points and adds
+     * more only while their colors disagree
+     *
+     * @param DoFAdaptive whether the depth of field sampling is adaptive
+     * @return the camera object
+     */
+    public Camera setDoFAdaptive(boolean DoFAdaptive) {
+        this.DoFAdaptive = DoFAdaptive;
+        return this;
+    }
+
+    /**
+     * Sets the variance of the average color below which an adaptive pixel stops adding depth of
+     * field rays
+     *
+     * @param DoFVarianceThreshold the variance per color component, in 0..255 units squared (default 1)
+     * @return the camera object
+     */
+    public Camera setDoFVarianceThreshold(double DoFVarianceThreshold) {
+        if (DoFVarianceThreshold < 0) throw new IllegalArgumentException("Variance threshold can't be negative");
+        this.DoFVarianceThreshold = DoFVarianceThreshold;
+        return this;
+    }
+
+    /**
+     * Sets the ray budget of an adaptive depth of field pixel
+     *
+     * @param DoFMaxRays the maximal amount of rays of a pixel, 0 for all the aperture points
+     * @return the camera object
+     */
+    public Camera setDoFMaxRays(int DoFMaxRays) {
+        if (DoFMaxRays < 0) throw new IllegalArgumentException("Max rays can't be negative");
+        this.DoFMaxRays = DoFMaxRays;
+        return this;
+    }
+
+    /**
+     * Sets adaptive supersampling (anti-aliasing) - the rays go through the pixel corners, and pixels
+     * whose corners differ are divided recursively. It is ignored with depth of field, which already
+     * traces many rays per pixel.
+     *
+     * @param antiAliasing whether the pixels are adaptively supersampled
+     * @return the camera object
+     */
+    public Camera setAntiAliasing(boolean antiAliasing) {
+        this.antiAliasing = antiAliasing;
+        return this;
+    }
+
+    /**
+     * Sets the maximal recursion depth of the adaptive supersampling
+     *
+     * @param antiAliasingDepth the depth - a pixel is divided into up to 4^depth cells (default 3)
+     * @return the camera object
+     */
+    public Camera setAntiAliasingDepth(int antiAliasingDepth) {
+        if (antiAliasingDepth < 0) throw new IllegalArgumentException("Anti-aliasing depth can't be negative");
+        this.antiAliasingDepth = antiAliasingDepth;
+        return this;
+    }
+
+    /**
+     * Sets the color difference above which a cell of the adaptive supersampling is divided
+     *
+     * @param antiAliasingThreshold the difference per color component, in 0..255 units (default 8)
+     * @return the camera object
+     */
+    public Camera setAntiAliasingThreshold(double antiAliasingThreshold) {
+        if (antiAliasingThreshold < 0) throw new IllegalArgumentException("Anti-aliasing threshold can't be negative");
+        this.antiAliasingThreshold = antiAliasingThreshold;
+        return this;
+    }
+
+    /**
+     * The progress of the last render, with its metrics - e.g. the amount of primary rays
+     *
+     * @return the progress, or null before the first render
+     */
+    public RenderProgress getRenderProgress() {
+        return renderProgress;
+    }
+
+    /**
+     * Sets the tile size - the render threads take the image in square tiles of this edge size
+     *
+     * @param tileSize the tile edge size in pixels
+     * @return the camera object
+     */
+    public Camera setTileSize(int tileSize) {
+        if (tileSize <= 0) throw new IllegalArgumentException("Tile size must be positive");
+        this.tileSize = tileSize;
+        return this;
+    }
+
+    /**
+     * Sets the listener for the progress of the renders
+     *
+     * @param progressListener the listener, e.g. {@link ProgressListener#CONSOLE} or {@link ProgressListener#NONE}
+     * @return the camera object
+     */
+    public Camera setProgressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener == null ? ProgressListener.NONE : progressListener;
+        return this;
+    }
+
+    /**
+     * Sets the amount of render threads
+     *
+     * @param threadsCount the amount of threads, 0 for all the available processors
+     * @return the camera object
+     */
+    public Camera setThreadsCount(int threadsCount) {
+        if (threadsCount < 0) throw new IllegalArgumentException("Threads count can't be negative");
+        this.threadsCount = threadsCount;
+        return this;
+    }
+
 
     /**
      * This method prints a grid on the image with the given interval and color.
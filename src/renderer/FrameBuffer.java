@@ -0,0 +1,311 @@
+package renderer;
+
+import primitives.Color;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * High dynamic range frame buffer - an image writer that keeps the unclamped colors as floats, so a
+ * render can be saved as PFM or OpenEXR and exposed and tone mapped again without rendering it again.
+ * <p>
+ * The colors are kept linear with 1 for white - the color 255 of {@link Color}. {@link #writeToImage()}
+ * writes the png with the exposure and the tone mapping operator of the buffer.
+ *
+ * @author Raz
+ */
+public class FrameBuffer extends ImageWriter {
+    /**
+     * Size of the buffer the files are streamed through
+     */
+    private static final int IO_BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The pixels - 3 floats (red, green, blue) per pixel, row by row from the top row
+     */
+    private final float[] pixels;
+    /**
+     * Exposure multiplier applied before the tone mapping
+     */
+    private double exposure = 1;
+    /**
+     * Tone mapping operator of the png
+     */
+    private ToneMapper toneMapper = ToneMapper.CLAMP;
+
+    /**
+     * Frame buffer constructor
+     *
+     * @param imageName the name of the image files
+     * @param nX        amount of pixels by Width
+     * @param nY        amount of pixels by height
+     * @throws IllegalArgumentException if the size is negative or the pixels don't fit in an array
+     */
+    public FrameBuffer(String imageName, int nX, int nY) {
+        super(imageName, nX, nY, false);
+        if (nX < 0 || nY < 0) throw new IllegalArgumentException("Image size can't be negative");
+        // the limit of the array size, with a margin for the array header
+        if (3L * nX * nY > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("Image of " + nX + "x" + nY + " pixels is too large for a frame buffer");
+        pixels = new float[3 * nX * nY];
+    }
+
+    /**
+     * Setter for the exposure of the png
+     *
+     * @param exposure the multiplier of the colors before tone mapping
+     * @return the frame buffer
+     * @throws IllegalArgumentException if the exposure isn't positive
+     */
+    public FrameBuffer setExposure(double exposure) {
+        if (exposure <= 0) throw new IllegalArgumentException("Exposure must be positive");
+        this.exposure = exposure;
+        return this;
+    }
+
+    /**
+     * Setter for the tone mapping operator of the png
+     *
+     * @param toneMapper the tone mapping operator
+     * @return the frame buffer
+     */
+    public FrameBuffer setToneMapper(ToneMapper toneMapper) {
+        this.toneMapper = toneMapper;
+        return this;
+    }
+
+    /**
+     * The raw pixels - 3 floats (red, green, blue) per pixel, row by row from the top row, 1 for white
+     *
+     * @return the pixels array (not a copy)
+     */
+    public float[] getPixels() {
+        return pixels;
+    }
+
+    @Override
+    public void writePixel(int xIndex, int yIndex, Color color) {
+        int i = 3 * (yIndex * getNx() + xIndex);
+        pixels[i] = (float) (color.getRed() / 255);
+        pixels[i + 1] = (float) (color.getGreen() / 255);
+        pixels[i + 2] = (float) (color.getBlue() / 255);
+    }
+
+    /**
+     * Writes the png of the image, with the exposure and the tone mapping operator of the buffer. The
+     * mapped components are rounded to 8 bits.
+     */
+    @Override
+    public void writeToImage() {
+        int nX = getNx(), nY = getNy();
+        BufferedImage image = new BufferedImage(nX, nY, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0, i = 0; y < nY; y++)
+            for (int x = 0; x < nX; x++, i += 3)
+                image.setRGB(x, y, toByte(pixels[i]) << 16 | toByte(pixels[i + 1]) << 8 | toByte(pixels[i + 2]));
+        try {
+            ImageIO.write(image, "png", Path.of(FOLDER_PATH, imageName + ".png").toFile());
+        } catch (IOException e) {
+            throw fail(e);
+        }
+    }
+
+    /**
+     * Exposes, tone maps and rounds a component to 8 bits
+     *
+     * @param value the linear component
+     * @return the 8 bits component
+     */
+    private int toByte(float value) {
+        return (int) Math.round(Math.max(0, Math.min(1, toneMapper.map(exposure * value))) * 255);
+    }
+
+    /**
+     * Writes the image as a PFM (portable float map) file - little endian 32 bits floats, rows from the
+     * bottom row
+     */
+    public void writePfm() {
+        int nX = getNx(), nY = getNy();
+        byte[] header = ("PF\n" + nX + " " + nY + "\n-1.0\n").getBytes(StandardCharsets.US_ASCII);
+        write("pfm", (channel, buffer) -> {
+            writeFully(channel, ByteBuffer.wrap(header));
+            for (int y = nY - 1; y >= 0; y--)
+                for (int i = 3 * y * nX, end = i + 3 * nX; i < end; i++)
+                    reserve(channel, buffer, Float.BYTES).putFloat(pixels[i]);
+        });
+    }
+
+    /**
+     * Writes the image as an uncompressed scanline OpenEXR file, with 32 bits float R, G and B channels
+     *
+     * @throws IllegalStateException if a line is too wide for the OpenEXR line size
+     */
+    public void writeExr() {
+        int nX = getNx(), nY = getNy();
+        if (12L * nX > Integer.MAX_VALUE) throw new IllegalStateException("Image is too wide for OpenEXR");
+        ByteBuffer header = ByteBuffer.allocate(512).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(20000630).putInt(2);
+        // the channels are sorted by name: B, G, R - float, not linear, 1 x 1 sampling
+        attribute(header, "channels", "chlist", 3 * 18 + 1);
+        for (String channel : new String[]{"B", "G", "R"})
+            header.put(channel.getBytes(StandardCharsets.US_ASCII)).put((byte) 0).putInt(2).putInt(0)
+                    .putInt(1).putInt(1);
+        header.put((byte) 0);
+        attribute(header, "compression", "compression", 1);
+        header.put((byte) 0);
+        attribute(header, "dataWindow", "box2i", 16);
+        header.putInt(0).putInt(0).putInt(nX - 1).putInt(nY - 1);
+        attribute(header, "displayWindow", "box2i", 16);
+        header.putInt(0).putInt(0).putInt(nX - 1).putInt(nY - 1);
+        attribute(header, "lineOrder", "lineOrder", 1);
+        header.put((byte) 0);
+        attribute(header, "pixelAspectRatio", "float", 4);
+        header.putFloat(1);
+        attribute(header, "screenWindowCenter", "v2f", 8);
+        header.putFloat(0).putFloat(0);
+        attribute(header, "screenWindowWidth", "float", 4);
+        header.putFloat(1);
+        header.put((byte) 0).flip();
+
+        // offsets table, then every line: y, data size and the channels one after the other
+        int lineSize = 12 * nX;
+        write("exr", (channel, buffer) -> {
+            long offset = header.limit() + 8L * nY;
+            writeFully(channel, header);
+            for (int y = 0; y < nY; y++, offset += 8 + lineSize)
+                reserve(channel, buffer, Long.BYTES).putLong(offset);
+            for (int y = 0; y < nY; y++) {
+                reserve(channel, buffer, 2 * Integer.BYTES).putInt(y).putInt(lineSize);
+                for (int c = 2; c >= 0; c--)
+                    for (int x = 0, i = 3 * y * nX + c; x < nX; x++, i += 3)
+                        reserve(channel, buffer, Float.BYTES).putFloat(pixels[i]);
+            }
+        });
+    }
+
+    /**
+     * Puts the name, type and size of an OpenEXR header attribute
+     */
+    private static void attribute(ByteBuffer header, String name, String type, int size) {
+        header.put(name.getBytes(StandardCharsets.US_ASCII)).put((byte) 0)
+                .put(type.getBytes(StandardCharsets.US_ASCII)).put((byte) 0).putInt(size);
+    }
+
+    /**
+     * Reads a PFM file of the images folder, to expose and tone map it again
+     *
+     * @param imageName the name of the image file
+     * @return the frame buffer of the image
+     * @throws IllegalArgumentException if the file isn't a color PFM
+     */
+    public static FrameBuffer readPfm(String imageName) {
+        try (FileChannel channel = FileChannel.open(Path.of(FOLDER_PATH, imageName + ".pfm"))) {
+            ByteBuffer buffer = ByteBuffer.allocate(IO_BUFFER_SIZE).flip();
+            String[] header = new String[4];
+            for (int i = 0; i < 4; i++) {
+                StringBuilder token = new StringBuilder();
+                byte b;
+                while (Character.isWhitespace(b = fill(channel, buffer, 1).get())) ;
+                do token.append((char) b);
+                while (!Character.isWhitespace(b = fill(channel, buffer, 1).get()));
+                header[i] = token.toString();
+            }
+            if (!header[0].equals("PF")) throw new IllegalArgumentException("Not a color PFM file");
+            int nX = Integer.parseInt(header[1]), nY = Integer.parseInt(header[2]);
+            buffer.order(Double.parseDouble(header[3]) < 0 ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+
+            FrameBuffer frame = new FrameBuffer(imageName, nX, nY);
+            for (int y = nY - 1; y >= 0; y--)
+                for (int i = 3 * y * nX, end = i + 3 * nX; i < end; i++)
+                    frame.pixels[i] = fill(channel, buffer, Float.BYTES).getFloat();
+            return frame;
+        } catch (IOException e) {
+            throw new IllegalStateException("I/O error - may be missing file " + imageName + ".pfm", e);
+        }
+    }
+
+    /**
+     * Content of an image file, streamed through a buffer
+     */
+    @FunctionalInterface
+    private interface FileContent {
+        /**
+         * Puts the content into the buffer, writing the buffer to the file whenever it's full
+         *
+         * @param channel the file
+         * @param buffer  the buffer, empty and ready to put into
+         * @throws IOException on file errors
+         */
+        void write(FileChannel channel, ByteBuffer buffer) throws IOException;
+    }
+
+    /**
+     * Writes an image file of the images folder through a buffer of {@link #IO_BUFFER_SIZE} bytes, so
+     * files of any size are written without holding them in memory
+     *
+     * @param extension the file extension
+     * @param content   the file content
+     */
+    private void write(String extension, FileContent content) {
+        try (FileChannel channel = FileChannel.open(Path.of(FOLDER_PATH, imageName + "." + extension),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(IO_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            content.write(channel, buffer);
+            writeFully(channel, buffer.flip());
+        } catch (IOException e) {
+            throw fail(e);
+        }
+    }
+
+    /**
+     * Makes room for a value in the write buffer, by writing the buffer to the file if needed
+     *
+     * @param channel the file
+     * @param buffer  the buffer
+     * @param bytes   the size of the value
+     * @return the buffer
+     * @throws IOException on file errors
+     */
+    private static ByteBuffer reserve(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            writeFully(channel, buffer.flip());
+            buffer.clear();
+        }
+        return buffer;
+    }
+
+    /**
+     * Makes sure a value is in the read buffer, by reading more of the file if needed
+     *
+     * @param channel the file
+     * @param buffer  the buffer
+     * @param bytes   the size of the value
+     * @return the buffer
+     * @throws IOException              on file errors
+     * @throws IllegalArgumentException if the file ends before the value
+     */
+    private static ByteBuffer fill(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) return buffer;
+        buffer.compact();
+        while (buffer.position() < bytes)
+            if (channel.read(buffer) < 0) throw new IllegalArgumentException("Truncated PFM file");
+        return buffer.flip();
+    }
+
+    /**
+     * Writes the whole buffer to the file
+     *
+     * @param channel the file
+     * @param buffer  the buffer
+     * @throws IOException on file errors
+     */
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) channel.write(buffer);
+    }
+}
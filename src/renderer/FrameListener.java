@@ -0,0 +1,17 @@
+package renderer;
+
+/**
+ * Listener for the frames of a progressive render. It is called between the passes, when the image
+ * writer holds the average of the samples so far.
+ */
+@FunctionalInterface
+public interface FrameListener {
+    /**
+     * Called after every pass of a progressive render
+     *
+     * @param pass        the number of the pass, from 1
+     * @param passes      the amount of passes of the render
+     * @param imageWriter the image writer with the frame
+     */
+    void onFrame(int pass, int passes, ImageWriter imageWriter);
+}
@@ -17,16 +17,16 @@ import javax.imageio.*;
  * 
  * @author Dan
  */
-public class ImageWriter {
+public class ImageWriter implements PixelWriter {
 	private int nX;
 	private int nY;
 
-	private static final String FOLDER_PATH = System.getProperty("user.dir") + "/images";
+	protected static final String FOLDER_PATH = System.getProperty("user.dir") + "/images";
 
 	private BufferedImage image;
-	private String imageName;
+	protected String imageName;
 	
-	private Logger logger = Logger.getLogger("ImageWriter");
+	protected Logger logger = Logger.getLogger("ImageWriter");
 
 	// ***************** Constructors ********************** //
 	/**
@@ -36,11 +36,23 @@ public class ImageWriter {
 	 * @param nY        amount of pixels by height
 	 */
 	public ImageWriter(String imageName, int nX, int nY) {
+		this(imageName, nX, nY, true);
+	}
+
+	/**
+	 * Image Writer constructor for writers that keep the pixels on their own
+	 * @param imageName the name of png file
+	 * @param nX        amount of pixels by Width
+	 * @param nY        amount of pixels by height
+	 * @param buffered  whether to hold the whole image in a BufferedImage
+	 */
+	protected ImageWriter(String imageName, int nX, int nY, boolean buffered) {
 		this.imageName = imageName;
 		this.nX = nX;
 		this.nY = nY;
 
-		image = new BufferedImage(nX, nY, BufferedImage.TYPE_INT_RGB);
+		if (buffered)
+			image = new BufferedImage(nX, nY, BufferedImage.TYPE_INT_RGB);
 	}
 
 	// ***************** Getters/Setters ********************** //
@@ -73,11 +85,21 @@ public class ImageWriter {
 			File file = new File(FOLDER_PATH + '/' + imageName + ".png");
 			ImageIO.write(image, "png", file);
 		} catch (IOException e) {
-			logger.log(Level.SEVERE, "I/O error", e);
-			throw new IllegalStateException("I/O error - may be missing directory " + FOLDER_PATH, e);
+			throw fail(e);
 		}
 	}
 
+	/**
+	 * Logs a file error and wraps it in an unchecked exception
+	 * 
+	 * @param e the file error
+	 * @return the exception to throw
+	 */
+	protected IllegalStateException fail(IOException e) {
+		logger.log(Level.SEVERE, "I/O error", e);
+		return new IllegalStateException("I/O error - may be missing directory " + FOLDER_PATH, e);
+	}
+
 	/**
 	 * The function writePixel writes a color of a specific pixel into pixel color
 	 * matrix
@@ -87,7 +109,20 @@ public class ImageWriter {
 	 * @param color  final color of the pixel
 	 */
 	public void writePixel(int xIndex, int yIndex, Color color) {
-		image.setRGB(xIndex, yIndex, color.getColor().getRGB());
+		image.setRGB(xIndex, yIndex, color.getRGB());
+	}
+
+	/**
+	 * Notifies the writer that all the pixels of a rectangle are written and won't change anymore.
+	 * The camera calls it for every rendered tile - streaming writers may write the completed rows
+	 * to the file right away
+	 * 
+	 * @param x0 X axis index of the first pixel
+	 * @param y0 Y axis index of the first pixel
+	 * @param x1 X axis index after the last pixel
+	 * @param y1 Y axis index after the last pixel
+	 */
+	public void tileDone(int x0, int y0, int x1, int y1) {
 	}
 
 }
@@ -0,0 +1,52 @@
+package renderer;
+
+import primitives.Color;
+
+/**
+ * Target of the pixels of a render - an {@link ImageWriter}, or the tile buffer of a
+ * {@link RenderWorker} that sends the tiles to the coordinator of a {@link RenderFarm}
+ *
+ * @author Raz
+ */
+public interface PixelWriter {
+    /**
+     * @return the amount of horizontal pixels of the image
+     */
+    int getNx();
+
+    /**
+     * @return the amount of vertical pixels of the image
+     */
+    int getNy();
+
+    /**
+     * Writes the color of a pixel
+     *
+     * @param xIndex X axis index of the pixel
+     * @param yIndex Y axis index of the pixel
+     * @param color  final color of the pixel
+     */
+    void writePixel(int xIndex, int yIndex, Color color);
+
+    /**
+     * Notifies the target that all the pixels of a rectangle are written and won't change anymore
+     *
+     * @param x0 X axis index of the first pixel
+     * @param y0 Y axis index of the first pixel
+     * @param x1 X axis index after the last pixel
+     * @param y1 Y axis index after the last pixel
+     */
+    default void tileDone(int x0, int y0, int x1, int y1) {
+    }
+
+    /**
+     * Waits until the target can take the pixels of a row - a target that holds only the rows that aren't
+     * done yet (a {@link StreamingImageWriter}) keeps the rendered tiles within a bounded distance below
+     * the first row that isn't done. The default target holds all the rows and doesn't wait.
+     *
+     * @param yIndex    Y axis index of the first row of a tile
+     * @param rowsAhead amount of rows from the first row that isn't done on that the tile may start at
+     */
+    default void awaitRow(int yIndex, int rowsAhead) {
+    }
+}
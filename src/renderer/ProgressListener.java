@@ -0,0 +1,30 @@
+package renderer;
+
+/**
+ * Listener for the progress of a render. It is called from the render threads, so implementations
+ * must be thread safe and short.
+ */
+@FunctionalInterface
+public interface ProgressListener {
+    /**
+     * Listener that ignores the progress
+     */
+    ProgressListener NONE = progress -> {
+    };
+
+    /**
+     * Listener that prints the done percentage to the console, and the amount of rays at the end
+     */
+    ProgressListener CONSOLE = progress -> {
+        if (progress.isDone())
+            System.out.printf("100.0%% - %d rays, %.2f per pixel%n", progress.getRays(), progress.getRaysPerPixel());
+        else System.out.printf("%5.1f%%\r", progress.getPercentage());
+    };
+
+    /**
+     * Called each time the render advances by at least a tenth of a percent, and once when it is done
+     *
+     * @param progress the progress of the render
+     */
+    void onProgress(RenderProgress progress);
+}
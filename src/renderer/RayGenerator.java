@@ -0,0 +1,161 @@
+package renderer;
+
+import primitives.Point;
+import primitives.Ray;
+import primitives.RayPacket;
+import primitives.Vector;
+
+/**
+ * Generator of the camera rays of a render. The view plane center and the offsets of every row and
+ * every column of pixels are computed once, so a pixel ray takes three additions and the Ray itself,
+ * and rays are produced row by row into a reusable {@link RayPacket}.
+ * <p>
+ * The rays are the same as the ones of {@link Camera#constructRay(int, int, int, int)}.
+ *
+ * @author Raz
+ */
+public class RayGenerator {
+    /**
+     * The camera location - the head of all the rays
+     */
+    private final Point location;
+    /**
+     * Camera location components
+     */
+    private final double lx, ly, lz;
+    /**
+     * View plane center components
+     */
+    private final double cx, cy, cz;
+    /**
+     * Up and right direction components
+     */
+    private final double ux, uy, uz, rx, ry, rz;
+    /**
+     * Offset of every row from the view plane center - 3 values per row
+     */
+    private final double[] rows;
+    /**
+     * Offset of every column from the view plane center - 3 values per column
+     */
+    private final double[] columns;
+    /**
+     * View plane size
+     */
+    private final double width, height;
+    /**
+     * Image resolution
+     */
+    private final int nX, nY;
+
+    /**
+     * Constructs the generator of a camera
+     *
+     * @param location the camera location
+     * @param vTo      the camera direction
+     * @param vUp      the camera up direction
+     * @param vRight   the camera right direction
+     * @param distance the view plane distance
+     * @param width    the view plane width
+     * @param height   the view plane height
+     * @param nX       the number of pixels along the width of the view plane
+     * @param nY       the number of pixels along the height of the view plane
+     */
+    RayGenerator(Point location, Vector vTo, Vector vUp, Vector vRight,
+                 double distance, double width, double height, int nX, int nY) {
+        this.location = location;
+        this.width = width;
+        this.height = height;
+        this.nX = nX;
+        this.nY = nY;
+        lx = location.getX();
+        ly = location.getY();
+        lz = location.getZ();
+        Point pC = location.add(vTo.scale(distance));
+        cx = pC.getX();
+        cy = pC.getY();
+        cz = pC.getZ();
+        ux = vUp.getX();
+        uy = vUp.getY();
+        uz = vUp.getZ();
+        rx = vRight.getX();
+        ry = vRight.getY();
+        rz = vRight.getZ();
+
+        rows = new double[3 * nY];
+        double rY = height / nY;
+        for (int i = 0; i < nY; i++) {
+            double yI = -(i - (nY - 1) / 2.0) * rY;
+            rows[3 * i] = ux * yI;
+            rows[3 * i + 1] = uy * yI;
+            rows[3 * i + 2] = uz * yI;
+        }
+        columns = new double[3 * nX];
+        double rX = width / nX;
+        for (int j = 0; j < nX; j++) {
+            double xJ = (j - (nX - 1) / 2.0) * rX;
+            columns[3 * j] = rx * xJ;
+            columns[3 * j + 1] = ry * xJ;
+            columns[3 * j + 2] = rz * xJ;
+        }
+    }
+
+    /**
+     * Constructs the ray through the center of a pixel
+     *
+     * @param j the x-coordinate of the pixel on the view plane
+     * @param i the y-coordinate of the pixel on the view plane
+     * @return the ray
+     */
+    public Ray constructRay(int j, int i) {
+        return new Ray(location, cx + rows[3 * i] + columns[3 * j] - lx,
+                cy + rows[3 * i + 1] + columns[3 * j + 1] - ly,
+                cz + rows[3 * i + 2] + columns[3 * j + 2] - lz);
+    }
+
+    /**
+     * Constructs the ray through any point of the view plane
+     *
+     * @param x the x-coordinate of the point from the left edge, in pixels
+     * @param y the y-coordinate of the point from the top edge, in pixels
+     * @return the ray
+     */
+    public Ray constructRay(double x, double y) {
+        double yI = -(y - nY / 2.0) * height / nY, xJ = (x - nX / 2.0) * width / nX;
+        return new Ray(location, cx + ux * yI + rx * xJ - lx, cy + uy * yI + ry * xJ - ly, cz + uz * yI + rz * xJ - lz);
+    }
+
+    /**
+     * Adds the rays of a range of pixels in a row to the packet
+     *
+     * @param i      the y-coordinate of the row on the view plane
+     * @param from   the x-coordinate of the first pixel
+     * @param to     the x-coordinate after the last pixel
+     * @param packet the packet
+     * @return the amount of rays added
+     * @throws IllegalStateException if the packet is full
+     */
+    public int fillRow(int i, int from, int to, RayPacket packet) {
+        double px = cx + rows[3 * i], py = cy + rows[3 * i + 1], pz = cz + rows[3 * i + 2];
+        for (int j = from; j < to; j++)
+            packet.add(lx, ly, lz, px + columns[3 * j] - lx, py + columns[3 * j + 1] - ly, pz + columns[3 * j + 2] - lz);
+        return to - from;
+    }
+
+    /**
+     * Adds the rays of a tile to the packet, row by row
+     *
+     * @param x0     the x-coordinate of the first pixel
+     * @param y0     the y-coordinate of the first pixel
+     * @param x1     the x-coordinate after the last pixel
+     * @param y1     the y-coordinate after the last pixel
+     * @param packet the packet
+     * @return the amount of rays added
+     * @throws IllegalStateException if the packet is full
+     */
+    public int fillTile(int x0, int y0, int x1, int y1, RayPacket packet) {
+        for (int i = y0; i < y1; i++)
+            fillRow(i, x0, x1, packet);
+        return (x1 - x0) * (y1 - y0);
+    }
+}
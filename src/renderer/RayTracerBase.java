@@ -2,15 +2,19 @@ package renderer;
 
 import primitives.Color;
 import primitives.Ray;
+import primitives.RayPacket;
 import scene.Scene;
 
+import java.io.Serializable;
 import java.util.List;
 
 /**
  * The RayTracerBase class serves as the base class for all ray-tracing classes.
  * It holds a reference to the scene object and provides an abstract method for tracing a single ray.
  */
-public abstract class RayTracerBase {
+public abstract class RayTracerBase implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     /**
      * The scene object for the ray tracing.
      */
@@ -41,4 +45,31 @@ public abstract class RayTracerBase {
         }
         return avgColor.scale(1.0 / size);
     }
+
+    /**
+     * Traces the rays of a packet. The default implementation traces them one by one.
+     *
+     * @param packet the rays to trace
+     * @return the color of every ray of the packet
+     */
+    public Color[] traceRays(RayPacket packet) {
+        Color[] colors = new Color[packet.size()];
+        for (int k = 0; k < colors.length; k++)
+            colors[k] = traceRay(packet.getRay(k));
+        return colors;
+    }
+
+    /**
+     * Traces the rays of a packet together and returns their average color
+     *
+     * @param packet the rays to trace
+     * @return the average color
+     */
+    public Color traceMultipleRays(RayPacket packet) {
+        Color avgColor = Color.BLACK;
+        for (Color color : traceRays(packet)) {
+            avgColor = avgColor.add(color);
+        }
+        return avgColor.scale(1.0 / packet.size());
+    }
 }
@@ -5,8 +5,6 @@ import lighting.LightSource;
 import primitives.*;
 import scene.Scene;
 
-import java.util.List;
-
 import static primitives.Util.alignZero;
 import static primitives.Util.isZero;
 
@@ -16,6 +14,8 @@ import static primitives.Util.isZero;
  * to calculate the color of a given ray by intersecting it with objects in the scene.
  */
 public class RayTracerBasic extends RayTracerBase {
+    private static final long serialVersionUID = 1L;
+
     /**
      * The maximum level of recursive color calculation.
      * This constant determines the maximum number of recursive calls
@@ -49,10 +49,26 @@ public class RayTracerBasic extends RayTracerBase {
     @Override
     public Color traceRay(Ray ray) {
         GeoPoint closestPoint = findClosestIntersection(ray);
-        return closestPoint == null ? scene.background
+        return closestPoint == null ? scene.getBackground()
                 : calcColor(closestPoint, ray);
     }
 
+    /**
+     * Traces the rays of a packet - the closest intersections of all the rays are found by a single
+     * traversal of the scene, and then every ray is shaded on its own
+     *
+     * @param packet the rays to trace
+     * @return the color of every ray of the packet
+     */
+    @Override
+    public Color[] traceRays(RayPacket packet) {
+        GeoPoint[] hits = scene.getGeometries().findClosestGeoIntersections(packet);
+        Color[] colors = new Color[hits.length];
+        for (int k = 0; k < hits.length; k++)
+            colors[k] = hits[k] == null ? scene.getBackground() : calcColor(hits[k], packet.getRay(k));
+        return colors;
+    }
+
     /**
      * Calculates the color at the given intersection point with the provided ray.
      * @param gp  the intersection point
@@ -60,7 +76,7 @@ public class RayTracerBasic extends RayTracerBase {
      * @return the calculated color
      */
     private Color calcColor(GeoPoint gp, Ray ray) {
-        return calcColor(gp, ray, MAX_CALC_COLOR_LEVEL, new Double3(INITIAL_K)).add(scene.ambientLight.getIntensity());
+        return calcColor(gp, ray, MAX_CALC_COLOR_LEVEL, new Double3(INITIAL_K)).add(scene.getAmbientLight().getIntensity());
     }
 
     /**
@@ -85,27 +101,33 @@ public class RayTracerBasic extends RayTracerBase {
     private Color calcLocalEffects(GeoPoint geoPoint, Ray ray, Double3 k) {
         var color = geoPoint.geometry.getEmission();
         Vector v = ray.getDir();
-        Vector n = geoPoint.geometry.getNormal(geoPoint.point);
+        Vector n = geoPoint.getNormal();
         double nv = alignZero(n.dotProduct(v));
 
         if (nv == 0) {
             return color;
         }
 
+        // the contributions of the lights are summed on raw components
         Material material = geoPoint.geometry.getMaterial();
-        for (LightSource lightSource : scene.lights) {
-            Vector l = lightSource.getL(geoPoint.point);
+        Point point = geoPoint.getPoint();
+        double r = color.getRed(), g = color.getGreen(), b = color.getBlue();
+        for (LightSource lightSource : scene.getLights()) {
+            Vector l = lightSource.getL(point);
             double nl = alignZero(n.dotProduct(l));
             if (nl * nv > 0) { // sign(nl) == sing(nv)
                 Double3 ktr = transparency(l, n, geoPoint, lightSource);
-                if (ktr.product(k).greaterThan(MIN_CALC_COLOR_K)) {
-                    Color iL = lightSource.getIntensity(geoPoint.point).scale(ktr);
-                    color = color.add(iL.scale(calcDiffusive(material, nl)),
-                            iL.scale(calcSpecular(material, n, l, nl, v)));
+                if (ktr.getD1() * k.getD1() > MIN_CALC_COLOR_K && ktr.getD2() * k.getD2() > MIN_CALC_COLOR_K
+                        && ktr.getD3() * k.getD3() > MIN_CALC_COLOR_K) {
+                    Color iL = lightSource.getIntensity(point);
+                    double diffusive = calcDiffusive(nl), specular = calcSpecular(material, n, l, nl, v);
+                    r += iL.getRed() * ktr.getD1() * (material.kD.getD1() * diffusive + material.kS.getD1() * specular);
+                    g += iL.getGreen() * ktr.getD2() * (material.kD.getD2() * diffusive + material.kS.getD2() * specular);
+                    b += iL.getBlue() * ktr.getD3() * (material.kD.getD3() * diffusive + material.kS.getD3() * specular);
                 }
             }
         }
-        return color;
+        return new Color(r, g, b);
     }
 
     /**
@@ -118,16 +140,8 @@ public class RayTracerBasic extends RayTracerBase {
      */
     private Double3 transparency(Vector l, Vector n, GeoPoint gp, LightSource light) {
         Vector lightDirection = l.scale(-1); // from point to light source
-        Ray lightRay = new Ray(gp.point, lightDirection, n);
-        List<GeoPoint> intersections = scene.geometries.findGeoIntersections(lightRay, light.getDistance(gp.point));
-        if (intersections == null) return Double3.ONE;
-        Double3 ktr = Double3.ONE;
-
-        for (GeoPoint geoPoint : intersections) {
-            ktr = ktr.product(geoPoint.geometry.getMaterial().kT);
-            if (ktr.lowerThan(MIN_CALC_COLOR_K)) return Double3.ZERO;
-        }
-        return ktr;
+        Ray lightRay = new Ray(gp.getPoint(), lightDirection, n);
+        return scene.findTransparency(lightRay, light.getDistance(gp.getPoint()), MIN_CALC_COLOR_K);
     }
 
     /**
@@ -142,7 +156,7 @@ public class RayTracerBasic extends RayTracerBase {
                                     int level, Double3 k) {
         Color color = Color.BLACK;
         Vector v = ray.getDir();
-        Vector n = gp.geometry.getNormal(gp.point);
+        Vector n = gp.getNormal();
         Material material = gp.geometry.getMaterial();
         Double3 kr = material.kR, kkr = k.product(kr);
         Ray reflectedRay = constructReflectedRay(gp, v, n);
@@ -168,8 +182,8 @@ public class RayTracerBasic extends RayTracerBase {
         Double3 kkx = k.product(kx);
         if (kkx.lowerThan(MIN_CALC_COLOR_K)) return Color.BLACK;
         GeoPoint gp = findClosestIntersection(ray);
-        if (gp == null) return scene.background.scale(kx);
-        return isZero(gp.geometry.getNormal(gp.point).dotProduct(ray.getDir())) ? Color.BLACK : calcColor(gp, ray, level - 1, kkx);
+        if (gp == null) return scene.getBackground().scale(kx);
+        return isZero(gp.getNormal().dotProduct(ray.getDir())) ? Color.BLACK : calcColor(gp, ray, level - 1, kkx);
     }
 
     /**
@@ -178,35 +192,36 @@ public class RayTracerBasic extends RayTracerBase {
      * @return the closest point
      */
     private GeoPoint findClosestIntersection(Ray ray) {
-        var intersections = scene.getGeometries().findGeoIntersections(ray);
-        return intersections == null ? null : ray.findClosestGeoPoint(intersections);
+        return scene.getGeometries().findClosestGeoIntersection(ray);
     }
 
     /**
-     * Calculates the diffuse reflection of a material on a given point for a given light source.
+     * Calculates the factor of the diffuse reflection of a material on a given point for a given light
+     * source - the diffuse reflection is kD times the factor
      *
-     * @param material the material of the object the point is on
-     * @param nl       the dot product between the normal and light vectors
-     * @return the diffuse reflection as a Double3 object
+     * @param nl the dot product between the normal and light vectors
+     * @return the factor of the diffuse reflection
      */
-    private Double3 calcDiffusive(Material material, double nl) {
-        return material.kD.scale(Math.abs(nl));
+    private double calcDiffusive(double nl) {
+        return Math.abs(nl);
     }
 
 
     /**
-     * Calculates the specular component of the color of a point on a surface
+     * Calculates the factor of the specular component of the color of a point on a surface - the
+     * specular component is kS times the factor
      *
      * @param material the material of the surface
      * @param n        the normal vector to the surface at the point
      * @param l        the direction vector from the light source to the point
      * @param nl       the dot product of the normal vector and the direction vector from the light source to the point
      * @param v        the direction vector from the camera to the point
-     * @return the specular component of the color of the point
+     * @return the factor of the specular component
      */
-    private Double3 calcSpecular(Material material, Vector n, Vector l, double nl, Vector v) {
-        var r = n.scale(2 * nl).subtract(l);
-        return material.kS.scale(Math.pow(Math.max(0, v.dotProduct(r)), material.nShininess));
+    private double calcSpecular(Material material, Vector n, Vector l, double nl, Vector v) {
+        // v.r for r = 2(n.l)n - l, without creating r
+        double vr = 2 * nl * v.dotProduct(n) - v.dotProduct(l);
+        return Math.pow(Math.max(0, vr), material.nShininess);
     }
 
     /**
@@ -217,7 +232,7 @@ public class RayTracerBasic extends RayTracerBase {
      * @return the refracted ray
      */
     public static Ray constructRefractedRay(GeoPoint gp, Vector v, Vector n) {
-        return new Ray(gp.point, v, n);
+        return new Ray(gp.getPoint(), v, n);
     }
     /**
      * construct the reflected ray of given ray and point
@@ -227,7 +242,7 @@ public class RayTracerBasic extends RayTracerBase {
      * @return the reflected ray
      */
     public static Ray constructReflectedRay(GeoPoint gp, Vector v, Vector n){
-        return new Ray(gp.point, v.subtract(n.scale(2 * alignZero(n.dotProduct(v)))), n);
+        return new Ray(gp.getPoint(), v.subtract(n.scale(2 * alignZero(n.dotProduct(v)))), n);
     }
 
 
@@ -0,0 +1,564 @@
+package renderer;
+
+import primitives.Color;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coordinator of a render distributed over {@link RenderWorker} processes. The image of the camera is
+ * split into tiles, which are handed out to the workers over sockets one at a time, so fast workers
+ * take more tiles. The camera, with its ray tracer and scene, is serialized once and sent to every
+ * worker when it connects, and the returned tiles are written into the image writer of the camera.
+ * <p>
+ * A tile whose worker fails to render it, disconnects or doesn't answer in time is given to another
+ * worker, up to a maximal amount of attempts. The coordinator starts its local worker processes, and
+ * accepts the workers of other machines when it listens on a public address.
+ * <p>
+ * A worker gets the camera only after it proves it knows the token of the farm (see
+ * {@link RenderWorker}). The token is random by default and only the local workers get it - the
+ * workers of other machines need a token set on both sides, see {@link #setToken(String)}.
+ *
+ * @author Raz
+ */
+public class RenderFarm {
+    /**
+     * The rendered camera
+     */
+    private final Camera camera;
+    /**
+     * The address the coordinator listens on for workers
+     */
+    private InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+    /**
+     * Amount of worker processes the coordinator starts on its own machine
+     */
+    private int localWorkers = 0;
+    /**
+     * JVM options of the local worker processes
+     */
+    private List<String> workerOptions = List.of();
+    /**
+     * Tile edge size in pixels - the unit of work of the workers
+     */
+    private int tileSize = 64;
+    /**
+     * Amount of attempts to render a tile before the render fails
+     */
+    private int maxAttempts = 3;
+    /**
+     * Time in milliseconds a worker has for a tile, and the render waits while it has no workers
+     */
+    private int timeout = 60_000;
+    /**
+     * The token the workers have to know
+     */
+    private String token;
+    /**
+     * Generator of the challenges of the workers
+     */
+    private final SecureRandom random = new SecureRandom();
+    /**
+     * The progress of the last render
+     */
+    private RenderProgress renderProgress = null;
+
+    /**
+     * Constructs the coordinator of the renders of a camera
+     *
+     * @param camera the camera, with its image writer and ray tracer
+     */
+    public RenderFarm(Camera camera) {
+        this.camera = camera;
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        token = Base64.getEncoder().encodeToString(bytes);
+    }
+
+    /**
+     * Renders the image of the camera on the workers into its image writer
+     *
+     * @return the coordinator
+     * @throws MissingResourceException if a required field of the camera is not set
+     * @throws IllegalArgumentException if the scene can't be serialized
+     * @throws IllegalStateException    if a tile failed on all its attempts, or there were no workers for
+     *                                  the timeout
+     */
+    public RenderFarm render() {
+        camera.prepareRender();
+        ImageWriter imageWriter = camera.imageWriter;
+        Job job = new Job(serializeCamera(), imageWriter);
+        renderProgress = job.progress;
+
+        List<Process> processes = new ArrayList<>();
+        ExecutorService connections = Executors.newCachedThreadPool();
+        try (ServerSocket server = new ServerSocket()) {
+            server.bind(address);
+            for (int i = 0; i < localWorkers; i++)
+                processes.add(startLocalWorker(server));
+            Thread acceptor = new Thread(() -> accept(server, job, connections), "render farm acceptor");
+            acceptor.setDaemon(true);
+            acceptor.start();
+            job.await();
+        } catch (IOException e) {
+            throw new IllegalStateException("Render farm I/O error", e);
+        } finally {
+            // the waiting workers get the stop message, and the busy ones (of a failed render) are disconnected
+            job.finish();
+            connections.shutdown();
+            try {
+                if (!connections.awaitTermination(1, TimeUnit.SECONDS)) job.disconnect();
+            } catch (InterruptedException e) {
+                job.disconnect();
+                Thread.currentThread().interrupt();
+            }
+            stop(processes);
+        }
+        return this;
+    }
+
+    /**
+     * Serializes the camera once for all the workers
+     *
+     * @return the serialized camera
+     * @throws IllegalArgumentException if the scene can't be serialized
+     */
+    private byte[] serializeCamera() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(camera);
+        } catch (NotSerializableException e) {
+            throw new IllegalArgumentException("The scene can't be sent to the workers - not serializable: "
+                    + e.getMessage(), e);
+        } catch (IOException e) {
+            throw new IllegalStateException("Camera serialization error", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Starts a worker process on this machine, with the class path of this process
+     *
+     * @param server the coordinator socket
+     * @return the worker process
+     * @throws IOException if the process can't be started
+     */
+    private Process startLocalWorker(ServerSocket server) throws IOException {
+        InetAddress host = server.getInetAddress().isAnyLocalAddress()
+                ? InetAddress.getLoopbackAddress() : server.getInetAddress();
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(workerOptions);
+        // the workers use the SIMD kernels like the coordinator would
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent())
+            command.add("--add-modules=jdk.incubator.vector");
+        command.addAll(List.of("-cp", System.getProperty("java.class.path"), RenderWorker.class.getName(),
+                host.getHostAddress(), String.valueOf(server.getLocalPort())));
+        ProcessBuilder builder = new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.INHERIT);
+        // in the environment rather than the command line, which other users of the machine can see
+        builder.environment().put(RenderWorker.TOKEN_VARIABLE, token);
+        return builder.start();
+    }
+
+    /**
+     * Stops the local worker processes - they exit when they get the stop message, the ones that don't
+     * are killed
+     *
+     * @param processes the processes
+     */
+    private static void stop(List<Process> processes) {
+        for (Process process : processes) {
+            try {
+                if (!process.waitFor(1, TimeUnit.SECONDS)) process.destroyForcibly();
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Accepts the workers until the coordinator socket is closed, and serves every worker on its own thread
+     *
+     * @param server      the coordinator socket
+     * @param job         the render
+     * @param connections the threads of the connections
+     */
+    private void accept(ServerSocket server, Job job, ExecutorService connections) {
+        try {
+            while (true) {
+                Socket socket = server.accept();
+                if (!job.join(socket)) {
+                    socket.close();
+                    continue;
+                }
+                try {
+                    connections.execute(() -> serve(socket, job));
+                } catch (RejectedExecutionException e) {
+                    // the render ended right after the worker connected
+                    job.leave(socket);
+                    socket.close();
+                }
+            }
+        } catch (IOException e) {
+            // the socket is closed at the end of the render
+        }
+    }
+
+    /**
+     * Serves a worker - challenges it to prove it knows the token, sends it the camera, and then the tiles
+     * one at a time until there are no more tiles. A worker with a wrong answer is disconnected. The
+     * tile of a failed worker is given back to the job.
+     *
+     * @param socket the connection to the worker
+     * @param job    the render
+     */
+    private void serve(Socket socket, Job job) {
+        int[] tile = null;
+        try (socket) {
+            socket.setSoTimeout(timeout);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            byte[] challenge = new byte[RenderWorker.CHALLENGE_SIZE], answer = new byte[RenderWorker.CHALLENGE_SIZE];
+            random.nextBytes(challenge);
+            out.write(challenge);
+            out.flush();
+            in.readFully(answer);
+            if (!MessageDigest.isEqual(answer, RenderWorker.answer(token, challenge))) return;
+
+            out.writeInt(job.camera.length);
+            out.write(job.camera);
+            out.writeInt(job.width);
+            out.writeInt(job.height);
+            out.flush();
+
+            while ((tile = job.take()) != null) {
+                int x0 = (tile[0] % job.tilesX) * tileSize, y0 = (tile[0] / job.tilesX) * tileSize;
+                int x1 = Math.min(x0 + tileSize, job.width), y1 = Math.min(y0 + tileSize, job.height);
+                out.writeInt(x0);
+                out.writeInt(y0);
+                out.writeInt(x1);
+                out.writeInt(y1);
+                out.flush();
+
+                long rays = in.readLong();
+                if (rays == RenderWorker.FAILED) {
+                    job.failed(tile, in.readUTF());
+                    tile = null;
+                    continue;
+                }
+                Color[] colors = new Color[(x1 - x0) * (y1 - y0)];
+                for (int k = 0; k < colors.length; k++)
+                    colors[k] = new Color(in.readDouble(), in.readDouble(), in.readDouble());
+                // the tile is written only when it arrived whole
+                for (int i = y0, k = 0; i < y1; i++)
+                    for (int j = x0; j < x1; j++)
+                        job.imageWriter.writePixel(j, i, colors[k++]);
+                job.imageWriter.tileDone(x0, y0, x1, y1);
+                job.done(colors.length, rays);
+                tile = null;
+            }
+            out.writeInt(RenderWorker.STOP);
+            out.flush();
+        } catch (IOException e) {
+            if (tile != null) job.failed(tile, String.valueOf(e));
+        } finally {
+            job.leave(socket);
+        }
+    }
+
+    /**
+     * The state of a render, shared by the threads of the connections
+     */
+    private class Job {
+        /**
+         * The serialized camera
+         */
+        private final byte[] camera;
+        /**
+         * The image writer of the camera
+         */
+        private final ImageWriter imageWriter;
+        /**
+         * Image resolution
+         */
+        private final int width, height;
+        /**
+         * Amount of tiles in a row
+         */
+        private final int tilesX;
+        /**
+         * The tiles waiting for a worker - the tile number (row by row) and its failed attempts
+         */
+        private final Deque<int[]> pending = new ArrayDeque<>();
+        /**
+         * The connections of the current workers
+         */
+        private final Set<Socket> workers = new HashSet<>();
+        /**
+         * The progress of the render
+         */
+        private final RenderProgress progress;
+        /**
+         * Amount of tiles not done yet
+         */
+        private int remaining;
+        /**
+         * When the last worker left, or the render started
+         */
+        private long idleSince = System.currentTimeMillis();
+        /**
+         * Whether the render is over - done or failed
+         */
+        private boolean finished = false;
+        /**
+         * The reason the render failed
+         */
+        private RuntimeException failure = null;
+
+        Job(byte[] camera, ImageWriter imageWriter) {
+            this.camera = camera;
+            this.imageWriter = imageWriter;
+            width = imageWriter.getNx();
+            height = imageWriter.getNy();
+            tilesX = (width + tileSize - 1) / tileSize;
+            remaining = tilesX * ((height + tileSize - 1) / tileSize);
+            for (int tile = 0; tile < remaining; tile++)
+                pending.add(new int[]{tile, 0});
+            progress = new RenderProgress((long) width * height, RenderFarm.this.camera.progressListener);
+        }
+
+        /**
+         * Waits for the end of the render
+         *
+         * @throws IllegalStateException if the render failed
+         */
+        synchronized void await() {
+            try {
+                while (!finished) {
+                    if (!workers.isEmpty()) wait();
+                    else {
+                        long left = idleSince + timeout - System.currentTimeMillis();
+                        if (left <= 0) fail(new IllegalStateException("No render workers for " + timeout + " ms"));
+                        else wait(left);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(new IllegalStateException("Render interrupted", e));
+            }
+            if (failure != null) throw failure;
+        }
+
+        /**
+         * Adds a worker
+         *
+         * @param socket the connection to the worker
+         * @return false if the render is over
+         */
+        synchronized boolean join(Socket socket) {
+            if (finished) return false;
+            workers.add(socket);
+            return true;
+        }
+
+        /**
+         * Removes a worker
+         *
+         * @param socket the connection to the worker
+         */
+        synchronized void leave(Socket socket) {
+            workers.remove(socket);
+            if (workers.isEmpty()) idleSince = System.currentTimeMillis();
+            notifyAll();
+        }
+
+        /**
+         * Takes a tile for a worker, waiting while all the tiles left are rendered by other workers
+         *
+         * @return the tile, or null if the render is over
+         */
+        synchronized int[] take() {
+            while (!finished && pending.isEmpty()) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                }
+            }
+            return finished ? null : pending.poll();
+        }
+
+        /**
+         * Completes a tile
+         *
+         * @param pixels the amount of pixels of the tile
+         * @param rays   the amount of primary rays traced for the tile
+         */
+        void done(int pixels, long rays) {
+            progress.pixelsDone(pixels, rays);
+            synchronized (this) {
+                if (--remaining == 0) finished = true;
+                notifyAll();
+            }
+        }
+
+        /**
+         * Gives a failed tile to the next worker, or fails the render if the tile has no attempts left
+         *
+         * @param tile   the tile
+         * @param reason the error of the worker
+         */
+        synchronized void failed(int[] tile, String reason) {
+            if (++tile[1] >= maxAttempts)
+                fail(new IllegalStateException("Tile " + tile[0] + " failed " + tile[1] + " times, last: " + reason));
+            else pending.addFirst(tile);
+            notifyAll();
+        }
+
+        /**
+         * Fails the render
+         *
+         * @param failure the reason
+         */
+        private synchronized void fail(RuntimeException failure) {
+            if (finished) return;
+            this.failure = failure;
+            finished = true;
+            notifyAll();
+        }
+
+        /**
+         * Ends the render, so the workers get no more tiles
+         */
+        synchronized void finish() {
+            finished = true;
+            notifyAll();
+        }
+
+        /**
+         * Disconnects the workers
+         */
+        synchronized void disconnect() {
+            for (Socket socket : workers) {
+                try {
+                    socket.close();
+                } catch (IOException ignored) {
+                    // the worker is gone anyway
+                }
+            }
+        }
+    }
+
+    /**
+     * The progress of the last render, with its metrics - e.g. the amount of primary rays
+     *
+     * @return the progress, or null before the first render
+     */
+    public RenderProgress getRenderProgress() {
+        return renderProgress;
+    }
+
+    /**
+     * Sets the address the coordinator listens on for workers. A public address and a fixed port are
+     * needed for the workers of other machines, with a {@link #setToken(String) token} - the default is the
+     * loopback address and any free port, for the local workers only.
+     *
+     * @param host the host name or address, e.g. "0.0.0.0" for all the interfaces
+     * @param port the port, 0 for any free port
+     * @return the coordinator
+     */
+    public RenderFarm setAddress(String host, int port) {
+        if (port < 0 || port > 0xFFFF) throw new IllegalArgumentException("Port out of range");
+        this.address = new InetSocketAddress(host, port);
+        return this;
+    }
+
+    /**
+     * Sets the token the workers have to know - needed for the workers of other machines, which get it
+     * in their {@value RenderWorker#TOKEN_VARIABLE} environment variable. The default is a random token
+     * that only the local workers get.
+     *
+     * @param token the token
+     * @return the coordinator
+     * @throws IllegalArgumentException if the token is empty
+     */
+    public RenderFarm setToken(String token) {
+        if (token == null || token.isEmpty()) throw new IllegalArgumentException("Token can't be empty");
+        this.token = token;
+        return this;
+    }
+
+    /**
+     * Sets the amount of worker processes the coordinator starts on its own machine for every render
+     *
+     * @param localWorkers the amount of processes
+     * @return the coordinator
+     */
+    public RenderFarm setLocalWorkers(int localWorkers) {
+        if (localWorkers < 0) throw new IllegalArgumentException("Workers count can't be negative");
+        this.localWorkers = localWorkers;
+        return this;
+    }
+
+    /**
+     * Sets the JVM options of the local worker processes, e.g. the heap size
+     *
+     * @param options the options
+     * @return the coordinator
+     */
+    public RenderFarm setWorkerOptions(String... options) {
+        this.workerOptions = List.of(options);
+        return this;
+    }
+
+    /**
+     * Sets the tile size - the workers take the image in square tiles of this edge size
+     *
+     * @param tileSize the tile edge size in pixels (default 64)
+     * @return the coordinator
+     */
+    public RenderFarm setTileSize(int tileSize) {
+        if (tileSize <= 0) throw new IllegalArgumentException("Tile size must be positive");
+        this.tileSize = tileSize;
+        return this;
+    }
+
+    /**
+     * Sets the amount of attempts to render a tile before the render fails
+     *
+     * @param maxAttempts the amount of attempts (default 3)
+     * @return the coordinator
+     */
+    public RenderFarm setMaxAttempts(int maxAttempts) {
+        if (maxAttempts <= 0) throw new IllegalArgumentException("Attempts count must be positive");
+        this.maxAttempts = maxAttempts;
+        return this;
+    }
+
+    /**
+     * Sets the timeout - the time a worker has to connect, to read the scene or to render a tile
+     *
+     * @param timeout the timeout in milliseconds (default a minute)
+     * @return the coordinator
+     */
+    public RenderFarm setTimeout(int timeout) {
+        if (timeout <= 0) throw new IllegalArgumentException("Timeout must be positive");
+        this.timeout = timeout;
+        return this;
+    }
+}
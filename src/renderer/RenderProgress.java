@@ -0,0 +1,117 @@
+package renderer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Progress of a single render. Every render has its own instance, so several renders can run in the
+ * same process. The counters are lock-free: the render threads add to striped counters and only the
+ * thread that advances the reported tenth of a percent calls the listener.
+ */
+public class RenderProgress {
+    /**
+     * Total amount of pixels in the render
+     */
+    private final long totalPixels;
+    /**
+     * Amount of pixels done
+     */
+    private final LongAdder pixels = new LongAdder();
+    /**
+     * Amount of primary rays traced for the done pixels
+     */
+    private final LongAdder rays = new LongAdder();
+    /**
+     * Last reported progress in tenths of a percent
+     */
+    private final AtomicInteger lastReported = new AtomicInteger(0);
+    /**
+     * The listener to report to
+     */
+    private final ProgressListener listener;
+
+    /**
+     * Constructs the progress of a render
+     *
+     * @param totalPixels the amount of pixels in the render
+     * @param listener    the listener to report to
+     */
+    public RenderProgress(long totalPixels, ProgressListener listener) {
+        if (totalPixels <= 0) throw new IllegalArgumentException("Total pixels must be positive");
+        this.totalPixels = totalPixels;
+        this.listener = listener == null ? ProgressListener.NONE : listener;
+    }
+
+    /**
+     * Finish processing of a group of pixels (e.g. a tile)
+     *
+     * @param count the amount of pixels done
+     */
+    public void pixelsDone(long count) {
+        pixelsDone(count, 0);
+    }
+
+    /**
+     * Finish processing of a group of pixels (e.g. a tile)
+     *
+     * @param count the amount of pixels done
+     * @param rays  the amount of primary rays traced for the pixels
+     */
+    public void pixelsDone(long count, long rays) {
+        this.rays.add(rays);
+        pixels.add(count);
+        int current = (int) (1000L * getDonePixels() / totalPixels);
+        int last = lastReported.get();
+        while (current > last) {
+            if (lastReported.compareAndSet(last, current)) {
+                listener.onProgress(this);
+                return;
+            }
+            last = lastReported.get();
+        }
+    }
+
+    /**
+     * @return the amount of pixels done
+     */
+    public long getDonePixels() {
+        return pixels.sum();
+    }
+
+    /**
+     * @return the amount of primary rays traced so far (the rays from the camera, without the shadow,
+     * reflection and refraction rays)
+     */
+    public long getRays() {
+        return rays.sum();
+    }
+
+    /**
+     * @return the average amount of primary rays per done pixel
+     */
+    public double getRaysPerPixel() {
+        long done = getDonePixels();
+        return done == 0 ? 0 : (double) getRays() / done;
+    }
+
+    /**
+     * @return the total amount of pixels in the render
+     */
+    public long getTotalPixels() {
+        return totalPixels;
+    }
+
+    /**
+     * @return the done percentage
+     */
+    public double getPercentage() {
+        return 100.0 * getDonePixels() / totalPixels;
+    }
+
+    /**
+     * @return true if all the pixels are done
+     */
+    public boolean isDone() {
+        return getDonePixels() >= totalPixels;
+    }
+}
@@ -0,0 +1,228 @@
+package renderer;
+
+import primitives.Color;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.*;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+
+/**
+ * A worker of a {@link RenderFarm} - connects to the coordinator, receives the camera (with its ray
+ * tracer and scene) once, and renders the tiles the coordinator hands out until it is told to stop.
+ * A worker uses all the render threads of its camera for every tile.
+ * <p>
+ * The worker proves to the coordinator that it knows the token of the farm before it gets the camera:
+ * it answers a random challenge of the coordinator with their HMAC-SHA256 by the token. The camera is
+ * read with a filter that accepts only the classes of the scene.
+ * <p>
+ * Run it on every farm node with the coordinator address, and the token of the farm in the
+ * {@value #TOKEN_VARIABLE} environment variable:
+ * {@code java -cp <classpath> renderer.RenderWorker <host> <port>}. The coordinator starts its local
+ * workers the same way.
+ *
+ * @author Raz
+ */
+public class RenderWorker {
+    /**
+     * Tile header value that tells the worker there are no more tiles
+     */
+    static final int STOP = -1;
+    /**
+     * Reply header value of a tile the worker failed to render, followed by the error message
+     */
+    static final long FAILED = -1;
+    /**
+     * The environment variable of the token of the farm
+     */
+    public static final String TOKEN_VARIABLE = "RENDER_FARM_TOKEN";
+    /**
+     * Size in bytes of the challenge of the coordinator and of the answer of the worker
+     */
+    static final int CHALLENGE_SIZE = 32;
+    /**
+     * The classes a camera is made of - the classes of the renderer, the scene and its parts, and the
+     * collections they keep. Any other class in the camera stream is rejected.
+     */
+    private static final ObjectInputFilter CAMERA_FILTER = ObjectInputFilter.Config.createFilter(
+            "maxdepth=100;renderer.*;scene.*;geometries.*;lighting.*;primitives.*;"
+                    + "java.lang.Object;java.lang.Enum;java.util.ArrayList;java.util.LinkedList;java.util.CollSer;"
+                    + "java.util.ImmutableCollections$*;java.util.Collections$Unmodifiable*;!*");
+
+    /**
+     * The connection to the coordinator
+     */
+    private final Socket socket;
+    /**
+     * The token of the farm
+     */
+    private final String token;
+
+    /**
+     * Constructs a worker on a connection to the coordinator
+     *
+     * @param socket the connection
+     * @param token  the token of the farm
+     * @throws IllegalArgumentException if the token is empty
+     */
+    public RenderWorker(Socket socket, String token) {
+        if (token == null || token.isEmpty()) throw new IllegalArgumentException("Render farm token not given");
+        this.socket = socket;
+        this.token = token;
+    }
+
+    /**
+     * Runs a worker that connects to a coordinator, with the token of the {@value #TOKEN_VARIABLE}
+     * environment variable
+     *
+     * @param args the coordinator host and port
+     * @throws IOException if the connection to the coordinator fails
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) throw new IllegalArgumentException("Usage: RenderWorker <host> <port>");
+        String token = System.getenv(TOKEN_VARIABLE);
+        if (token == null) throw new IllegalArgumentException(TOKEN_VARIABLE + " environment variable not given");
+        try (Socket socket = new Socket(args[0], Integer.parseInt(args[1]))) {
+            new RenderWorker(socket, token).run();
+        }
+    }
+
+    /**
+     * The answer to a challenge of the coordinator - the HMAC-SHA256 of the challenge by the token
+     *
+     * @param token     the token of the farm
+     * @param challenge the challenge
+     * @return the answer, of {@link #CHALLENGE_SIZE} bytes
+     */
+    static byte[] answer(String token, byte[] challenge) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(token.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return mac.doFinal(challenge);
+        } catch (GeneralSecurityException e) {
+            // every Java platform has HmacSHA256
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    /**
+     * Renders the tiles of the coordinator until it has no more tiles. A tile that fails to render is
+     * reported to the coordinator, which gives it to another worker.
+     *
+     * @throws IOException if the connection to the coordinator fails (e.g. it rejected the token), or the
+     *                     camera can't be read
+     */
+    public void run() throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+        byte[] challenge = new byte[CHALLENGE_SIZE];
+        in.readFully(challenge);
+        out.write(answer(token, challenge));
+        out.flush();
+
+        byte[] job = new byte[in.readInt()];
+        in.readFully(job);
+        Camera camera = readCamera(job);
+        TileBuffer writer = new TileBuffer(in.readInt(), in.readInt());
+        camera.prepareRender(writer);
+
+        for (int x0 = in.readInt(); x0 != STOP; x0 = in.readInt()) {
+            int y0 = in.readInt(), x1 = in.readInt(), y1 = in.readInt();
+            RenderProgress progress = new RenderProgress((long) (x1 - x0) * (y1 - y0), ProgressListener.NONE);
+            writer.setTile(x0, y0, x1, y1);
+            try {
+                camera.renderRegion(x0, y0, x1, y1, progress);
+            } catch (RuntimeException e) {
+                out.writeLong(FAILED);
+                out.writeUTF(String.valueOf(e));
+                out.flush();
+                continue;
+            }
+            out.writeLong(progress.getRays());
+            for (double component : writer.pixels)
+                out.writeDouble(component);
+            out.flush();
+        }
+    }
+
+    /**
+     * Deserializes the camera of a render, with the classes of a camera only
+     *
+     * @param job the serialized camera
+     * @return the camera
+     * @throws IOException if the camera can't be read, or it holds other classes
+     */
+    static Camera readCamera(byte[] job) throws IOException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(job))) {
+            in.setObjectInputFilter(CAMERA_FILTER);
+            return (Camera) in.readObject();
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new InvalidClassException("Not a camera of this build: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Pixel writer that keeps the colors of the current tile, to be sent to the coordinator
+     */
+    private static class TileBuffer implements PixelWriter {
+        /**
+         * Image resolution
+         */
+        private final int nX, nY;
+        /**
+         * The current tile - its first pixel and its width
+         */
+        private int x0, y0, width;
+        /**
+         * The colors of the tile pixels, row by row, 3 components per pixel
+         */
+        private double[] pixels = new double[0];
+
+        /**
+         * Constructs the buffer of an image resolution
+         *
+         * @param nX amount of pixels by width
+         * @param nY amount of pixels by height
+         */
+        TileBuffer(int nX, int nY) {
+            this.nX = nX;
+            this.nY = nY;
+        }
+
+        @Override
+        public int getNx() {
+            return nX;
+        }
+
+        @Override
+        public int getNy() {
+            return nY;
+        }
+
+        /**
+         * Starts a tile
+         *
+         * @param x0 X axis index of the first pixel
+         * @param y0 Y axis index of the first pixel
+         * @param x1 X axis index after the last pixel
+         * @param y1 Y axis index after the last pixel
+         */
+        void setTile(int x0, int y0, int x1, int y1) {
+            this.x0 = x0;
+            this.y0 = y0;
+            width = x1 - x0;
+            pixels = new double[3 * width * (y1 - y0)];
+        }
+
+        @Override
+        public void writePixel(int xIndex, int yIndex, Color color) {
+            int index = 3 * ((yIndex - y0) * width + xIndex - x0);
+            pixels[index] = color.getRed();
+            pixels[index + 1] = color.getGreen();
+            pixels[index + 2] = color.getBlue();
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package renderer;
+
+import primitives.Color;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Image writer that streams the png file while the image is rendered, instead of holding the whole
+ * image in memory.
+ * <p>
+ * The pixels are kept in bands of {@link #BAND_HEIGHT} rows. Whenever the rows at the top of the
+ * image are completed (see {@link #tileDone(int, int, int, int)}), the thread that completed them
+ * compresses them into the file and drops their band, while the other threads keep rendering. So
+ * only the bands between the first unfinished row and the rendered tiles are held in memory, and a
+ * render bounds them by waiting before tiles too far below that row - see {@link #awaitRow(int, int)}.
+ * <p>
+ * A row can't be changed once it's in the file, so grids have to be drawn before the rows are done,
+ * and the writer writes a single image.
+ * <p>
+ * The writer holds the file and the compressor from the first done row until the image is written.
+ * A render that doesn't get to {@link #writeToImage()} has to {@link #close()} the writer - e.g. by
+ * try-with-resources. On a file error the writer releases them by itself.
+ *
+ * @author Raz
+ */
+public class StreamingImageWriter extends ImageWriter implements AutoCloseable {
+    /**
+     * Amount of rows in a band of pixels
+     */
+    private static final int BAND_HEIGHT = 16;
+    /**
+     * Size of the compressed data chunks in the file
+     */
+    private static final int CHUNK_SIZE = 1 << 16;
+    /**
+     * The png file signature
+     */
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    /**
+     * The bands of pixels that aren't in the file yet, by band index, as packed RGB
+     */
+    private final Map<Integer, int[]> bands = new ConcurrentHashMap<>();
+    /**
+     * Amount of bands held in memory, and its peak
+     */
+    private final AtomicInteger liveBands = new AtomicInteger(), peakBands = new AtomicInteger();
+    /**
+     * Amount of done pixels in every row
+     */
+    private final AtomicIntegerArray rowPixels;
+    /**
+     * Lock of the encoder - only one thread writes to the file at a time
+     */
+    private final ReentrantLock encoderLock = new ReentrantLock();
+    /**
+     * Lock of the threads waiting for rows to be encoded - separate from the encoder lock, so a waiting
+     * thread never holds up the encoding
+     */
+    private final ReentrantLock waitLock = new ReentrantLock();
+    /**
+     * Signalled when rows are encoded or the writer is finished
+     */
+    private final Condition rowEncoded = waitLock.newCondition();
+
+    /**
+     * The first row that isn't in the file yet
+     */
+    private volatile int nextRow = 0;
+    /**
+     * Whether the file is completed or the writer is closed
+     */
+    private volatile boolean finished = false;
+
+    // the encoder state, guarded by the encoder lock
+    private FileChannel channel;
+    private final Deflater deflater = new Deflater();
+    private final CRC32 crc = new CRC32();
+    private final byte[] row;
+    private final byte[] chunk = new byte[CHUNK_SIZE];
+    private int chunkLength = 0;
+
+    /**
+     * Streaming image writer constructor
+     *
+     * @param imageName the name of png file
+     * @param nX        amount of pixels by Width
+     * @param nY        amount of pixels by height
+     */
+    public StreamingImageWriter(String imageName, int nX, int nY) {
+        super(imageName, nX, nY, false);
+        rowPixels = new AtomicIntegerArray(nY);
+        row = new byte[1 + 3 * nX];
+    }
+
+    /**
+     * @throws IllegalStateException if the row of the pixel is already in the file
+     */
+    @Override
+    public void writePixel(int xIndex, int yIndex, Color color) {
+        if (yIndex < nextRow) throw new IllegalStateException("Row " + yIndex + " is already written");
+        bands.computeIfAbsent(yIndex / BAND_HEIGHT, k -> {
+            peakBands.accumulateAndGet(liveBands.incrementAndGet(), Math::max);
+            return new int[BAND_HEIGHT * getNx()];
+        })[(yIndex % BAND_HEIGHT) * getNx() + xIndex] = color.getRGB();
+    }
+
+    /**
+     * Waits while the row is rowsAhead rows or more below the first row that isn't in the file yet, or
+     * until the writer is finished
+     */
+    @Override
+    public void awaitRow(int yIndex, int rowsAhead) {
+        if (yIndex < nextRow + rowsAhead || finished) return;
+        waitLock.lock();
+        try {
+            while (yIndex >= nextRow + rowsAhead && !finished) rowEncoded.awaitUninterruptibly();
+        } finally {
+            waitLock.unlock();
+        }
+    }
+
+    /**
+     * @return the peak amount of bands of pixels held in memory at once
+     */
+    int getPeakBands() {
+        return peakBands.get();
+    }
+
+    @Override
+    public void tileDone(int x0, int y0, int x1, int y1) {
+        for (int y = y0; y < y1; y++)
+            rowPixels.addAndGet(y, x1 - x0);
+        // if another thread is encoding it will encode these rows too - it checks again after unlocking
+        while (isRowDone() && encoderLock.tryLock()) {
+            try {
+                while (isRowDone()) encodeRow();
+            } catch (IOException e) {
+                release();
+                throw fail(e);
+            } finally {
+                encoderLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Encodes the rows that aren't in the file yet (pixels that weren't written are black) and
+     * completes the file
+     *
+     * @throws IllegalStateException if the image is already written or the writer is closed
+     */
+    @Override
+    public void writeToImage() {
+        encoderLock.lock();
+        try {
+            checkNotFinished();
+            while (nextRow < getNy()) encodeRow();
+            deflater.finish();
+            while (!deflater.finished()) deflate();
+            writeChunk("IDAT", chunk, chunkLength);
+            writeChunk("IEND", chunk, 0);
+            channel.close();
+        } catch (IOException e) {
+            throw fail(e);
+        } finally {
+            release();
+            encoderLock.unlock();
+        }
+    }
+
+    /**
+     * Releases the file and the compressor. An image that isn't written yet is left incomplete and can't
+     * be written anymore. Closing a written or closed writer does nothing.
+     */
+    @Override
+    public void close() {
+        encoderLock.lock();
+        try {
+            release();
+        } finally {
+            encoderLock.unlock();
+        }
+    }
+
+    /**
+     * Releases the file and the compressor, must be called with the encoder lock held
+     */
+    private void release() {
+        finished = true;
+        signalWaiting();
+        deflater.end();
+        if (channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Can't close the image file", e);
+        }
+    }
+
+    /**
+     * Wakes the threads waiting for rows to be encoded
+     */
+    private void signalWaiting() {
+        waitLock.lock();
+        try {
+            rowEncoded.signalAll();
+        } finally {
+            waitLock.unlock();
+        }
+    }
+
+    /**
+     * @throws IllegalStateException if the image is already written or the writer is closed
+     */
+    private void checkNotFinished() {
+        if (finished) throw new IllegalStateException("The image is already written or the writer is closed");
+    }
+
+    /**
+     * @return whether the first row that isn't in the file is done
+     */
+    private boolean isRowDone() {
+        int y = nextRow;
+        return y < getNy() && rowPixels.get(y) >= getNx();
+    }
+
+    /**
+     * Compresses the next row into the file, with the sub filter of png
+     *
+     * @throws IOException on file errors
+     */
+    private void encodeRow() throws IOException {
+        checkNotFinished();
+        if (channel == null) open();
+        int y = nextRow, nX = getNx();
+        int[] band = bands.get(y / BAND_HEIGHT);
+        row[0] = 1;
+        int left = 0;
+        for (int x = 0, offset = (y % BAND_HEIGHT) * nX; x < nX; x++) {
+            int rgb = band == null ? 0 : band[offset + x];
+            row[1 + 3 * x] = (byte) ((rgb >> 16) - (left >> 16));
+            row[2 + 3 * x] = (byte) ((rgb >> 8) - (left >> 8));
+            row[3 + 3 * x] = (byte) (rgb - left);
+            left = rgb;
+        }
+        deflater.setInput(row);
+        while (!deflater.needsInput()) deflate();
+        if ((y % BAND_HEIGHT == BAND_HEIGHT - 1 || y == getNy() - 1) && bands.remove(y / BAND_HEIGHT) != null)
+            liveBands.decrementAndGet();
+        nextRow = y + 1;
+        signalWaiting();
+    }
+
+    /**
+     * Moves compressed data into the chunk, and writes the chunk when it's full
+     *
+     * @throws IOException on file errors
+     */
+    private void deflate() throws IOException {
+        chunkLength += deflater.deflate(chunk, chunkLength, CHUNK_SIZE - chunkLength);
+        if (chunkLength == CHUNK_SIZE) {
+            writeChunk("IDAT", chunk, chunkLength);
+            chunkLength = 0;
+        }
+    }
+
+    /**
+     * Creates the file and writes the png signature and header
+     *
+     * @throws IOException on file errors
+     */
+    private void open() throws IOException {
+        channel = FileChannel.open(Path.of(FOLDER_PATH, imageName + ".png"),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        write(ByteBuffer.wrap(SIGNATURE));
+        // width, height, 8 bits RGB, deflate, adaptive filtering, no interlace
+        byte[] header = ByteBuffer.allocate(13).putInt(getNx()).putInt(getNy()).put((byte) 8).put((byte) 2)
+                .put((byte) 0).put((byte) 0).put((byte) 0).array();
+        writeChunk("IHDR", header, header.length);
+    }
+
+    /**
+     * Writes a png chunk - length, type, data and the CRC of the type and the data
+     *
+     * @param type   the chunk type
+     * @param data   the chunk data
+     * @param length amount of data bytes
+     * @throws IOException on file errors
+     */
+    private void writeChunk(String type, byte[] data, int length) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        crc.reset();
+        crc.update(typeBytes);
+        crc.update(data, 0, length);
+        write(ByteBuffer.allocate(8).putInt(length).put(typeBytes).flip());
+        write(ByteBuffer.wrap(data, 0, length));
+        write(ByteBuffer.allocate(4).putInt((int) crc.getValue()).flip());
+    }
+
+    /**
+     * Writes the whole buffer to the file
+     *
+     * @param buffer the buffer
+     * @throws IOException on file errors
+     */
+    private void write(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) channel.write(buffer);
+    }
+}
@@ -0,0 +1,33 @@
+package renderer;
+
+/**
+ * Tone mapping operator - maps a linear high dynamic range color component, where 1 is white, to the
+ * displayable range [0, 1]
+ *
+ * @author Raz
+ */
+@FunctionalInterface
+public interface ToneMapper {
+    /**
+     * Clamps the component to 1, like {@link primitives.Color#getColor()} clamps to 255. The frame buffer
+     * rounds the clamped component to 8 bits where getColor() truncates it, so a png of the frame buffer
+     * may be 1 above the png of an {@link ImageWriter} in a component
+     */
+    ToneMapper CLAMP = v -> Math.min(v, 1);
+    /**
+     * Reinhard operator v / (1 + v) - compresses the highlights smoothly, never reaching white
+     */
+    ToneMapper REINHARD = v -> v / (1 + v);
+    /**
+     * Fitted ACES filmic curve (Narkowicz) - a filmic toe and shoulder, white at about 10
+     */
+    ToneMapper ACES = v -> Math.min(v * (2.51 * v + 0.03) / (v * (2.43 * v + 0.59) + 0.14), 1);
+
+    /**
+     * Maps a color component
+     *
+     * @param value the linear component, 1 for white
+     * @return the displayable component in [0, 1]
+     */
+    double map(double value);
+}
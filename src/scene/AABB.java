@@ -1,206 +1,1026 @@
 package scene;
 
 import geometries.Geometries;
+import geometries.HitBuffer;
 import geometries.Intersectable;
-import geometries.Plane;
-import geometries.Polygon;
+import geometries.TriangleMesh;
+import primitives.Double3;
+import primitives.IntersectionKernels;
+import primitives.Point;
 import primitives.Ray;
+import primitives.RayPacket;
 import primitives.Vector;
-import primitives.Point;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.function.Function;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
+/**
+ * Bounding volume hierarchy over the bodies of a {@link Geometries} collection.
+ * <p>
+ * The tree is built once and stored linearized in depth-first order: the left child of an inner node
+ * is always the next node, so a node only keeps the index of its right child. Node bounds and offsets
+ * are packed in primitive arrays and the traversal is iterative with an explicit stack.
+ * <p>
+ * A packet of rays is traversed together: every node is fetched once for the whole packet and tested
+ * against the rays that entered its parent, which are kept in a mask per stack entry.
+ */
 public class AABB extends Intersectable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Strategy for choosing the split of a node while building the tree
+     */
+    public enum BuildStrategy {
+        /**
+         * Surface area heuristic evaluated on a fixed amount of buckets per axis, one sweep per axis
+         */
+        BINNED_SAH,
+        /**
+         * Surface area heuristic evaluated at the center of every primitive, quadratic in the node size
+         */
+        FULL_SAH
+    }
+
+    /**
+     * Maximum amount of primitives kept in a leaf
+     */
+    private static final int LEAF_SIZE = 2;
+
+    /**
+     * Amount of buckets per axis for the binned surface area heuristic
+     */
+    private static final int BINS = 16;
+
+    /**
+     * Minimum amount of primitives in a node for building its sub-trees in parallel
+     */
+    private static final int PARALLEL_THRESHOLD = 1024;
+
+    /**
+     * Node bounds, 6 values per node: minX, minY, minZ, maxX, maxY, maxZ
+     */
+    private double[] nodeBounds;
+
+    /**
+     * Node links, 2 values per node: right child index (inner node) or first primitive index (leaf),
+     * and the primitive count which is 0 for inner nodes
+     */
+    private int[] nodes;
+
+    /**
+     * Amount of nodes in the tree
+     */
+    private int nodeCount = 0;
+
+    /**
+     * Depth of the tree, used for sizing the traversal stack
+     */
+    private int depth = 0;
+
+    /**
+     * The bounded primitives, ordered so each leaf refers to a continuous range.
+     * Every triangle of a mesh is a separate primitive, referring to the mesh.
+     */
+    private final Intersectable[] primitives;
+
+    /**
+     * The triangle index of each primitive in its mesh, -1 for a primitive that is not a mesh triangle
+     */
+    private final int[] primIds;
+
+    /**
+     * Primitives without finite bounds (planes, tubes) which are tested against every ray
+     */
+    private final Intersectable[] unbounded;
+
+    /**
+     * Primitive bounds and centers used during the build, 6 and 3 values per primitive
+     */
+    private double[] primBounds, primCenters;
+
+    /**
+     * The split strategy used during the build
+     */
+    private final BuildStrategy strategy;
+
+    /**
+     * Node of the tree during the build, before it is linearized into the arrays
+     */
+    private static final class BuildNode {
+        /**
+         * The node bounds
+         */
+        final double[] bounds = new double[6];
+        /**
+         * The primitives range [start, end)
+         */
+        final int start, end;
+        /**
+         * The children, null for a leaf
+         */
+        BuildNode left, right;
+
+        BuildNode(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+    }
 
-    public AABB leftNode, rightNode;
-    Geometries geometries;
-    boolean isLeaf = false;
+    /**
+     * Fork-join task building the sub-tree of a primitives range
+     */
+    private final class BuildTask extends RecursiveTask<BuildNode> {
+        private static final long serialVersionUID = 1L;
 
-    static List<Function<Intersectable, Double>> axises = null;
+        /**
+         * The primitives range [start, end)
+         */
+        private final int start, end;
 
-    Polygon[] polygons;
+        BuildTask(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected BuildNode compute() {
+            return build(start, end);
+        }
+    }
+
+    /**
+     * Builds the hierarchy over all the bodies of the geometries with the binned surface area heuristic
+     *
+     * @param geometries the geometries to build the tree for
+     */
+    public AABB(Geometries geometries) {
+        this(geometries, BuildStrategy.BINNED_SAH);
+    }
+
+    /**
+     * Builds the hierarchy over all the bodies of the geometries (nested collections are flattened)
+     *
+     * @param geometries the geometries to build the tree for
+     * @param strategy   the split strategy
+     */
+    public AABB(Geometries geometries, BuildStrategy strategy) {
+        this.strategy = strategy;
+        List<Intersectable> bounded = new ArrayList<>(), infinite = new ArrayList<>();
+        collect(geometries, bounded, infinite);
+        unbounded = infinite.toArray(new Intersectable[0]);
+
+        int n = 0;
+        for (Intersectable body : bounded)
+            n += body instanceof TriangleMesh mesh ? mesh.size() : 1;
+        primitives = new Intersectable[n];
+        primIds = new int[n];
+        primBounds = new double[6 * n];
+        primCenters = new double[3 * n];
+        int i = 0;
+        for (Intersectable body : bounded) {
+            if (body instanceof TriangleMesh mesh) {
+                for (int triangle = 0; triangle < mesh.size(); triangle++, i++) {
+                    primitives[i] = mesh;
+                    primIds[i] = triangle;
+                    mesh.getTriangleBounds(triangle, primBounds, 6 * i);
+                    mesh.getTriangleCenter(triangle, primCenters, 3 * i);
+                }
+                continue;
+            }
+            Point min = body.getMinABBA(), max = body.getMaxABBA(), center = body.getCenterABBA();
+            primitives[i] = body;
+            primIds[i] = -1;
+            primBounds[6 * i] = min.getX();
+            primBounds[6 * i + 1] = min.getY();
+            primBounds[6 * i + 2] = min.getZ();
+            primBounds[6 * i + 3] = max.getX();
+            primBounds[6 * i + 4] = max.getY();
+            primBounds[6 * i + 5] = max.getZ();
+            primCenters[3 * i] = center.getX();
+            primCenters[3 * i + 1] = center.getY();
+            primCenters[3 * i + 2] = center.getZ();
+            i++;
+        }
 
+        // a binary tree with at least one primitive in each leaf has at most 2n - 1 nodes
+        nodeBounds = new double[6 * Math.max(1, 2 * n - 1)];
+        nodes = new int[2 * Math.max(1, 2 * n - 1)];
+        if (n > 0) flatten(n < PARALLEL_THRESHOLD ? build(0, n) : ForkJoinPool.commonPool().invoke(new BuildTask(0, n)), 1);
 
-    public AABB(Geometries geometries){
-        if (axises == null) {
-            axises = new ArrayList<>();
-            axises.add((x) -> x.getCenterABBA().getX());
-            axises.add((x) -> x.getCenterABBA().getY());
-            axises.add((x) -> x.getCenterABBA().getZ());
+        // the build data is not needed for the traversal
+        primBounds = null;
+        primCenters = null;
+        findMinMaxCenter();
+    }
+
+    /**
+     * Updates the bounds of the nodes to the current bounds of the primitives, keeping the tree
+     * structure - for bodies that moved (e.g. an {@link geometries.Instance} with a new transform, or
+     * a {@link TriangleMesh} with new vertices) without bodies added or removed. The nodes are updated
+     * in reverse order, so the children of a node are updated before it.
+     * <p>
+     * A refit is linear in the tree size and much cheaper than a build, but the tree does not adapt to
+     * the new places of the bodies: after large moves it is slower to traverse than a new tree.
+     * A BVH that holds another BVH (through instances) is refitted after the inner one.
+     *
+     * @return this BVH
+     * @throws IllegalStateException if a bounded primitive has lost its bounds, or the BVH is frozen
+     */
+    public AABB refit() {
+        checkNotFrozen();
+        double[] bounds = new double[6];
+        for (int node = nodeCount - 1; node >= 0; node--) {
+            int b = 6 * node, count = nodes[2 * node + 1];
+            if (count == 0) {
+                int left = 6 * (node + 1), right = 6 * nodes[2 * node];
+                for (int k = 0; k < 3; k++) {
+                    nodeBounds[b + k] = Math.min(nodeBounds[left + k], nodeBounds[right + k]);
+                    nodeBounds[b + k + 3] = Math.max(nodeBounds[left + k + 3], nodeBounds[right + k + 3]);
+                }
+                continue;
+            }
+            setEmpty(nodeBounds, b);
+            for (int i = nodes[2 * node], end = i + count; i < end; i++) {
+                primitiveBounds(i, bounds);
+                for (int k = 0; k < 3; k++) {
+                    nodeBounds[b + k] = Math.min(nodeBounds[b + k], bounds[k]);
+                    nodeBounds[b + k + 3] = Math.max(nodeBounds[b + k + 3], bounds[k + 3]);
+                }
+            }
         }
-        this.geometries = geometries;
         findMinMaxCenter();
-//        Point[] corners = new Point[8];
-//
-//        // Calculate the coordinates for each corner
-//        corners[0] = new Point(geometries.getMinABBA().getX(), geometries.getMinABBA().getY(), geometries.getMinABBA().getZ());
-//        corners[1] = new Point(geometries.getMaxABBA().getX(), geometries.getMinABBA().getY(), geometries.getMinABBA().getZ());
-//        corners[2] = new Point(geometries.getMinABBA().getX(), geometries.getMaxABBA().getY(), geometries.getMinABBA().getZ());
-//        corners[3] = new Point(geometries.getMaxABBA().getX(), geometries.getMaxABBA().getY(), geometries.getMinABBA().getZ());
-//        corners[4] = new Point(geometries.getMinABBA().getX(), geometries.getMinABBA().getY(), geometries.getMaxABBA().getZ());
-//        corners[5] = new Point(geometries.getMaxABBA().getX(), geometries.getMinABBA().getY(), geometries.getMaxABBA().getZ());
-//        corners[6] = new Point(geometries.getMinABBA().getX(), geometries.getMaxABBA().getY(), geometries.getMaxABBA().getZ());
-//        corners[7] = new Point(geometries.getMaxABBA().getX(), geometries.getMaxABBA().getY(), geometries.getMaxABBA().getZ());
-//
-//        polygons = new Polygon[6];
-//
-//        // Define the polygons using the corner points
-//        // Each polygon is defined by four corners in a counterclockwise order
-//        polygons[0] = new Polygon(corners[0], corners[1], corners[3], corners[2]);
-//        polygons[1] = new Polygon(corners[1], corners[5], corners[7], corners[3]);
-//        polygons[2] = new Polygon(corners[5], corners[4], corners[6], corners[7]);
-//        polygons[3] = new Polygon(corners[4], corners[0], corners[2], corners[6]);
-//        polygons[4] = new Polygon(corners[2], corners[3], corners[7], corners[6]);
-//        polygons[5] = new Polygon(corners[4], corners[5], corners[1], corners[0]);
-
-
-
-        if(geometries.bodies.size() <= 2){
-            isLeaf = true;
+        return this;
+    }
+
+    /**
+     * The current bounds of a primitive
+     *
+     * @param i   the primitive index
+     * @param out array for the bounds: minX, minY, minZ, maxX, maxY, maxZ
+     * @throws IllegalStateException if the primitive has no bounds
+     */
+    private void primitiveBounds(int i, double[] out) {
+        if (primIds[i] >= 0) {
+            ((TriangleMesh) primitives[i]).getTriangleBounds(primIds[i], out, 0);
             return;
         }
-        buildTree();
+        Intersectable body = primitives[i];
+        body.updateMinMaxCenter();
+        Point min = body.getMinABBA(), max = body.getMaxABBA();
+        if (min == null || max == null) throw new IllegalStateException("A BVH body lost its bounds, build a new BVH");
+        out[0] = min.getX();
+        out[1] = min.getY();
+        out[2] = min.getZ();
+        out[3] = max.getX();
+        out[4] = max.getY();
+        out[5] = max.getZ();
+    }
 
+    /**
+     * Splits the bodies of the geometries (recursively) into bounded and unbounded primitives
+     *
+     * @param geometries the collection
+     * @param bounded    list for primitives with finite bounds
+     * @param infinite   list for primitives without bounds
+     */
+    private static void collect(Geometries geometries, List<Intersectable> bounded, List<Intersectable> infinite) {
+        for (Intersectable body : geometries.getBodies()) {
+            if (body instanceof Geometries inner) {
+                collect(inner, bounded, infinite);
+                continue;
+            }
+            body.updateMinMaxCenter();
+            if (body.getMinABBA() == null || body.getMaxABBA() == null) infinite.add(body);
+            else bounded.add(body);
+        }
     }
 
-    public boolean intersect(Ray ray, double maxDis){
+    /**
+     * Builds the sub-tree of the primitives in range [start, end), the sub-trees of large ranges
+     * are built in parallel
+     *
+     * @param start first primitive
+     * @param end   end of the range (excluded)
+     * @return the root of the sub-tree
+     */
+    private BuildNode build(int start, int end) {
+        BuildNode node = new BuildNode(start, end);
+        rangeBounds(start, end, node.bounds, 0);
+        if (end - start <= LEAF_SIZE) return node;
 
-//        for(Polygon p:polygons){
-//            var l = p.findGeoIntersections(ray, maxDis);
-//            if(l != null) return true;
-//        }
-//        return false;
-        var dir = ray.getDir();
-        var vP0 = ray.getP0();
-        var invdir = new Vector(1/dir.getX(),1/dir.getY(),1/dir.getZ());
-        int[] sign = {invdir.getX() < 0 ? 1 : 0,invdir.getY() < 0 ? 1 : 0, invdir.getZ() < 0 ? 1 : 0 };
-        Point[] bounds = {geometries.getMinABBA(),geometries.getMaxABBA()};
-        double tmin, tmax, tymin, tymax, tzmin, tzmax;
-        tmin = (bounds[sign[0]].getX() - vP0.getX()) * invdir.getX();
-        tmax = (bounds[1-sign[0]].getX() - vP0.getX()) * invdir.getX();
-        tymin = (bounds[sign[1]].getY() - vP0.getY()) * invdir.getY();
-        tymax = (bounds[1-sign[1]].getY() - vP0.getY()) * invdir.getY();
-        if ((tmin > tymax) || (tymin > tmax))
-            return false;
+        int mid = strategy == BuildStrategy.BINNED_SAH ? splitByBinnedSAH(start, end) : splitBySAH(start, end);
+        if (end - start < PARALLEL_THRESHOLD) {
+            node.left = build(start, mid);
+            node.right = build(mid, end);
+        } else {
+            BuildTask left = new BuildTask(start, mid);
+            left.fork();
+            node.right = build(mid, end);
+            node.left = left.join();
+        }
+        return node;
+    }
 
-        if (tymin > tmin)
-            tmin = tymin;
-        if (tymax < tmax)
-            tmax = tymax;
-        tzmin = (bounds[sign[2]].getZ() - vP0.getZ()) * invdir.getZ();
-        tzmax = (bounds[1-sign[2]].getZ() - vP0.getZ()) * invdir.getZ();
+    /**
+     * Writes the sub-tree into the node arrays in depth-first order
+     *
+     * @param buildNode the root of the sub-tree
+     * @param level     the depth of the node
+     * @return the index of the node
+     */
+    private int flatten(BuildNode buildNode, int level) {
+        int node = nodeCount++;
+        depth = Math.max(depth, level);
+        System.arraycopy(buildNode.bounds, 0, nodeBounds, 6 * node, 6);
+        if (buildNode.left == null) {
+            nodes[2 * node] = buildNode.start;
+            nodes[2 * node + 1] = buildNode.end - buildNode.start;
+            return node;
+        }
+        flatten(buildNode.left, level + 1);
+        nodes[2 * node] = flatten(buildNode.right, level + 1);
+        nodes[2 * node + 1] = 0;
+        return node;
+    }
 
-        if ((tmin > tzmax) || (tzmin > tmax))
-            return false;
-        if (tzmax < tmax)
-            tmax = tzmax;
+    /**
+     * Computes the bounds of the primitives in range [start, end)
+     *
+     * @param start  first primitive
+     * @param end    end of the range (excluded)
+     * @param out    array to write the bounds into
+     * @param offset the position in the array
+     */
+    private void rangeBounds(int start, int end, double[] out, int offset) {
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+        for (int i = start; i < end; i++) {
+            minX = Math.min(minX, primBounds[6 * i]);
+            minY = Math.min(minY, primBounds[6 * i + 1]);
+            minZ = Math.min(minZ, primBounds[6 * i + 2]);
+            maxX = Math.max(maxX, primBounds[6 * i + 3]);
+            maxY = Math.max(maxY, primBounds[6 * i + 4]);
+            maxZ = Math.max(maxZ, primBounds[6 * i + 5]);
+        }
+        out[offset] = minX;
+        out[offset + 1] = minY;
+        out[offset + 2] = minZ;
+        out[offset + 3] = maxX;
+        out[offset + 4] = maxY;
+        out[offset + 5] = maxZ;
+    }
 
-        return tmax <= maxDis;
+    /**
+     * Chooses the split of the range by the surface area heuristic, trying the center of every
+     * primitive on every axis, and partitions the range accordingly
+     *
+     * @param start first primitive
+     * @param end   end of the range (excluded)
+     * @return the index of the first primitive of the right part
+     */
+    private int splitBySAH(int start, int end) {
+        int bestAxis = -1;
+        double bestPos = 0, bestCost = Double.POSITIVE_INFINITY;
+        for (int axis = 0; axis < 3; axis++) {
+            for (int i = start; i < end; i++) {
+                double candidatePos = primCenters[3 * i + axis];
+                double cost = evaluateSAH(start, end, axis, candidatePos);
+                if (cost < bestCost) {
+                    bestPos = candidatePos;
+                    bestAxis = axis;
+                    bestCost = cost;
+                }
+            }
+        }
+        int mid = bestAxis < 0 ? start : partition(start, end, bestAxis, bestPos);
+        // all the centers are on the same side - split the range in the middle
+        return mid == start || mid == end ? (start + end) / 2 : mid;
     }
 
+    /**
+     * Chooses the split of the range by the surface area heuristic evaluated on the borders of
+     * {@link #BINS} equal buckets over the extent of the primitive centers on each axis, and
+     * partitions the range accordingly
+     *
+     * @param start first primitive
+     * @param end   end of the range (excluded)
+     * @return the index of the first primitive of the right part
+     */
+    private int splitByBinnedSAH(int start, int end) {
+        int[] counts = new int[BINS];
+        double[] bins = new double[6 * BINS];
+        double[] leftAreas = new double[BINS - 1];
+        int bestAxis = -1;
+        double bestPos = 0, bestCost = Double.POSITIVE_INFINITY;
 
-    public AABB setGeometries(Geometries geometries){
-        this.geometries = geometries;
-        return this;
+        for (int axis = 0; axis < 3; axis++) {
+            double cMin = Double.POSITIVE_INFINITY, cMax = Double.NEGATIVE_INFINITY;
+            for (int i = start; i < end; i++) {
+                cMin = Math.min(cMin, primCenters[3 * i + axis]);
+                cMax = Math.max(cMax, primCenters[3 * i + axis]);
+            }
+            if (cMax - cMin <= 0) continue;
+            double scale = BINS / (cMax - cMin);
+
+            Arrays.fill(counts, 0);
+            for (int b = 0; b < BINS; b++) setEmpty(bins, 6 * b);
+            for (int i = start; i < end; i++) {
+                int b = Math.min(BINS - 1, (int) ((primCenters[3 * i + axis] - cMin) * scale));
+                counts[b]++;
+                grow(bins, 6 * b, i);
+            }
+
+            // sweep from the left for the areas of the left sides, then from the right for the costs
+            double[] box = emptyBounds();
+            for (int b = 0; b < BINS - 1; b++) {
+                merge(box, bins, 6 * b);
+                leftAreas[b] = area(box);
+            }
+            box = emptyBounds();
+            int rightCount = 0;
+            for (int b = BINS - 1; b > 0; b--) {
+                merge(box, bins, 6 * b);
+                rightCount += counts[b];
+                int leftCount = end - start - rightCount;
+                if (leftCount == 0 || rightCount == 0) continue;
+                double cost = leftCount * leftAreas[b - 1] + rightCount * area(box);
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestAxis = axis;
+                    bestPos = cMin + b / scale;
+                }
+            }
+        }
+        int mid = bestAxis < 0 ? start : partition(start, end, bestAxis, bestPos);
+        return mid == start || mid == end ? (start + end) / 2 : mid;
     }
-    public AABB buildTree(){
-        double[] arr = decideHowToSplitBySAH();
-        List<List<Intersectable>> split = splitByAxis(axises.get((int) arr[0]), arr[1]);
-        leftNode = new AABB(new Geometries().add(split.get(0)));
-        rightNode = new AABB(new Geometries().add(split.get(1)));
-        return this;
+
+    /**
+     * Evaluates the surface area heuristic cost of splitting the range at the given position
+     *
+     * @param start first primitive
+     * @param end   end of the range (excluded)
+     * @param axis  the split axis
+     * @param pos   the split position
+     * @return the cost of the split, infinity for a split leaving one of the sides empty
+     */
+    private double evaluateSAH(int start, int end, int axis, double pos) {
+        double[] left = emptyBounds(), right = emptyBounds();
+        int leftCount = 0, rightCount = 0;
+        for (int i = start; i < end; i++) {
+            if (primCenters[3 * i + axis] < pos) {
+                grow(left, i);
+                leftCount++;
+            } else {
+                grow(right, i);
+                rightCount++;
+            }
+        }
+        if (leftCount == 0 || rightCount == 0) return Double.POSITIVE_INFINITY;
+        return leftCount * area(left) + rightCount * area(right);
     }
 
-    double decideHowToSplit() {
-        Point minAABB = geometries.getMinABBA(), maxAABB = geometries.getMaxABBA();
-        double xLength = maxAABB.getX() - minAABB.getX();
-        double yLength = maxAABB.getY() - minAABB.getY();
-        double zLength = maxAABB.getZ() - minAABB.getZ();
+    /**
+     * @return bounds array of an empty box
+     */
+    private static double[] emptyBounds() {
+        return new double[]{Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+                Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+    }
 
-        if(xLength > yLength && xLength > zLength) {
-            return 1;
-        }else if(yLength > xLength && yLength > zLength){
-            return 2;
-        }else{
-            return 3;
+    /**
+     * Sets the box in the array to an empty box
+     *
+     * @param boxes  the boxes array
+     * @param offset the position of the box in the array
+     */
+    private static void setEmpty(double[] boxes, int offset) {
+        for (int k = 0; k < 3; k++) {
+            boxes[offset + k] = Double.POSITIVE_INFINITY;
+            boxes[offset + k + 3] = Double.NEGATIVE_INFINITY;
         }
     }
 
-    List<List<Intersectable>> splitByAxis(Function<Intersectable, Double> func, double pos){
-        List<List<Intersectable>> list = new ArrayList<>();
-        list.add(new ArrayList<>());
-        list.add(new ArrayList<>());
+    /**
+     * Grows the box to contain the given primitive
+     *
+     * @param box  the box bounds
+     * @param prim the primitive index
+     */
+    private void grow(double[] box, int prim) {
+        grow(box, 0, prim);
+    }
 
-        for(Intersectable i:geometries.bodies){
-            if(func.apply(i) < pos){
-                list.get(0).add(i);
-            }else{
-                list.get(1).add(i);
+    /**
+     * Grows the box in the array to contain the given primitive
+     *
+     * @param boxes  the boxes array
+     * @param offset the position of the box in the array
+     * @param prim   the primitive index
+     */
+    private void grow(double[] boxes, int offset, int prim) {
+        for (int k = 0; k < 3; k++) {
+            boxes[offset + k] = Math.min(boxes[offset + k], primBounds[6 * prim + k]);
+            boxes[offset + k + 3] = Math.max(boxes[offset + k + 3], primBounds[6 * prim + k + 3]);
+        }
+    }
+
+    /**
+     * Grows the box to contain a box from the array
+     *
+     * @param box    the box bounds
+     * @param boxes  the boxes array
+     * @param offset the position of the other box in the array
+     */
+    private static void merge(double[] box, double[] boxes, int offset) {
+        for (int k = 0; k < 3; k++) {
+            box[k] = Math.min(box[k], boxes[offset + k]);
+            box[k + 3] = Math.max(box[k + 3], boxes[offset + k + 3]);
+        }
+    }
+
+    /**
+     * Half of the surface area of a box
+     *
+     * @param box the box bounds
+     * @return the area
+     */
+    private static double area(double[] box) {
+        double x = box[3] - box[0], y = box[4] - box[1], z = box[5] - box[2];
+        return x * y + y * z + z * x;
+    }
+
+    /**
+     * Reorders the range so the primitives with center lower than the position come first
+     *
+     * @param start first primitive
+     * @param end   end of the range (excluded)
+     * @param axis  the split axis
+     * @param pos   the split position
+     * @return the index of the first primitive that is not lower than the position
+     */
+    private int partition(int start, int end, int axis, double pos) {
+        int i = start, j = end - 1;
+        while (i <= j) {
+            if (primCenters[3 * i + axis] < pos) i++;
+            else swap(i, j--);
+        }
+        return i;
+    }
+
+    /**
+     * Swaps two primitives with their build data
+     *
+     * @param i first primitive
+     * @param j second primitive
+     */
+    private void swap(int i, int j) {
+        Intersectable body = primitives[i];
+        primitives[i] = primitives[j];
+        primitives[j] = body;
+        int id = primIds[i];
+        primIds[i] = primIds[j];
+        primIds[j] = id;
+        for (int k = 0; k < 6; k++) {
+            double tmp = primBounds[6 * i + k];
+            primBounds[6 * i + k] = primBounds[6 * j + k];
+            primBounds[6 * j + k] = tmp;
+        }
+        for (int k = 0; k < 3; k++) {
+            double tmp = primCenters[3 * i + k];
+            primCenters[3 * i + k] = primCenters[3 * j + k];
+            primCenters[3 * j + k] = tmp;
+        }
+    }
+
+    /**
+     * Slab test of the ray against the bounds of a node, clipped to the range (0, maxDis]
+     *
+     * @param node   the node index
+     * @param origin the ray origin coordinates
+     * @param invDir the inverse of the ray direction coordinates
+     * @param maxDis the max distance on the ray
+     * @return the distance where the ray enters the node box (0 if it starts inside),
+     * or infinity if it misses the box
+     */
+    private double entryDistance(int node, double[] origin, double[] invDir, double maxDis) {
+        int b = 6 * node;
+        double tmin = 0, tmax = maxDis;
+        for (int k = 0; k < 3; k++) {
+            double t1 = (nodeBounds[b + k] - origin[k]) * invDir[k];
+            double t2 = (nodeBounds[b + k + 3] - origin[k]) * invDir[k];
+            if (t1 > t2) {
+                double tmp = t1;
+                t1 = t2;
+                t2 = tmp;
             }
+            // a ray parallel to the slab and starting on its border gives NaN, which does not clip the range
+            if (t1 > tmin) tmin = t1;
+            if (t2 < tmax) tmax = t2;
+            if (tmin > tmax) return Double.POSITIVE_INFINITY;
         }
-        return list;
+        return tmin;
     }
 
+    /**
+     * Pushes the children of an inner node that the ray enters before maxDis, the far child first
+     * so the near one is popped first
+     *
+     * @param node    the inner node index
+     * @param origin  the ray origin coordinates
+     * @param invDir  the inverse of the ray direction coordinates
+     * @param maxDis  the max distance on the ray
+     * @param stack   the traversal stack of nodes
+     * @param entries the entry distances of the nodes in the stack
+     * @param size    the stack size
+     * @return the new stack size
+     */
+    private int pushChildren(int node, double[] origin, double[] invDir, double maxDis,
+                             int[] stack, double[] entries, int size) {
+        int near = node + 1, far = nodes[2 * node];
+        double nearEntry = entryDistance(near, origin, invDir, maxDis);
+        double farEntry = entryDistance(far, origin, invDir, maxDis);
+        if (farEntry < nearEntry) {
+            int tmp = near;
+            near = far;
+            far = tmp;
+            double tmpEntry = nearEntry;
+            nearEntry = farEntry;
+            farEntry = tmpEntry;
+        }
+        if (farEntry != Double.POSITIVE_INFINITY) {
+            stack[size] = far;
+            entries[size++] = farEntry;
+        }
+        if (nearEntry != Double.POSITIVE_INFINITY) {
+            stack[size] = near;
+            entries[size++] = nearEntry;
+        }
+        return size;
+    }
+
+    /**
+     * Writes the intersections of the ray with a single primitive into a hit buffer
+     *
+     * @param i      the primitive index
+     * @param ray    the ray
+     * @param maxDis the max distance on the ray
+     * @param hits   the buffer for the hits
+     */
+    private void findHits(int i, Ray ray, double maxDis, HitBuffer hits) {
+        // a triangle of a mesh has a single hit
+        if (primIds[i] < 0) primitives[i].findHits(ray, maxDis, hits);
+        else findClosestHit(i, ray, maxDis, hits);
+    }
+
+    /**
+     * Writes the closest intersection of the ray with a single primitive into a hit buffer
+     *
+     * @param i      the primitive index
+     * @param ray    the ray
+     * @param maxDis the max distance on the ray
+     * @param hits   the buffer for the hit
+     * @return true if a hit was written
+     */
+    private boolean findClosestHit(int i, Ray ray, double maxDis, HitBuffer hits) {
+        if (primIds[i] < 0) return primitives[i].findClosestHit(ray, maxDis, hits);
+        TriangleMesh mesh = (TriangleMesh) primitives[i];
+        double t = mesh.findTriangleIntersectionDistance(primIds[i], ray, maxDis);
+        if (Double.isNaN(t)) return false;
+        hits.add(mesh, primIds[i], t);
+        return true;
+    }
+
+    /**
+     * Closest intersection of the ray with a single primitive
+     *
+     * @param i      the primitive index
+     * @param ray    the ray
+     * @param maxDis the max distance on the ray
+     * @return the closest intersection, or null if there is none
+     */
+    private GeoPoint findClosestGeoIntersection(int i, Ray ray, double maxDis) {
+        if (primIds[i] < 0) return primitives[i].findClosestGeoIntersection(ray, maxDis);
+        return ((TriangleMesh) primitives[i]).findTriangleIntersection(primIds[i], ray, maxDis);
+    }
+
+    /**
+     * Occlusion query of a single primitive
+     *
+     * @param i      the primitive index
+     * @param ray    the ray
+     * @param maxDis the max distance on the ray
+     * @param ktr    the transparency accumulated so far
+     * @param minK   the transparency below which the ray is considered blocked
+     * @return the accumulated transparency, or Double3.ZERO if the ray is blocked
+     */
+    private Double3 findTransparency(int i, Ray ray, double maxDis, Double3 ktr, double minK) {
+        if (primIds[i] < 0) return primitives[i].findTransparency(ray, maxDis, ktr, minK);
+        return ((TriangleMesh) primitives[i]).findTriangleTransparency(primIds[i], ray, maxDis, ktr, minK);
+    }
+
+    /**
+     * Freezes the primitives, and then the BVH - it can't be refitted afterwards
+     *
+     * @return this BVH
+     */
+    @Override
+    public AABB freeze() {
+        for (Intersectable body : primitives)
+            body.freeze();
+        for (Intersectable body : unbounded)
+            body.freeze();
+        super.freeze();
+        return this;
+    }
 
     @Override
     public void findMinMaxCenter() {
-        geometries.findMinMaxCenter();
+        if (nodeCount == 0 || unbounded.length > 0) {
+            minAABB = maxAABB = centerAABB = null;
+            return;
+        }
+        minAABB = new Point(nodeBounds[0], nodeBounds[1], nodeBounds[2]);
+        maxAABB = new Point(nodeBounds[3], nodeBounds[4], nodeBounds[5]);
+        centerAABB = new Point((nodeBounds[0] + nodeBounds[3]) / 2, (nodeBounds[1] + nodeBounds[4]) / 2,
+                (nodeBounds[2] + nodeBounds[5]) / 2);
     }
 
     @Override
     protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDis) {
-        if(!intersect(ray, maxDis)){
-            return null;
-        }
-        if(isLeaf) return geometries.findGeoIntersections(ray, maxDis);
+        return findGeoIntersectionsByHits(ray, maxDis);
+    }
 
-        var leftIntersections = leftNode.findGeoIntersectionsHelper(ray, maxDis);
-        var rightIntersections = rightNode.findGeoIntersectionsHelper(ray, maxDis);
-        if(leftIntersections == null && rightIntersections == null){
-            return null;
+    @Override
+    protected void findHitsHelper(Ray ray, double maxDis, HitBuffer hits) {
+        for (Intersectable body : unbounded)
+            body.findHits(ray, maxDis, hits);
+        if (nodeCount == 0) return;
+
+        Point p0 = ray.getP0();
+        Vector dir = ray.getDir();
+        double[] origin = {p0.getX(), p0.getY(), p0.getZ()};
+        double[] invDir = {1 / dir.getX(), 1 / dir.getY(), 1 / dir.getZ()};
+
+        // the leaves are visited front to back, so the hits come roughly ordered by distance
+        int[] stack = new int[depth];
+        double[] entries = new double[depth];
+        int size = 0;
+        if (entryDistance(0, origin, invDir, maxDis) != Double.POSITIVE_INFINITY) stack[size++] = 0;
+        while (size > 0) {
+            int node = stack[--size];
+            int count = nodes[2 * node + 1];
+            if (count == 0) {
+                size = pushChildren(node, origin, invDir, maxDis, stack, entries, size);
+                continue;
+            }
+            for (int i = nodes[2 * node], end = i + count; i < end; i++)
+                findHits(i, ray, maxDis, hits);
         }
-        return leftIntersections == null ? rightIntersections : leftIntersections;
     }
 
-    double evaluateSAH(Function<Intersectable, Double> func, double pos){
-        Geometries left = new Geometries(), right = new Geometries();
-        for(Intersectable i:geometries.bodies){
-            if(func.apply(i) < pos){
-                left.add(i);
-            }else{
-                right.add(i);
+    @Override
+    protected boolean findClosestHitHelper(Ray ray, double maxDis, HitBuffer hits) {
+        // a hit is found only up to the kept one, so a new hit replaces it
+        int start = hits.size();
+        for (Intersectable body : unbounded) {
+            if (body.findClosestHit(ray, maxDis, hits)) {
+                hits.keep(hits.size() - 1, start);
+                maxDis = hits.getDistance(start);
+            }
+        }
+        if (nodeCount == 0) return hits.size() > start;
+
+        Point p0 = ray.getP0();
+        Vector dir = ray.getDir();
+        double[] origin = {p0.getX(), p0.getY(), p0.getZ()};
+        double[] invDir = {1 / dir.getX(), 1 / dir.getY(), 1 / dir.getZ()};
+
+        // nodes are pushed with their entry distance, so subtrees beyond the closest hit are pruned
+        int[] stack = new int[depth];
+        double[] entries = new double[depth];
+        int size = 0;
+        double rootEntry = entryDistance(0, origin, invDir, maxDis);
+        if (rootEntry == Double.POSITIVE_INFINITY) return hits.size() > start;
+        stack[size] = 0;
+        entries[size++] = rootEntry;
+        while (size > 0) {
+            int node = stack[--size];
+            if (entries[size] > maxDis) continue;
+            int count = nodes[2 * node + 1];
+            if (count == 0) {
+                size = pushChildren(node, origin, invDir, maxDis, stack, entries, size);
+                continue;
+            }
+            for (int i = nodes[2 * node], end = i + count; i < end; i++) {
+                if (findClosestHit(i, ray, maxDis, hits)) {
+                    hits.keep(hits.size() - 1, start);
+                    maxDis = hits.getDistance(start);
+                }
             }
         }
-        double cost = left.bodies.size() * AABBArea(left) + right.bodies.size() * AABBArea(right);
-        return cost > 0 ? cost : Double.POSITIVE_INFINITY;
+        return hits.size() > start;
     }
 
-    double AABBArea(Geometries geometries){
-        if (geometries.bodies.size() == 0)
-            return Double.POSITIVE_INFINITY;
-        geometries.findMinMaxCenter();
-        Point extent = geometries.getMaxABBA().subtract(geometries.getMinABBA());
-        return extent.getX() * extent.getY() + extent.getY() * extent.getZ() + extent.getZ() * extent.getX();
+    @Override
+    protected void findClosestGeoIntersectionsHelper(RayPacket packet, boolean[] active, double[] maxDis, GeoPoint[] hits) {
+        for (Intersectable body : unbounded)
+            body.findClosestGeoIntersections(packet, active, maxDis, hits);
+        int n = packet.size();
+        if (nodeCount == 0 || n == 0) return;
+
+        PacketScratch scratch = PacketScratch.acquire(n, depth);
+        try {
+            findClosestGeoIntersections(packet, active, maxDis, hits, scratch);
+        } finally {
+            scratch.release();
+        }
     }
 
-    double[] decideHowToSplitBySAH(){
+    /**
+     * Packet traversal of the tree, on scratch arrays that fit the packet and the tree depth
+     *
+     * @param packet  the rays
+     * @param active  which rays of the packet take part in the query
+     * @param maxDis  the max distance of every ray, updated to the distance of its new hit
+     * @param hits    the closest hit of every ray so far, updated with the new hits
+     * @param scratch the scratch arrays
+     */
+    private void findClosestGeoIntersections(RayPacket packet, boolean[] active, double[] maxDis, GeoPoint[] hits,
+                                             PacketScratch scratch) {
+        int n = packet.size();
+        double[] invX = scratch.invX, invY = scratch.invY, invZ = scratch.invZ;
+        // the children are ordered by the mean direction of the packet rays
+        double meanX = 0, meanY = 0, meanZ = 0;
+        for (int k = 0; k < n; k++) {
+            invX[k] = 1 / packet.dx[k];
+            invY[k] = 1 / packet.dy[k];
+            invZ[k] = 1 / packet.dz[k];
+            if (active[k]) {
+                meanX += packet.dx[k];
+                meanY += packet.dy[k];
+                meanZ += packet.dz[k];
+            }
+        }
 
+        // the active mask of every stack entry is kept as the list of the rays that entered the parent
+        // of its node, so the rays that left the path of the packet cost nothing
+        int[] stack = scratch.stack, counts = scratch.counts;
+        int[][] rays = scratch.rays;
+        double[] distances = scratch.distances;
+        IntersectionKernels kernels = IntersectionKernels.get();
+        counts[0] = 0;
+        for (int k = 0; k < n; k++)
+            if (active[k]) rays[0][counts[0]++] = k;
+        stack[0] = 0;
+        int size = counts[0] == 0 ? 0 : 1;
+        while (size > 0) {
+            int node = stack[--size];
+            int[] list = rays[size];
+            // the node bounds are fetched once and tested against the rays of the entry with their
+            // current distances, so subtrees beyond the closest hits are pruned
+            int b = 6 * node;
+            int entered = kernels.enterBox(nodeBounds[b], nodeBounds[b + 1], nodeBounds[b + 2], nodeBounds[b + 3],
+                    nodeBounds[b + 4], nodeBounds[b + 5], packet, invX, invY, invZ, maxDis, list, counts[size]);
+            if (entered == 0) continue;
 
-        int bestAxis = -1;
-        double bestPos = 0, bestCost = Double.POSITIVE_INFINITY;
-        for( int axis = 0; axis < 3; axis++ ){
-            for(Intersectable i:geometries.bodies){
-                double candidatePos = axises.get(axis).apply(i);
-                double cost = evaluateSAH(axises.get(axis), candidatePos);
-                if (cost < bestCost) {
-                    bestPos = candidatePos;
-                    bestAxis = axis;
-                    bestCost = cost;
+            int count = nodes[2 * node + 1];
+            if (count == 0) {
+                int near = node + 1, far = nodes[2 * node];
+                // the packet rays are coherent - the child whose center is ahead along the mean direction
+                // is visited last
+                int n0 = 6 * near, f0 = 6 * far;
+                double dx = nodeBounds[f0] + nodeBounds[f0 + 3] - nodeBounds[n0] - nodeBounds[n0 + 3];
+                double dy = nodeBounds[f0 + 1] + nodeBounds[f0 + 4] - nodeBounds[n0 + 1] - nodeBounds[n0 + 4];
+                double dz = nodeBounds[f0 + 2] + nodeBounds[f0 + 5] - nodeBounds[n0 + 2] - nodeBounds[n0 + 5];
+                if (dx * meanX + dy * meanY + dz * meanZ < 0) {
+                    near = far;
+                    far = node + 1;
                 }
+                stack[size] = far;
+                stack[size + 1] = near;
+                System.arraycopy(list, 0, rays[size + 1], 0, entered);
+                counts[size] = counts[size + 1] = entered;
+                size += 2;
+                continue;
             }
+            for (int i = nodes[2 * node], end = i + count; i < end; i++) {
+                if (primIds[i] >= 0) {
+                    ((TriangleMesh) primitives[i]).findTriangleIntersections(primIds[i], packet, maxDis, list, entered,
+                            hits, distances);
+                    continue;
+                }
+                for (int r = 0; r < entered; r++) {
+                    int k = list[r];
+                    Ray ray = packet.getRay(k);
+                    var temp = findClosestGeoIntersection(i, ray, maxDis[k]);
+                    if (temp != null) {
+                        hits[k] = temp;
+                        maxDis[k] = temp.t;
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    protected Double3 findTransparencyHelper(Ray ray, double maxDis, Double3 ktr, double minK) {
+        for (Intersectable body : unbounded) {
+            ktr = body.findTransparency(ray, maxDis, ktr, minK);
+            if (ktr.lowerThan(minK)) return Double3.ZERO;
+        }
+        if (nodeCount == 0) return ktr;
+
+        Point p0 = ray.getP0();
+        Vector dir = ray.getDir();
+        double[] origin = {p0.getX(), p0.getY(), p0.getZ()};
+        double[] invDir = {1 / dir.getX(), 1 / dir.getY(), 1 / dir.getZ()};
+
+        int[] stack = new int[depth];
+        double[] entries = new double[depth];
+        int size = 0;
+        if (entryDistance(0, origin, invDir, maxDis) != Double.POSITIVE_INFINITY) stack[size++] = 0;
+        while (size > 0) {
+            int node = stack[--size];
+            int count = nodes[2 * node + 1];
+            if (count == 0) {
+                size = pushChildren(node, origin, invDir, maxDis, stack, entries, size);
+                continue;
+            }
+            for (int i = nodes[2 * node], end = i + count; i < end; i++) {
+                ktr = findTransparency(i, ray, maxDis, ktr, minK);
+                if (ktr.lowerThan(minK)) return Double3.ZERO;
+            }
+        }
+        return ktr;
+    }
+
+    /**
+     * Scratch arrays of the packet traversal - kept per thread and grown as needed, so a packet query
+     * allocates nothing once the arrays fit its packet and the tree depth
+     */
+    private static final class PacketScratch {
+        /**
+         * The scratch of every thread
+         */
+        private static final ThreadLocal<PacketScratch> LOCAL = ThreadLocal.withInitial(PacketScratch::new);
+
+        /**
+         * The inverse of the rays direction coordinates
+         */
+        double[] invX = new double[0], invY = new double[0], invZ = new double[0];
+        /**
+         * The distances of the intersections of a triangle
+         */
+        double[] distances = new double[0];
+        /**
+         * The nodes of the traversal stack and the amount of rays of every entry
+         */
+        int[] stack = new int[0], counts = new int[0];
+        /**
+         * The rays of every stack entry
+         */
+        int[][] rays = new int[0][];
+        /**
+         * Whether a query uses the scratch
+         */
+        private boolean inUse = false;
+
+        /**
+         * The scratch of the current thread, or a new one if a query of the thread already uses it
+         *
+         * @param n     the amount of rays of the packet
+         * @param depth the depth of the tree
+         * @return the scratch, to {@link #release()} at the end of the query
+         */
+        static PacketScratch acquire(int n, int depth) {
+            PacketScratch scratch = LOCAL.get();
+            if (scratch.inUse) scratch = new PacketScratch();
+            scratch.inUse = true;
+            if (scratch.invX.length < n) {
+                scratch.invX = new double[n];
+                scratch.invY = new double[n];
+                scratch.invZ = new double[n];
+                scratch.distances = new double[n];
+            }
+            if (scratch.stack.length < depth) {
+                scratch.stack = new int[depth];
+                scratch.counts = new int[depth];
+                scratch.rays = Arrays.copyOf(scratch.rays, depth);
+            }
+            for (int d = 0; d < depth; d++)
+                if (scratch.rays[d] == null || scratch.rays[d].length < n) scratch.rays[d] = new int[n];
+            return scratch;
+        }
+
+        /**
+         * Ends the use of the scratch by a query
+         */
+        void release() {
+            inUse = false;
         }
-        return new double[]{bestAxis, bestPos};
     }
-}
\ No newline at end of file
+}
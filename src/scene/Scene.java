@@ -5,16 +5,22 @@ import geometries.Intersectable;
 import lighting.AmbientLight;
 import lighting.LightSource;
 import primitives.Color;
+import primitives.Double3;
+import primitives.Ray;
 
+import java.io.Serializable;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 
 /**
  * A scene containing a name, background color, ambient light, and a collection of geometries.
  */
-public class Scene {
+public class Scene implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     /**
-     * AABB tree root
+     * Bounding volume hierarchy over the geometries
      */
     AABB root = null;
     /**
@@ -22,25 +28,33 @@ public class Scene {
      */
     boolean BVHActive = false;
     /**
-     * The lights in the scene.
+     * Whether the scene is frozen - see {@link #freeze()}
+     */
+    private boolean frozen = false;
+    /**
+     * The lights in the scene - see {@link #getLights()}
+     */
+    private List<LightSource> lights = new LinkedList<>();
+    /**
+     * Unmodifiable view of the lights, kept so the shading doesn't wrap them on every hit
      */
-    public List<LightSource> lights = new LinkedList<>();
+    private List<LightSource> lightsView = Collections.unmodifiableList(lights);
     /**
      * The name of the scene.
      */
-    public String name;
+    private final String name;
     /**
      * The background color of the scene.
      */
-    public Color background = Color.BLACK;
+    private Color background = Color.BLACK;
     /**
      * The ambient light of the scene.
      */
-    public AmbientLight ambientLight = AmbientLight.NONE;
+    private AmbientLight ambientLight = AmbientLight.NONE;
     /**
-     * The geometries in the scene.
+     * The geometries in the scene - see {@link #getGeometries()}
      */
-    public Geometries geometries = new Geometries();
+    Geometries geometries = new Geometries();
 
     /**
      * Constructs a new Scene object with the specified name.
@@ -51,13 +65,36 @@ public class Scene {
         this.name = name;
     }
 
+    /**
+     * @return the name of the scene
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the background color of the scene
+     */
+    public Color getBackground() {
+        return background;
+    }
+
+    /**
+     * @return the ambient light of the scene
+     */
+    public AmbientLight getAmbientLight() {
+        return ambientLight;
+    }
+
     /**
      * Sets the background color of the scene.
      *
      * @param background The new background color.
      * @return This Scene object.
+     * @throws IllegalStateException if the scene is frozen
      */
     public Scene setBackground(Color background) {
+        checkNotFrozen();
         this.background = background;
         return this;
     }
@@ -67,8 +104,10 @@ public class Scene {
      *
      * @param ambientLight The new ambient light.
      * @return This Scene object.
+     * @throws IllegalStateException if the scene is frozen
      */
     public Scene setAmbientLight(AmbientLight ambientLight) {
+        checkNotFrozen();
         this.ambientLight = ambientLight;
         return this;
     }
@@ -78,8 +117,10 @@ public class Scene {
      *
      * @param geometries The new geometries.
      * @return This Scene object.
+     * @throws IllegalStateException if the scene is frozen
      */
     public Scene setGeometries(Geometries geometries) {
+        checkNotFrozen();
         this.geometries = geometries;
         return this;
     }
@@ -88,25 +129,137 @@ public class Scene {
      *
      * @param lights The new lights.
      * @return This Scene object.
+     * @throws IllegalStateException if the scene is frozen
      */
     public Scene setLights(List<LightSource> lights) {
+        checkNotFrozen();
         this.lights = lights;
+        lightsView = Collections.unmodifiableList(lights);
+        return this;
+    }
+
+    /**
+     * Adds geometries to the scene.
+     *
+     * @param geometries The geometries to add.
+     * @return This Scene object.
+     * @throws IllegalStateException if the scene is frozen
+     */
+    public Scene addGeometries(Intersectable... geometries) {
+        checkNotFrozen();
+        this.geometries.add(geometries);
+        return this;
+    }
+
+    /**
+     * Adds lights to the scene.
+     *
+     * @param lights The lights to add.
+     * @return This Scene object.
+     * @throws IllegalStateException if the scene is frozen
+     */
+    public Scene addLights(LightSource... lights) {
+        checkNotFrozen();
+        Collections.addAll(this.lights, lights);
         return this;
     }
 
     /**
-     * Activate BVH
+     * @return the lights in the scene, unmodifiable
+     */
+    public List<LightSource> getLights() {
+        return lightsView;
+    }
+
+    /**
+     * Activate BVH - builds the hierarchy over the current geometries once
      *
      * @return This Scene object.
      */
     public Scene activateBVH(){
+        return activateBVH(AABB.BuildStrategy.BINNED_SAH);
+    }
+
+    /**
+     * Activate BVH - builds the hierarchy over the current geometries once
+     *
+     * @param strategy the split strategy for building the hierarchy
+     * @return This Scene object.
+     */
+    public Scene activateBVH(AABB.BuildStrategy strategy){
         BVHActive = true;
-        root = new AABB(geometries).buildTree();
+        root = new AABB(geometries, strategy);
+        if (frozen) root.freeze();
+        return this;
+    }
+
+    /**
+     * Updates the BVH to bodies that moved since it was built, keeping its structure - see
+     * {@link AABB#refit()}. For a scene of instances it is the per-frame update of the top level
+     * tree; the trees of the instanced models are refitted first if their meshes moved.
+     *
+     * @return This Scene object.
+     * @throws IllegalStateException if the BVH is not active
+     */
+    public Scene refitBVH(){
+        if (!BVHActive) throw new IllegalStateException("BVH is not active");
+        root.refit();
         return this;
     }
 
+    /**
+     * Freezes the scene before rendering - the geometries compute and keep their bounds once (a frozen
+     * collection is not visited again for its bounds, e.g. by a BVH build), and the scene and its
+     * geometries reject any change afterwards: the setters, adding geometries, moving instances and
+     * meshes, and refitting the BVH. A BVH activated after the freeze is built on the kept bounds.
+     * The lights list becomes unmodifiable.
+     *
+     * @return This Scene object.
+     */
+    public Scene freeze(){
+        if (frozen) return this;
+        geometries.freeze();
+        if (BVHActive) root.freeze();
+        lights = lightsView = List.copyOf(lights);
+        frozen = true;
+        return this;
+    }
+
+    /**
+     * @return true if the scene is frozen
+     */
+    public boolean isFrozen(){
+        return frozen;
+    }
+
+    /**
+     * Rejects a change of a frozen scene
+     *
+     * @throws IllegalStateException if the scene is frozen
+     */
+    private void checkNotFrozen(){
+        if (frozen) throw new IllegalStateException("Can't change a frozen scene");
+    }
+
+    /**
+     * @return the geometries to intersect - the BVH if it is active, the geometries otherwise
+     */
     public Intersectable getGeometries(){
         return BVHActive ? root : geometries;
     }
 
+    /**
+     * Occlusion query for shadow rays - the transparency of the geometries along the ray up to the given distance.
+     * The query stops at the first opaque hit, and walks on through transparent ones only while the
+     * accumulated transparency is not below minK.
+     *
+     * @param ray    the shadow ray
+     * @param maxDis the distance to the light source
+     * @param minK   the transparency below which the ray is considered blocked
+     * @return the transparency along the ray, Double3.ZERO if it is blocked
+     */
+    public Double3 findTransparency(Ray ray, double maxDis, double minK){
+        return getGeometries().findTransparency(ray, maxDis, minK);
+    }
+
 }
\ No newline at end of file
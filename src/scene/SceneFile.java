@@ -0,0 +1,493 @@
+package scene;
+
+import geometries.*;
+import lighting.AmbientLight;
+import lighting.DirectionalLight;
+import lighting.LightSource;
+import lighting.PointLight;
+import lighting.SpotLight;
+import primitives.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary scene file - the scene tables in flat arrays, loaded by memory-mapping the file.
+ * <p>
+ * The file is little endian and has three parts: a header, a section of doubles and a section of ints.
+ * <ul>
+ * <li>header: magic, version, name length (in bytes) and the amounts of materials, lights, geometries,
+ * geometry parameters, mesh vertex values and mesh index values, padded to {@value #HEADER_BYTES} bytes</li>
+ * <li>doubles: background and ambient light, the material table ({@value #MATERIAL_STRIDE} values per
+ * material), the light table ({@value #LIGHT_STRIDE} values per light), the geometry parameters (the
+ * emission and the shape of every geometry) and the mesh vertices</li>
+ * <li>ints: the light types, the geometry table ({@value #GEOMETRY_STRIDE} values per geometry) and the
+ * mesh indices, followed by the scene name in UTF-8</li>
+ * </ul>
+ * The vertices and indices of a mesh are copied from the mapped file into the mesh arrays in one bulk
+ * copy each, so loading a mesh does not allocate an object per vertex or per triangle. Nested
+ * {@link Geometries} collections are flattened, and materials shared by geometries are written once.
+ * The BVH is not stored - it is built on the loaded scene by {@link Scene#activateBVH()}.
+ *
+ * @author Raz
+ */
+public final class SceneFile {
+    /**
+     * The first int of a scene file - "RTSC"
+     */
+    private static final int MAGIC = 0x43535452;
+    /**
+     * The version of the format
+     */
+    private static final int VERSION = 1;
+    /**
+     * Size of the header, a multiple of 8 so the doubles are aligned
+     */
+    private static final int HEADER_BYTES = 40;
+    /**
+     * Amount of doubles before the material table - background and ambient light
+     */
+    private static final int SCENE_DOUBLES = 6;
+    /**
+     * Doubles per material - kD, kS, kT, kR and shininess
+     */
+    private static final int MATERIAL_STRIDE = 13;
+    /**
+     * Doubles per light - intensity, position, direction, kC, kL, kQ and narrow beam
+     */
+    private static final int LIGHT_STRIDE = 13;
+    /**
+     * Ints per geometry - type, material, parameters offset and length, vertices offset and length,
+     * indices offset and length
+     */
+    private static final int GEOMETRY_STRIDE = 8;
+
+    /**
+     * Light types
+     */
+    private static final int DIRECTIONAL = 0, POINT = 1, SPOT = 2;
+    /**
+     * Geometry types
+     */
+    private static final int SPHERE = 0, TRIANGLE = 1, POLYGON = 2, PLANE = 3, TUBE = 4, CYLINDER = 5, MESH = 6;
+
+    private SceneFile() {
+    }
+
+    /**
+     * Writes a scene to a file
+     *
+     * @param scene the scene
+     * @param path  the file
+     * @throws IOException              if the file can't be written
+     * @throws IllegalArgumentException if a geometry or light has no record type in the format, or the
+     *                                  scene is too large for a file
+     */
+    public static void write(Scene scene, Path path) throws IOException {
+        List<Geometry> geometries = new ArrayList<>();
+        flatten(scene.geometries, geometries);
+        Map<Material, Integer> materialIndex = new IdentityHashMap<>();
+        List<Material> materials = new ArrayList<>();
+        long params = 0, vertices = 0, indices = 0;
+        for (Geometry geometry : geometries) {
+            if (materialIndex.putIfAbsent(geometry.getMaterial(), materials.size()) == null)
+                materials.add(geometry.getMaterial());
+            params += paramsLength(geometry);
+            if (geometry instanceof TriangleMesh mesh) {
+                vertices += mesh.getVertices().length;
+                indices += mesh.getIndices().length;
+            }
+        }
+        for (LightSource light : scene.getLights())
+            lightType(light);
+        byte[] name = scene.getName() == null ? new byte[0] : scene.getName().getBytes(StandardCharsets.UTF_8);
+
+        long doublesLength = SCENE_DOUBLES + (long) MATERIAL_STRIDE * materials.size()
+                + (long) LIGHT_STRIDE * scene.getLights().size() + params + vertices;
+        long intsLength = scene.getLights().size() + (long) GEOMETRY_STRIDE * geometries.size() + indices;
+        long size = HEADER_BYTES + 8 * doublesLength + 4 * intsLength + name.length;
+        if (size > Integer.MAX_VALUE) throw new IllegalArgumentException("Scene is too large for a scene file");
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(name.length).putInt(materials.size())
+                    .putInt(scene.getLights().size()).putInt(geometries.size())
+                    .putInt((int) params).putInt((int) vertices).putInt((int) indices);
+
+            DoubleBuffer doubles = section(buffer, HEADER_BYTES, 8 * (int) doublesLength).asDoubleBuffer();
+            put(doubles, scene.getBackground());
+            put(doubles, scene.getAmbientLight().getIntensity());
+            for (Material material : materials) {
+                put(doubles, material.kD);
+                put(doubles, material.kS);
+                put(doubles, material.kT);
+                put(doubles, material.kR);
+                doubles.put(material.nShininess);
+            }
+            for (LightSource light : scene.getLights())
+                putLight(doubles, light);
+            for (Geometry geometry : geometries)
+                putParams(doubles, geometry);
+            for (Geometry geometry : geometries)
+                if (geometry instanceof TriangleMesh mesh) doubles.put(mesh.getVertices());
+
+            IntBuffer ints = section(buffer, HEADER_BYTES + 8 * (int) doublesLength, 4 * (int) intsLength).asIntBuffer();
+            for (LightSource light : scene.getLights())
+                ints.put(lightType(light));
+            int paramsOffset = 0, verticesOffset = 0, indicesOffset = 0;
+            for (Geometry geometry : geometries) {
+                int paramsLength = paramsLength(geometry), verticesLength = 0, indicesLength = 0;
+                if (geometry instanceof TriangleMesh mesh) {
+                    verticesLength = mesh.getVertices().length;
+                    indicesLength = mesh.getIndices().length;
+                }
+                ints.put(geometryType(geometry)).put(materialIndex.get(geometry.getMaterial()))
+                        .put(paramsOffset).put(paramsLength).put(verticesOffset).put(verticesLength)
+                        .put(indicesOffset).put(indicesLength);
+                paramsOffset += paramsLength;
+                verticesOffset += verticesLength;
+                indicesOffset += indicesLength;
+            }
+            for (Geometry geometry : geometries)
+                if (geometry instanceof TriangleMesh mesh) ints.put(mesh.getIndices());
+
+            buffer.position((int) (size - name.length));
+            buffer.put(name);
+            buffer.force();
+        }
+    }
+
+    /**
+     * Reads a scene from a file. The geometries are added to the scene flat, in the order they were
+     * written.
+     *
+     * @param path the file
+     * @return the scene
+     * @throws IOException              if the file can't be read
+     * @throws IllegalArgumentException if the file is not a scene file of this version, or it is corrupt
+     */
+    public static Scene read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE)
+                throw new IllegalArgumentException("Not a scene file: " + path);
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt(0) != MAGIC) throw new IllegalArgumentException("Not a scene file: " + path);
+            if (buffer.getInt(4) != VERSION)
+                throw new IllegalArgumentException("Unsupported scene file version " + buffer.getInt(4));
+            int nameLength = buffer.getInt(8), materialsCount = buffer.getInt(12), lightsCount = buffer.getInt(16),
+                    geometriesCount = buffer.getInt(20), paramsLength = buffer.getInt(24),
+                    verticesLength = buffer.getInt(28), indicesLength = buffer.getInt(32);
+            if ((nameLength | materialsCount | lightsCount | geometriesCount | paramsLength | verticesLength
+                    | indicesLength) < 0)
+                throw corrupt(path);
+            long doublesLength = SCENE_DOUBLES + (long) MATERIAL_STRIDE * materialsCount
+                    + (long) LIGHT_STRIDE * lightsCount + paramsLength + verticesLength;
+            long intsLength = lightsCount + (long) GEOMETRY_STRIDE * geometriesCount + indicesLength;
+            if (HEADER_BYTES + 8 * doublesLength + 4 * intsLength + nameLength != size) throw corrupt(path);
+
+            DoubleBuffer doubles = section(buffer, HEADER_BYTES, 8 * (int) doublesLength).asDoubleBuffer();
+            IntBuffer ints = section(buffer, HEADER_BYTES + 8 * (int) doublesLength, 4 * (int) intsLength).asIntBuffer();
+            byte[] name = new byte[nameLength];
+            buffer.get((int) (size - nameLength), name);
+
+            Scene scene = new Scene(new String(name, StandardCharsets.UTF_8))
+                    .setBackground(color(doubles, 0))
+                    .setAmbientLight(new AmbientLight(color(doubles, 3), 1));
+
+            Material[] materials = new Material[materialsCount];
+            for (int i = 0, d = SCENE_DOUBLES; i < materialsCount; i++, d += MATERIAL_STRIDE)
+                materials[i] = new Material().setKd(double3(doubles, d)).setKs(double3(doubles, d + 3))
+                        .setkT(double3(doubles, d + 6)).setkR(double3(doubles, d + 9))
+                        .setShininess((int) doubles.get(d + 12));
+
+            int lights = SCENE_DOUBLES + MATERIAL_STRIDE * materialsCount;
+            for (int i = 0, d = lights; i < lightsCount; i++, d += LIGHT_STRIDE)
+                scene.addLights(readLight(ints.get(i), doubles, d, path));
+
+            int params = lights + LIGHT_STRIDE * lightsCount, vertices = params + paramsLength;
+            int indices = lightsCount + GEOMETRY_STRIDE * geometriesCount;
+            for (int i = 0, r = lightsCount; i < geometriesCount; i++, r += GEOMETRY_STRIDE) {
+                int material = ints.get(r + 1), paramsOffset = ints.get(r + 2), length = ints.get(r + 3);
+                if (material < 0 || material >= materialsCount
+                        || !inRange(paramsOffset, length, paramsLength)
+                        || !inRange(ints.get(r + 4), ints.get(r + 5), verticesLength)
+                        || !inRange(ints.get(r + 6), ints.get(r + 7), indicesLength))
+                    throw corrupt(path);
+                if (length < 3) throw corrupt(path);
+
+                Geometry geometry;
+                if (ints.get(r) == MESH) {
+                    double[] meshVertices = new double[ints.get(r + 5)];
+                    doubles.get(vertices + ints.get(r + 4), meshVertices);
+                    int[] meshIndices = new int[ints.get(r + 7)];
+                    ints.get(indices + ints.get(r + 6), meshIndices);
+                    geometry = new TriangleMesh(meshVertices, meshIndices);
+                } else geometry = readShape(ints.get(r), doubles, params + paramsOffset + 3, length - 3, path);
+                scene.addGeometries(geometry.setEmission(color(doubles, params + paramsOffset))
+                        .setMaterial(materials[material]));
+            }
+            return scene;
+        }
+    }
+
+    /**
+     * Adds the geometries of a collection to a flat list, with the geometries of its nested collections
+     *
+     * @param geometries the collection
+     * @param flat       the list
+     */
+    private static void flatten(Geometries geometries, List<Geometry> flat) {
+        for (Intersectable body : geometries.getBodies()) {
+            if (body instanceof Geometries nested) flatten(nested, flat);
+            else if (body instanceof Geometry geometry) flat.add(geometry);
+            else throw new IllegalArgumentException("No scene file record for " + body.getClass().getSimpleName());
+        }
+    }
+
+    /**
+     * The record type of a geometry
+     *
+     * @param geometry the geometry
+     * @return the type
+     * @throws IllegalArgumentException if the geometry has no record type
+     */
+    private static int geometryType(Geometry geometry) {
+        if (geometry instanceof Sphere) return SPHERE;
+        if (geometry instanceof Triangle) return TRIANGLE;
+        if (geometry instanceof Polygon) return POLYGON;
+        if (geometry instanceof Plane) return PLANE;
+        if (geometry instanceof Cylinder) return CYLINDER;
+        if (geometry instanceof Tube) return TUBE;
+        if (geometry instanceof TriangleMesh) return MESH;
+        throw new IllegalArgumentException("No scene file record for " + geometry.getClass().getSimpleName());
+    }
+
+    /**
+     * The record type of a light
+     *
+     * @param light the light
+     * @return the type
+     * @throws IllegalArgumentException if the light has no record type
+     */
+    private static int lightType(LightSource light) {
+        if (light instanceof SpotLight) return SPOT;
+        if (light instanceof PointLight) return POINT;
+        if (light instanceof DirectionalLight) return DIRECTIONAL;
+        throw new IllegalArgumentException("No scene file record for " + light.getClass().getSimpleName());
+    }
+
+    /**
+     * The amount of parameters of a geometry - its emission and its shape
+     *
+     * @param geometry the geometry
+     * @return the amount of doubles
+     */
+    private static int paramsLength(Geometry geometry) {
+        return 3 + switch (geometryType(geometry)) {
+            case SPHERE -> 4;
+            case TRIANGLE, POLYGON -> 3 * ((Polygon) geometry).getVertices().size();
+            case PLANE -> 6;
+            case TUBE -> 7;
+            case CYLINDER -> 8;
+            default -> 0;
+        };
+    }
+
+    /**
+     * Writes the parameters of a geometry - its emission and its shape
+     *
+     * @param doubles the doubles section
+     * @param geometry the geometry
+     */
+    private static void putParams(DoubleBuffer doubles, Geometry geometry) {
+        put(doubles, geometry.getEmission());
+        switch (geometryType(geometry)) {
+            case SPHERE -> {
+                put(doubles, ((Sphere) geometry).getCenter());
+                doubles.put(((Sphere) geometry).getRadius());
+            }
+            case TRIANGLE, POLYGON -> {
+                for (Point vertex : ((Polygon) geometry).getVertices())
+                    put(doubles, vertex);
+            }
+            case PLANE -> {
+                put(doubles, ((Plane) geometry).getP0());
+                put(doubles, ((Plane) geometry).getNormal());
+            }
+            case TUBE, CYLINDER -> {
+                Tube tube = (Tube) geometry;
+                put(doubles, tube.getAxisRay().getP0());
+                put(doubles, tube.getAxisRay().getDir());
+                doubles.put(tube.getRadius());
+                if (tube instanceof Cylinder cylinder) doubles.put(cylinder.getHeight());
+            }
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Reads the shape of a geometry that is not a mesh
+     *
+     * @param type    the geometry type
+     * @param doubles the doubles section
+     * @param d       the position of the shape parameters
+     * @param length  the amount of shape parameters
+     * @param path    the file, for the error message
+     * @return the geometry, without emission and material
+     */
+    private static Geometry readShape(int type, DoubleBuffer doubles, int d, int length, Path path) {
+        switch (type) {
+            case SPHERE:
+                if (length == 4) return new Sphere(doubles.get(d + 3), point(doubles, d));
+                break;
+            case TRIANGLE:
+                if (length == 9) return new Triangle(point(doubles, d), point(doubles, d + 3), point(doubles, d + 6));
+                break;
+            case POLYGON:
+                if (length % 3 == 0) {
+                    Point[] vertices = new Point[length / 3];
+                    for (int i = 0; i < vertices.length; i++)
+                        vertices[i] = point(doubles, d + 3 * i);
+                    return new Polygon(vertices);
+                }
+                break;
+            case PLANE:
+                if (length == 6) return new Plane(point(doubles, d), vector(doubles, d + 3));
+                break;
+            case TUBE:
+                if (length == 7) return new Tube(doubles.get(d + 6), new Ray(point(doubles, d), vector(doubles, d + 3)));
+                break;
+            case CYLINDER:
+                if (length == 8)
+                    return new Cylinder(new Ray(point(doubles, d), vector(doubles, d + 3)), doubles.get(d + 6),
+                            doubles.get(d + 7));
+                break;
+            default:
+                break;
+        }
+        throw corrupt(path);
+    }
+
+    /**
+     * Writes the parameters of a light
+     *
+     * @param doubles the doubles section
+     * @param light   the light
+     */
+    private static void putLight(DoubleBuffer doubles, LightSource light) {
+        Point position = Point.ZERO;
+        Vector direction = null;
+        double kC = 1, kL = 0, kQ = 0, narrowBeam = 1;
+        if (light instanceof PointLight point) {
+            position = point.getPosition();
+            kC = point.getkC();
+            kL = point.getkL();
+            kQ = point.getkQ();
+        }
+        if (light instanceof SpotLight spot) {
+            direction = spot.getDirection();
+            narrowBeam = spot.getNarrowBeam();
+        }
+        if (light instanceof DirectionalLight directional) direction = directional.getDirection();
+
+        put(doubles, light.getIntensity());
+        put(doubles, position);
+        if (direction == null) doubles.put(0).put(0).put(0);
+        else put(doubles, direction);
+        doubles.put(kC).put(kL).put(kQ).put(narrowBeam);
+    }
+
+    /**
+     * Reads a light
+     *
+     * @param type    the light type
+     * @param doubles the doubles section
+     * @param d       the position of the light parameters
+     * @param path    the file, for the error message
+     * @return the light
+     */
+    private static LightSource readLight(int type, DoubleBuffer doubles, int d, Path path) {
+        Color intensity = color(doubles, d);
+        return switch (type) {
+            case DIRECTIONAL -> new DirectionalLight(intensity, vector(doubles, d + 6));
+            case POINT -> new PointLight(intensity, point(doubles, d + 3))
+                    .setkC(doubles.get(d + 9)).setkL(doubles.get(d + 10)).setkQ(doubles.get(d + 11));
+            case SPOT -> new SpotLight(intensity, point(doubles, d + 3), vector(doubles, d + 6))
+                    .setkC(doubles.get(d + 9)).setkL(doubles.get(d + 10)).setkQ(doubles.get(d + 11))
+                    .setNarrowBeam(doubles.get(d + 12));
+            default -> throw corrupt(path);
+        };
+    }
+
+    /**
+     * A little endian section of the file
+     *
+     * @param buffer the file
+     * @param offset the first byte of the section
+     * @param length the amount of bytes in the section
+     * @return the section
+     */
+    private static ByteBuffer section(ByteBuffer buffer, int offset, int length) {
+        return buffer.slice(offset, length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Whether a range of values is inside a section
+     *
+     * @param offset  the first value of the range
+     * @param length  the amount of values in the range
+     * @param section the amount of values in the section
+     * @return true if the range is inside the section
+     */
+    private static boolean inRange(int offset, int length, int section) {
+        return offset >= 0 && length >= 0 && (long) offset + length <= section;
+    }
+
+    private static IllegalArgumentException corrupt(Path path) {
+        return new IllegalArgumentException("Corrupt scene file: " + path);
+    }
+
+    private static void put(DoubleBuffer doubles, Double3 values) {
+        doubles.put(values.getD1()).put(values.getD2()).put(values.getD3());
+    }
+
+    private static void put(DoubleBuffer doubles, Color color) {
+        doubles.put(color.getRed()).put(color.getGreen()).put(color.getBlue());
+    }
+
+    private static void put(DoubleBuffer doubles, Point point) {
+        doubles.put(point.getX()).put(point.getY()).put(point.getZ());
+    }
+
+    private static Double3 double3(DoubleBuffer doubles, int d) {
+        return new Double3(doubles.get(d), doubles.get(d + 1), doubles.get(d + 2));
+    }
+
+    private static Color color(DoubleBuffer doubles, int d) {
+        return new Color(doubles.get(d), doubles.get(d + 1), doubles.get(d + 2));
+    }
+
+    private static Point point(DoubleBuffer doubles, int d) {
+        return new Point(doubles.get(d), doubles.get(d + 1), doubles.get(d + 2));
+    }
+
+    private static Vector vector(DoubleBuffer doubles, int d) {
+        return new Vector(doubles.get(d), doubles.get(d + 1), doubles.get(d + 2));
+    }
+}
@@ -1,9 +1,12 @@
 package geometries;
 import org.junit.jupiter.api.Test;
+import primitives.Double3;
 import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -42,4 +45,61 @@ public class GeometriesTests {
 
         assertEquals(4, geometries.findIntersections(new Ray(new Point(0.5,0,-1), new Vector(0,0,1))).size(), "Wrong number of points");
     }
+
+    /**
+     * Test method for {@link geometries.Geometries#findMinMaxCenter()}.
+     */
+    @Test
+    public void testFindMinMaxCenter() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The box of all the bodies
+        Geometries geometries = new Geometries(new Sphere(1, new Point(0, 0, 4)), new Sphere(2, new Point(3, 0, 0)));
+        geometries.findMinMaxCenter();
+        assertEquals(new Point(-1, -2, -2), geometries.getMinABBA(), "Wrong min point");
+        assertEquals(new Point(5, 2, 5), geometries.getMaxABBA(), "Wrong max point");
+        assertEquals(new Point(2, 0, 1.5), geometries.getCenterABBA(), "Wrong center");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: No bodies - no bounds
+        Geometries empty = new Geometries();
+        empty.findMinMaxCenter();
+        assertNull(empty.getMinABBA(), "Empty collection with bounds");
+        assertNull(empty.getCenterABBA(), "Empty collection with a center");
+    }
+
+    /**
+     * Test method for {@link geometries.Geometries#findTransparency(primitives.Ray, double, double)}.
+     */
+    @Test
+    public void testFindTransparency() {
+        // a body that blocks the rays by a computed zero, and a body that must not be queried after it
+        Intersectable blocker = new Intersectable() {
+            @Override
+            public void findMinMaxCenter() {
+            }
+
+            @Override
+            protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDis) {
+                return null;
+            }
+
+            @Override
+            protected Double3 findTransparencyHelper(Ray ray, double maxDis, Double3 ktr, double minK) {
+                return ktr.product(new Double3(0));
+            }
+        };
+        Intersectable unreachable = new Plane(Point.ZERO, new Vector(0, 0, 1)) {
+            @Override
+            protected Double3 findTransparencyHelper(Ray ray, double maxDis, Double3 ktr, double minK) {
+                fail("Queried a body after the ray was blocked");
+                return ktr;
+            }
+        };
+        Ray ray = new Ray(new Point(0, 0, 1), new Vector(0, 0, -1));
+
+        // =============== Boundary Values Tests ==================
+        // TC11: A computed zero transparency blocks the ray
+        assertEquals(Double3.ZERO, new Geometries(blocker, unreachable).findTransparency(ray, 10, 0.001),
+                "Wrong transparency");
+    }
 }
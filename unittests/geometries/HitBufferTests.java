@@ -0,0 +1,112 @@
+package geometries;
+
+import geometries.Intersectable.GeoPoint;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for geometries.HitBuffer class
+ *
+ * @author Raz
+ */
+class HitBufferTests {
+    /**
+     * A ray along the negative z axis
+     */
+    private final Ray ray = new Ray(Point.ZERO, new Vector(0, 0, -1));
+
+    /**
+     * Test method for {@link geometries.Intersectable#findHits(primitives.Ray, double, geometries.HitBuffer)}.
+     */
+    @Test
+    void testFindHits() {
+        HitBuffer hits = new HitBuffer(1);
+        Sphere sphere = new Sphere(1, new Point(0, 0, -5));
+        TriangleMesh mesh = new TriangleMesh(new double[]{-1, -1, -2, 1, -1, -2, 0, 1, -2}, new int[]{0, 1, 2});
+        Geometries geometries = new Geometries(sphere, mesh,
+                new Instance(sphere, Transform.translation(0, 0, -10)));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The records of the bodies after the current records, with their distances and primitive ids
+        hits.add(sphere, 100);
+        geometries.findHits(ray, Double.POSITIVE_INFINITY, hits);
+        assertEquals(6, hits.size(), "Wrong number of records");
+        assertEquals(100, hits.getDistance(0), "Changed a current record");
+        assertEquals(6, hits.getDistance(1), 1e-10, "Wrong far distance");
+        assertEquals(4, hits.getDistance(2), 1e-10, "Wrong near distance");
+        assertEquals(2, hits.getDistance(3), 1e-10, "Wrong mesh distance");
+        assertEquals(0, hits.getId(3), "Wrong triangle");
+        assertEquals(-1, hits.getId(1), "Wrong id of a single primitive");
+
+        // TC02: A hit is built on demand, once, by the geometry that was hit
+        GeoPoint gp = hits.getGeoPoint(3, ray);
+        assertEquals(2, gp.t, 1e-10, "Wrong distance");
+        assertEquals(new Point(0, 0, -2), gp.getPoint(), "Wrong point");
+        assertEquals(new Vector(0, 0, 1), gp.getNormal(), "Wrong mesh normal");
+        assertSame(gp, hits.getGeoPoint(3, ray), "Hit built twice");
+
+        // TC03: An instance hit is moved into the scene
+        assertEquals(16, hits.getDistance(4), 1e-10, "Wrong instance distance");
+        assertEquals(new Point(0, 0, -16), hits.getGeoPoint(4, ray).getPoint(), "Wrong instance hit");
+        assertSame(sphere, hits.getGeometry(4), "Wrong instance geometry");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: A closest query keeps a single record
+        hits.clear();
+        assertTrue(geometries.findClosestHit(ray, Double.POSITIVE_INFINITY, hits), "Missed the closest hit");
+        assertEquals(1, hits.size(), "Wrong number of records");
+        assertSame(mesh, hits.getGeometry(0), "Wrong closest geometry");
+
+        // TC12: No hit up to the max distance
+        hits.clear();
+        assertFalse(geometries.findClosestHit(ray, 1, hits), "Hit beyond the max distance");
+        assertEquals(0, hits.size(), "Wrong number of records");
+    }
+
+    /**
+     * Test method for {@link geometries.HitBuffer#keepClosest(int)}.
+     */
+    @Test
+    void testKeepClosest() {
+        HitBuffer hits = new HitBuffer();
+        Sphere a = new Sphere(1, Point.ZERO), b = new Sphere(2, Point.ZERO);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The closest record from the index on is moved to the index
+        hits.add(a, 1);
+        hits.add(a, 5);
+        hits.add(b, 3);
+        hits.add(a, 4);
+        assertEquals(3, hits.keepClosest(1), "Wrong closest distance");
+        assertEquals(2, hits.size(), "Wrong number of records");
+        assertSame(b, hits.getGeometry(1), "Wrong closest geometry");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: The first of equally close records
+        hits.add(a, 3);
+        hits.keepClosest(1);
+        assertSame(b, hits.getGeometry(1), "Wrong closest geometry");
+
+        // TC12: No records from the index
+        assertTrue(Double.isNaN(hits.keepClosest(2)), "Closest of no records");
+    }
+
+    /**
+     * The queries that use the buffer of the thread leave it as they found it
+     */
+    @Test
+    void testLocal() {
+        Geometries geometries = new Geometries(new Sphere(1, new Point(0, 0, -5)),
+                new Triangle(new Point(-1, -1, -2), new Point(1, -1, -2), new Point(0, 1, -2)));
+        int size = HitBuffer.local().size();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The closest hit, the transparency and all the hits
+        assertEquals(new Point(0, 0, -2), geometries.findClosestGeoIntersection(ray).getPoint(), "Wrong closest hit");
+        assertEquals(Double3.ZERO, geometries.findTransparency(ray, 10, 0.001), "Wrong transparency");
+        assertEquals(3, geometries.findGeoIntersections(ray).size(), "Wrong number of hits");
+        assertEquals(size, HitBuffer.local().size(), "Buffer of the thread changed");
+    }
+}
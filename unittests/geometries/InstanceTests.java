@@ -0,0 +1,185 @@
+package geometries;
+
+import geometries.Intersectable.GeoPoint;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import scene.AABB;
+
+import java.util.Comparator;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for geometries.Instance class - the instances are compared to the same bodies built in
+ * place
+ *
+ * @author Raz
+ */
+class InstanceTests {
+    /**
+     * A unit sphere, scaled by 2 and moved to (0,0,-10)
+     */
+    private final Instance sphere = new Instance(new Sphere(1, Point.ZERO),
+            Transform.scaling(2).then(Transform.translation(0, 0, -10)));
+
+    /**
+     * The transform of the triangle instances - a non-uniform scaling, a rotation and a move
+     */
+    private final Transform transform = Transform.scaling(3, 1, 0.5)
+            .then(Transform.rotation(new Vector(1, 1, 0), 40)).then(Transform.translation(2, -1, -6));
+
+    /**
+     * A triangle in object space
+     */
+    private final Point[] vertices = {new Point(-2, -1, 0.5), new Point(2, -1, -0.5), new Point(0, 2, 0)};
+
+    /**
+     * The triangle built in place
+     */
+    private Triangle transformedTriangle() {
+        return new Triangle(transform.transformPoint(vertices[0]), transform.transformPoint(vertices[1]),
+                transform.transformPoint(vertices[2]));
+    }
+
+    /**
+     * Test method for {@link geometries.Instance#findGeoIntersections(primitives.Ray)}.
+     */
+    @Test
+    void testFindGeoIntersections() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Ray through a scaled and moved sphere
+        Ray ray = new Ray(Point.ZERO, new Vector(0, 0, -1));
+        var result = sphere.findGeoIntersections(ray);
+        assertEquals(2, result.size(), "Wrong number of points");
+        result = result.stream().sorted(Comparator.comparingDouble(gp -> -gp.getPoint().getZ())).toList();
+        assertEquals(new Point(0, 0, -8), result.get(0).getPoint(), "Wrong near point");
+        assertEquals(new Point(0, 0, -12), result.get(1).getPoint(), "Wrong far point");
+        assertEquals(new Vector(0, 0, 1), result.get(0).getNormal(), "Wrong normal");
+
+        // TC02: Ray through a triangle under a non-uniform scaling, the same as the triangle built in place
+        Triangle expected = transformedTriangle();
+        Instance triangle = new Instance(new Triangle(vertices[0], vertices[1], vertices[2]), transform);
+        ray = new Ray(new Point(1, 1, 5), transform.transformPoint(Point.ZERO).subtract(new Point(1, 1, 5)));
+        GeoPoint hit = triangle.findGeoIntersections(ray).get(0);
+        assertEquals(expected.findIntersections(ray).get(0), hit.getPoint(), "Wrong point");
+        Vector normal = expected.getNormal(hit.getPoint());
+        assertEquals(1, Math.abs(normal.dotProduct(hit.getNormal())), 1e-10, "Wrong normal");
+
+        // TC03: Ray misses the instance
+        assertNull(sphere.findGeoIntersections(new Ray(new Point(5, 0, 0), new Vector(0, 0, -1))), "Wrong hit");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: The max distance is on the scene ray, not in object space
+        ray = new Ray(Point.ZERO, new Vector(0, 0, -1));
+        assertEquals(1, sphere.findGeoIntersections(ray, 10).size(), "Wrong number of points up to 10");
+        assertNull(sphere.findGeoIntersections(ray, 7), "Hit beyond the max distance");
+    }
+
+    /**
+     * Test method for {@link geometries.Instance#findClosestGeoIntersection(primitives.Ray)}.
+     */
+    @Test
+    void testFindClosestGeoIntersection() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The near point of the sphere
+        Ray ray = new Ray(new Point(0, 1, 0), new Vector(0, 0, -1));
+        GeoPoint closest = sphere.findClosestGeoIntersection(ray);
+        assertEquals(new Point(0, 1, -10 + Math.sqrt(3)), closest.getPoint(), "Wrong closest point");
+
+        // TC02: The packet query finds the same hits
+        RayPacket packet = new RayPacket(4);
+        packet.add(ray);
+        packet.add(new Ray(Point.ZERO, new Vector(0.1, 0, -1)));
+        packet.add(new Ray(new Point(5, 0, 0), new Vector(0, 0, -1)));
+        packet.add(new Ray(new Point(0, 0, -20), new Vector(0, 0, 1)));
+        GeoPoint[] hits = sphere.findClosestGeoIntersections(packet);
+        for (int k = 0; k < packet.size(); k++) {
+            GeoPoint expected = sphere.findClosestGeoIntersection(packet.getRay(k));
+            if (expected == null) assertNull(hits[k], "Wrong hit of ray " + k);
+            else assertEquals(expected.getPoint(), hits[k].getPoint(), "Wrong hit of ray " + k);
+        }
+    }
+
+    /**
+     * Test method for {@link geometries.Instance#findTransparency(primitives.Ray, double, double)}.
+     */
+    @Test
+    void testFindTransparency() {
+        Instance glass = new Instance(new Sphere(1, Point.ZERO).setMaterial(new Material().setkT(0.5)),
+                Transform.scaling(2).then(Transform.translation(0, 0, -10)));
+        Ray ray = new Ray(Point.ZERO, new Vector(0, 0, -1));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Through both sides of the sphere
+        assertEquals(new Double3(0.25), glass.findTransparency(ray, Double.POSITIVE_INFINITY, 0.001), "Wrong transparency");
+
+        // TC02: Up to a point inside the sphere
+        assertEquals(new Double3(0.5), glass.findTransparency(ray, 10, 0.001), "Wrong transparency inside");
+    }
+
+    /**
+     * Test method for {@link geometries.Instance#findMinMaxCenter()}.
+     */
+    @Test
+    void testFindMinMaxCenter() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The box of the rotated body box
+        Instance rotated = new Instance(new Sphere(1, Point.ZERO),
+                Transform.rotation(new Vector(0, 0, 1), 45).then(Transform.translation(0, 0, -5)));
+        rotated.findMinMaxCenter();
+        assertEquals(new Point(-Math.sqrt(2), -Math.sqrt(2), -6), rotated.getMinABBA(), "Wrong min point");
+        assertEquals(new Point(Math.sqrt(2), Math.sqrt(2), -4), rotated.getMaxABBA(), "Wrong max point");
+        assertEquals(new Point(0, 0, -5), rotated.getCenterABBA(), "Wrong center");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: An unbounded body
+        Instance plane = new Instance(new Plane(Point.ZERO, new Vector(0, 0, 1)), transform);
+        plane.findMinMaxCenter();
+        assertNull(plane.getMinABBA(), "Unbounded instance with bounds");
+    }
+
+    /**
+     * Instances of one shared mesh BVH in the scene BVH, compared to copies of the mesh built in place
+     */
+    @Test
+    void testSharedBody() {
+        Random random = new Random(500);
+        double[] meshVertices = {-1, -1, 0, 1, -1, 0, 1, 1, 0.5, -1, 1, 0.5, 0, 0, 2};
+        int[] meshIndices = {0, 1, 4, 1, 2, 4, 2, 3, 4, 3, 0, 4};
+        AABB model = new AABB(new Geometries(new TriangleMesh(meshVertices, meshIndices)));
+        Geometries instances = new Geometries(), copies = new Geometries();
+        for (int i = 0; i < 50; i++) {
+            Transform place = Transform.scaling(random.nextDouble(0.5, 2))
+                    .then(Transform.rotation(new Vector(random.nextDouble(-1, 1), 1, 0), random.nextDouble(360)))
+                    .then(Transform.translation(random.nextDouble(-20, 20), random.nextDouble(-20, 20), random.nextDouble(-40, -10)));
+            instances.add(new Instance(model, place));
+            double[] moved = new double[meshVertices.length];
+            for (int v = 0; v < moved.length; v += 3) {
+                Point p = place.transformPoint(new Point(meshVertices[v], meshVertices[v + 1], meshVertices[v + 2]));
+                moved[v] = p.getX();
+                moved[v + 1] = p.getY();
+                moved[v + 2] = p.getZ();
+            }
+            copies.add(new TriangleMesh(moved, meshIndices));
+        }
+        AABB instancesBVH = new AABB(instances), copiesBVH = new AABB(copies);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The closest hits and their normals are the same as the hits of the copies
+        int hits = 0;
+        for (int i = 0; i < 500; i++) {
+            Ray ray = new Ray(Point.ZERO, new Vector(random.nextDouble(-1, 1), random.nextDouble(-1, 1), -1));
+            GeoPoint expected = copiesBVH.findClosestGeoIntersection(ray), actual = instancesBVH.findClosestGeoIntersection(ray);
+            if (expected == null) {
+                assertNull(actual, "Wrong hit of ray " + i);
+                continue;
+            }
+            assertNotNull(actual, "Missed hit of ray " + i);
+            hits++;
+            assertEquals(expected.getPoint(), actual.getPoint(), "Wrong hit of ray " + i);
+            assertEquals(expected.getNormal(), actual.getNormal(), "Wrong normal of ray " + i);
+        }
+        assertTrue(hits > 0, "No ray hit the instances");
+    }
+}
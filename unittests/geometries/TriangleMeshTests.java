@@ -0,0 +1,139 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+import scene.AABB;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static primitives.Util.isZero;
+
+/**
+ * Unit tests for geometries.TriangleMesh class
+ *
+ * @author Raz
+ */
+class TriangleMeshTests {
+    /**
+     * Two triangles sharing the edge (0,4,0)-(0,-4,0): the triangle of TriangleTests and its mirror
+     */
+    private final TriangleMesh mesh = new TriangleMesh(
+            new double[]{4, 0, 0, 0, 4, 0, 0, -4, 0, -4, 0, 0},
+            new int[]{0, 1, 2, 2, 1, 3});
+
+    /**
+     * Test method for {@link geometries.TriangleMesh#TriangleMesh(double[], int[])}.
+     */
+    @Test
+    void testConstructor() {
+        // =============== Boundary Values Tests ==================
+        // TC11: Vertices array not in triples
+        assertThrows(IllegalArgumentException.class, () -> new TriangleMesh(new double[]{0, 0, 0, 1}, new int[]{0, 0, 0}),
+                "Vertices not in triples");
+
+        // TC12: Index out of range
+        assertThrows(IllegalArgumentException.class, () -> new TriangleMesh(new double[]{0, 0, 0, 1, 0, 0, 0, 1, 0},
+                new int[]{0, 1, 3}), "Index out of range");
+
+        // TC13: Degenerate triangle
+        assertThrows(IllegalArgumentException.class, () -> new TriangleMesh(new double[]{0, 0, 0, 1, 0, 0, 2, 0, 0},
+                new int[]{0, 1, 2}), "Degenerate triangle");
+    }
+
+    /**
+     * Test method for {@link geometries.TriangleMesh#getNormal(Point)}.
+     */
+    @Test
+    void testGetNormal() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The normal is the same as the normal of the matching Triangle
+        Vector expected = new Triangle(new Point(4, 0, 0), new Point(0, 4, 0), new Point(0, -4, 0)).getNormal(null);
+        assertEquals(expected, mesh.getNormal(new Point(1, -1, 0)), "Wrong normal");
+        assertEquals(expected, mesh.getTriangleNormal(0), "Wrong triangle normal");
+
+        // TC02: The hit knows the normal of its triangle
+        var gp = mesh.findGeoIntersections(new Ray(new Point(-1, 1, -1), new Vector(0, 0, 1))).get(0);
+        assertEquals(1, gp.getNormal().length(), 0.00000001, "Mesh normal is not a unit vector");
+        assertTrue(isZero(gp.getNormal().dotProduct(new Vector(1, 1, 0))), "Mesh normal is not orthogonal to the triangle");
+    }
+
+    /**
+     * Test method for {@link geometries.TriangleMesh#findIntersections(primitives.Ray)}.
+     */
+    @Test
+    void testFindIntersections() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Ray goes inside the first triangle
+        var result = mesh.findIntersections(new Ray(new Point(1, -1, -1), new Vector(0, 0, 1)));
+        assertEquals(1, result.size(), "wrong number of points");
+        assertEquals(new Point(1, -1, 0), result.get(0), "wrong intersection point");
+
+        // TC02: Ray goes inside the second triangle
+        result = mesh.findIntersections(new Ray(new Point(-1, 1, -1), new Vector(0, 0, 1)));
+        assertEquals(1, result.size(), "wrong number of points");
+        assertEquals(new Point(-1, 1, 0), result.get(0), "wrong intersection point");
+
+        // TC03: Ray goes outside the mesh against a vertex
+        assertNull(mesh.findIntersections(new Ray(new Point(-1, 6, -1), new Vector(0, 0, 1))), "wrong number of points");
+
+        // TC04: Ray goes beyond maxDis
+        assertNull(mesh.findGeoIntersections(new Ray(new Point(1, -1, -1), new Vector(0, 0, 1)), 0.5),
+                "wrong number of points");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Ray goes on the shared edge
+        assertNull(mesh.findIntersections(new Ray(new Point(0, 2, -1), new Vector(0, 0, 1))), "wrong number of points");
+
+        // TC12: Ray goes on vertex
+        assertNull(mesh.findIntersections(new Ray(new Point(4, 0, -1), new Vector(0, 0, 1))), "wrong number of points");
+
+        // TC13: Ray goes on edge's continuation
+        assertNull(mesh.findIntersections(new Ray(new Point(0, 6, -1), new Vector(0, 0, 1))), "wrong number of points");
+    }
+
+    /**
+     * Test method for {@link scene.AABB} built over a mesh - the mesh triangles are the tree primitives,
+     * and the hits are compared to separate Triangle objects
+     */
+    @Test
+    void testMeshInBVH() {
+        Random random = new Random(1764);
+        int triangles = 500;
+        double[] vertices = new double[9 * triangles];
+        int[] indices = new int[3 * triangles];
+        Geometries separate = new Geometries();
+        for (int i = 0; i < triangles; i++) {
+            Point[] pts = new Point[3];
+            double x = random.nextDouble(-50, 50), y = random.nextDouble(-50, 50), z = random.nextDouble(-50, 50);
+            pts[0] = new Point(x, y, z);
+            pts[1] = new Point(x + random.nextDouble(1, 5), y + random.nextDouble(-1, 1), z + random.nextDouble(-1, 1));
+            pts[2] = new Point(x + random.nextDouble(-1, 1), y + random.nextDouble(1, 5), z + random.nextDouble(-1, 1));
+            for (int k = 0; k < 3; k++) {
+                vertices[9 * i + 3 * k] = pts[k].getX();
+                vertices[9 * i + 3 * k + 1] = pts[k].getY();
+                vertices[9 * i + 3 * k + 2] = pts[k].getZ();
+                indices[3 * i + k] = 3 * i + k;
+            }
+            separate.add(new Triangle(pts[0], pts[1], pts[2]));
+        }
+        AABB bvh = new AABB(new Geometries(new TriangleMesh(vertices, indices)));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Same hits as the separate triangles
+        for (int i = 0; i < 1000; i++) {
+            Ray ray = new Ray(new Point(random.nextDouble(-60, 60), random.nextDouble(-60, 60), random.nextDouble(-60, 60)),
+                    new Vector(random.nextDouble(-1, 1), random.nextDouble(-1, 1), random.nextDouble(0.1, 1)));
+            var expected = separate.findIntersections(ray);
+            var actual = bvh.findIntersections(ray);
+            assertEquals(expected == null ? 0 : expected.size(), actual == null ? 0 : actual.size(),
+                    "Wrong number of points for " + ray);
+            var expectedClosest = separate.findClosestGeoIntersection(ray);
+            var actualClosest = bvh.findClosestGeoIntersection(ray);
+            if (expectedClosest == null) assertNull(actualClosest, "Wrong closest point for " + ray);
+            else assertEquals(expectedClosest.getPoint(), actualClosest.getPoint(), "Wrong closest point for " + ray);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package primitives;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for primitives.Color class
+ *
+ * @author Raz
+ */
+class ColorTests {
+    /**
+     * Test method for {@link primitives.Color#getRGB()}.
+     */
+    @Test
+    void testGetRGB() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Components in range are packed as they are
+        assertEquals(0x3464EB, new Color(52, 100, 235.7).getRGB(), "Wrong packed color");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: A component above 255 is clamped and doesn't spill into the other components
+        assertEquals(0xFF00FF, new Color(256, 0, 1000).getRGB(), "Wrong clamped color");
+        // TC12: Black
+        assertEquals(0, Color.BLACK.getRGB(), "Wrong black color");
+    }
+}
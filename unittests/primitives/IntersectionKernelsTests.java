@@ -0,0 +1,140 @@
+package primitives;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for primitives.IntersectionKernels class - the loaded backend (SIMD when the Vector API
+ * module is present) is compared to the single ray kernels, bit for bit
+ *
+ * @author Raz
+ */
+class IntersectionKernelsTests {
+    /**
+     * Amount of rays in the packets, not a multiple of the vector sizes so the lists have tails
+     */
+    private static final int RAYS = 61;
+
+    private final IntersectionKernels kernels = IntersectionKernels.load(true);
+    private final Random random = new Random(1764);
+
+    /**
+     * Random packet - every fifth ray is parallel to an axis, every seventh one starts on the unit
+     * box border
+     */
+    private RayPacket randomPacket(double[] invX, double[] invY, double[] invZ) {
+        RayPacket packet = new RayPacket(RAYS);
+        for (int k = 0; k < RAYS; k++) {
+            double px = random.nextDouble(-3, 3), py = random.nextDouble(-3, 3), pz = random.nextDouble(-3, 3);
+            if (k % 7 == 0) px = 1;
+            if (k % 5 == 0) packet.add(px, py, pz, 0, k % 2 == 0 ? 1 : -1, 0);
+            else packet.add(px, py, pz, random.nextDouble(-1, 1), random.nextDouble(-1, 1), random.nextDouble(-1, 1));
+            invX[k] = 1 / packet.dx[k];
+            invY[k] = 1 / packet.dy[k];
+            invZ[k] = 1 / packet.dz[k];
+        }
+        return packet;
+    }
+
+    /**
+     * Random max distances - some of them infinite
+     */
+    private double[] randomMaxDis() {
+        double[] maxDis = new double[RAYS];
+        for (int k = 0; k < RAYS; k++)
+            maxDis[k] = k % 3 == 0 ? Double.POSITIVE_INFINITY : random.nextDouble(0.5, 6);
+        return maxDis;
+    }
+
+    /**
+     * List of all the rays, or of a random part of them
+     */
+    private int[] randomList(boolean all) {
+        int[] rays = new int[RAYS + 1];
+        int count = 0;
+        for (int k = 0; k < RAYS; k++)
+            if (all || random.nextInt(3) > 0) rays[count++] = k;
+        rays[RAYS] = count;
+        return rays;
+    }
+
+    /**
+     * Test method for {@link primitives.IntersectionKernels#enterBox}.
+     */
+    @Test
+    void testEnterBox() {
+        double[] invX = new double[RAYS], invY = new double[RAYS], invZ = new double[RAYS];
+        for (int test = 0; test < 200; test++) {
+            RayPacket packet = randomPacket(invX, invY, invZ);
+            double[] maxDis = randomMaxDis();
+            int[] rays = randomList(test % 2 == 0);
+            int count = rays[RAYS];
+            // the unit box, or a random one
+            double[] box = test % 4 == 0 ? new double[]{-1, -1, -1, 1, 1, 1}
+                    : new double[]{random.nextDouble(-2, 0), random.nextDouble(-2, 0), random.nextDouble(-2, 0),
+                    random.nextDouble(0, 2), random.nextDouble(0, 2), random.nextDouble(0, 2)};
+
+            int[] expected = new int[RAYS];
+            int expectedCount = 0;
+            for (int r = 0; r < count; r++) {
+                int k = rays[r];
+                if (IntersectionKernels.entryDistance(box[0], box[1], box[2], box[3], box[4], box[5],
+                        packet.ox[k], packet.oy[k], packet.oz[k], invX[k], invY[k], invZ[k], maxDis[k])
+                        != Double.POSITIVE_INFINITY)
+                    expected[expectedCount++] = k;
+            }
+            int entered = kernels.enterBox(box[0], box[1], box[2], box[3], box[4], box[5],
+                    packet, invX, invY, invZ, maxDis, rays, count);
+            assertEquals(expectedCount, entered, "Wrong amount of rays in test " + test);
+            for (int r = 0; r < entered; r++)
+                assertEquals(expected[r], rays[r], "Wrong ray in test " + test);
+        }
+    }
+
+    /**
+     * Test method for {@link primitives.IntersectionKernels#intersectTriangle}.
+     */
+    @Test
+    void testIntersectTriangle() {
+        double[] invX = new double[RAYS], invY = new double[RAYS], invZ = new double[RAYS];
+        double[] distances = new double[RAYS], expected = new double[RAYS];
+        for (int test = 0; test < 200; test++) {
+            RayPacket packet = randomPacket(invX, invY, invZ);
+            double[] maxDis = randomMaxDis();
+            int[] rays = randomList(test % 2 == 0);
+            int count = rays[RAYS];
+            // a large triangle, or one in the plane of the axis parallel rays
+            double[] t = {random.nextDouble(-2, 0), random.nextDouble(-2, 0), random.nextDouble(-2, 0),
+                    random.nextDouble(1, 5), random.nextDouble(-1, 1), random.nextDouble(-1, 1),
+                    random.nextDouble(-1, 1), random.nextDouble(1, 5), test % 5 == 0 ? 0 : random.nextDouble(-1, 1)};
+
+            for (int r = 0; r < count; r++) {
+                int k = rays[r];
+                expected[r] = IntersectionKernels.triangleDistance(t[0], t[1], t[2], t[3], t[4], t[5], t[6], t[7], t[8],
+                        packet.ox[k], packet.oy[k], packet.oz[k], packet.dx[k], packet.dy[k], packet.dz[k], maxDis[k]);
+            }
+            kernels.intersectTriangle(t[0], t[1], t[2], t[3], t[4], t[5], t[6], t[7], t[8],
+                    packet, maxDis, rays, count, distances);
+            for (int r = 0; r < count; r++)
+                assertEquals(Double.doubleToLongBits(expected[r]), Double.doubleToLongBits(distances[r]),
+                        "Wrong distance of ray " + rays[r] + " in test " + test);
+        }
+    }
+
+    /**
+     * Test method for {@link primitives.IntersectionKernels#load(boolean)}.
+     */
+    @Test
+    void testLoad() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The scalar backend is loaded on request
+        assertEquals(1, IntersectionKernels.load(false).lanes(), "Scalar backend not loaded");
+
+        // TC02: The SIMD backend is loaded only with a usable vector size
+        int lanes = IntersectionKernels.load(true).lanes();
+        assertTrue(lanes == 1 || lanes >= 4, "Wrong backend vector size " + lanes);
+    }
+}
@@ -0,0 +1,45 @@
+package primitives;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for primitives.RayPacket class
+ *
+ * @author Raz
+ */
+class RayPacketTests {
+
+    /**
+     * Test method for {@link primitives.RayPacket#add(double, double, double, double, double, double)}.
+     */
+    @Test
+    void testAdd() {
+        RayPacket packet = new RayPacket(2);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The direction is normalized like a Ray
+        assertEquals(0, packet.add(1, 2, 3, 3, 0, 4), "Wrong index");
+        assertEquals(new Ray(new Point(1, 2, 3), new Vector(3, 0, 4)), packet.getRay(0), "Wrong ray");
+        assertSame(packet.getRay(0), packet.getRay(0), "Ray created again");
+
+        // TC02: A Ray is added as is
+        Ray ray = new Ray(new Point(-1, 0, 5), new Vector(1, 1, 1));
+        assertEquals(1, packet.add(ray), "Wrong index");
+        assertEquals(ray, packet.getRay(1), "Wrong ray");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Full packet
+        assertThrows(IllegalStateException.class, () -> packet.add(ray), "Full packet");
+
+        // TC12: Cleared packet is reused from the start
+        packet.clear();
+        assertEquals(0, packet.size(), "Packet not cleared");
+        assertEquals(0, packet.add(ray), "Wrong index");
+        assertSame(ray, packet.getRay(0), "Ray of the cleared packet kept");
+
+        // TC13: Empty packet
+        assertThrows(IllegalArgumentException.class, () -> new RayPacket(0), "Empty packet");
+    }
+}
@@ -1,5 +1,7 @@
 package primitives;
 
+import geometries.Intersectable.GeoPoint;
+import geometries.Sphere;
 import org.junit.jupiter.api.Test;
 
 import java.util.LinkedList;
@@ -29,4 +31,28 @@ class RayTest {
         // TC12: Last point is the closest
         assertEquals(new Point(3,3,3),new Ray(new Point(2.8,2.8,2.8),new Vector(1,1,1)).findClosesPoint(list),"Wrong point");
     }
-}
\ No newline at end of file
+
+    @Test
+    void findClosestGeoPointTest() {
+        Ray ray = new Ray(Point.ZERO, new Vector(0, 0, -1));
+        Sphere sphere = new Sphere(1, new Point(0, 0, -5));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Hits on the ray are compared by their distance, and their points are built on demand
+        GeoPoint near = new GeoPoint(sphere, ray, 4), far = new GeoPoint(sphere, ray, 6);
+        GeoPoint closest = ray.findClosestGeoPoint(List.of(far, near));
+        assertSame(near, closest, "Wrong closest hit");
+        assertEquals(new Point(0, 0, -4), closest.getPoint(), "Wrong point");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: A hit built on its point is compared by its distance too
+        GeoPoint point = new GeoPoint(sphere, new Point(0, 0, -3), 3);
+        assertSame(point, ray.findClosestGeoPoint(List.of(far, point, near)), "Wrong closest hit");
+
+        // TC12: A hit needs its distance
+        assertThrows(IllegalArgumentException.class,
+                () -> new GeoPoint(sphere, new Point(0, 0, -3), Double.NaN), "Hit with no distance");
+        assertThrows(IllegalArgumentException.class,
+                () -> new GeoPoint(sphere, ray, Double.NaN), "Hit on a ray with no distance");
+    }
+}
@@ -0,0 +1,75 @@
+package primitives;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static primitives.Util.isZero;
+
+/**
+ * Unit tests for primitives.Transform class
+ *
+ * @author Raz
+ */
+class TransformTests {
+    private final Transform transform = Transform.scaling(1, 2, 3)
+            .then(Transform.rotation(new Vector(0, 0, 1), 90))
+            .then(Transform.translation(10, 0, -5));
+
+    /**
+     * Test method for {@link primitives.Transform#transformPoint(Point)}.
+     */
+    @Test
+    void testTransformPoint() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Scaled, rotated by a quarter about z and moved
+        assertEquals(new Point(6, 1, 4), transform.transformPoint(new Point(1, 2, 3)), "Wrong transformed point");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: The identity
+        assertEquals(new Point(1, 2, 3), Transform.IDENTITY.transformPoint(new Point(1, 2, 3)), "Identity moved the point");
+    }
+
+    /**
+     * Test method for {@link primitives.Transform#transformVector(Vector)}.
+     */
+    @Test
+    void testTransformVector() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A vector is not moved by the translation
+        assertEquals(new Vector(-4, 1, 9), transform.transformVector(new Vector(1, 2, 3)), "Wrong transformed vector");
+    }
+
+    /**
+     * Test method for {@link primitives.Transform#transformNormal(Vector)}.
+     */
+    @Test
+    void testTransformNormal() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The normal stays orthogonal to the transformed surface vectors
+        Vector n = new Vector(1, 1, 1), u = new Vector(1, -1, 0), v = new Vector(0, 1, -1);
+        Vector result = transform.transformNormal(n);
+        assertEquals(1, result.length(), 1e-12, "Normal is not a unit vector");
+        assertTrue(isZero(result.dotProduct(transform.transformVector(u))), "Normal is not orthogonal");
+        assertTrue(isZero(result.dotProduct(transform.transformVector(v))), "Normal is not orthogonal");
+        assertTrue(result.dotProduct(transform.transformVector(n)) > 0, "Normal is flipped");
+    }
+
+    /**
+     * Test method for {@link primitives.Transform#inverse()}.
+     */
+    @Test
+    void testInverse() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The inverse moves the point back
+        Point p = new Point(-3, 7, 0.5);
+        assertEquals(p, transform.inverse().transformPoint(transform.transformPoint(p)), "Wrong inverse");
+
+        // TC02: The inverse of a composed general matrix
+        Transform skew = transform.then(Transform.rotation(new Vector(1, 2, -1), 33)).then(Transform.scaling(2, 1, 0.5));
+        assertEquals(p, skew.inverse().transformPoint(skew.transformPoint(p)), "Wrong inverse of a composition");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: A singular transform
+        assertThrows(IllegalArgumentException.class, () -> Transform.scaling(1, 0, 1), "Singular transform");
+    }
+}
@@ -0,0 +1,52 @@
+package primitives;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for primitives.VectorMath class - the results are compared to the Vector operations
+ *
+ * @author Raz
+ */
+class VectorMathTests {
+    private final Vector v1 = new Vector(1, 2, 3);
+    private final Vector v2 = new Vector(-2, 0.5, 4);
+    private final Vector v3 = new Vector(0, 3, -2);
+
+    /**
+     * Test method for {@link primitives.VectorMath#dot(double, double, double, double, double, double)}
+     */
+    @Test
+    void testDot() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: same as the dot product of vectors
+        assertEquals(v1.dotProduct(v2), VectorMath.dot(1, 2, 3, -2, 0.5, 4), 1e-12, "Wrong dot product");
+    }
+
+    /**
+     * Test method for {@link primitives.VectorMath#crossLength(double, double, double, double, double, double)}
+     */
+    @Test
+    void testCrossLength() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: same as the length of the cross product of vectors
+        assertEquals(v1.crossProduct(v2).length(), VectorMath.crossLength(1, 2, 3, -2, 0.5, 4), 1e-12,
+                "Wrong cross product length");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: parallel vectors
+        assertEquals(0, VectorMath.crossLength(1, 2, 3, -2, -4, -6), 1e-12, "Parallel vectors cross length is not zero");
+    }
+
+    /**
+     * Test method for {@link primitives.VectorMath#triple(double, double, double, double, double, double, double, double, double)}
+     */
+    @Test
+    void testTriple() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: same as the dot product with the cross product of vectors
+        assertEquals(v3.dotProduct(v1.crossProduct(v2)), VectorMath.triple(0, 3, -2, 1, 2, 3, -2, 0.5, 4), 1e-12,
+                "Wrong triple product");
+    }
+}
@@ -4,8 +4,15 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import org.junit.jupiter.api.Test;
 
+import geometries.Sphere;
+import lighting.AmbientLight;
 import primitives.*;
 import renderer.Camera;
+import scene.Scene;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Testing Camera Class
@@ -57,4 +64,116 @@ class CameraTest {
 
 }
 
+	/**
+	 * Test method for
+	 * {@link renderer.Camera#renderProgressive(int, FrameListener)}.
+	 */
+	@Test
+	void renderProgressiveTest() {
+		List<Integer> frames = new ArrayList<>();
+		FrameListener listener = (pass, passes, imageWriter) -> frames.add(pass * 100 + passes);
+
+		// ============ Equivalence Partitions Tests ==============
+		// EP01: Depth of field render limited to 3 passes
+		Camera dof = DoFTests.createCamera().setRayTracer(new RayTracerBasic(DoFTests.createScene()))
+				.setImageWriter(new FrameBuffer("progressiveDoF", 40, 40)).setProgressListener(ProgressListener.NONE);
+		dof.renderProgressive(3, listener);
+		assertEquals(List.of(103, 203, 303), frames, "Wrong frames");
+
+		// EP02: Without depth of field a single pass is the whole image
+		Scene scene = new Scene("Progressive").setAmbientLight(new AmbientLight(new Color(255, 255, 255), 0.2));
+		scene.addGeometries(new Sphere(50, new Point(0, 0, -100)).setEmission(new Color(100, 20, 20)));
+		FrameBuffer expected = new FrameBuffer("progressiveExpected", 30, 30);
+		FrameBuffer actual = new FrameBuffer("progressiveActual", 30, 30);
+		Camera camera = new Camera(new Point(0, 0, 1000), new Vector(0, 0, -1), new Vector(0, 1, 0))
+				.setVPSize(200, 200).setVPDistance(1000).setRayTracer(new RayTracerBasic(scene))
+				.setProgressListener(ProgressListener.NONE);
+		camera.setImageWriter(expected).renderImage();
+		frames.clear();
+		camera.setImageWriter(actual).renderProgressive(0, listener);
+		assertEquals(List.of(101), frames, "Wrong frames");
+		assertArrayEquals(expected.getPixels(), actual.getPixels(), "Wrong progressive image");
+
+		// =============== Boundary Values Tests ==================
+		// BV01: Negative passes
+		assertThrows(IllegalArgumentException.class, () -> camera.renderProgressive(-1, listener), "Negative passes");
+	}
+
+	/**
+	 * Test method for adaptive depth of field in
+	 * {@link renderer.Camera#renderImage()}.
+	 */
+	@Test
+	void renderAdaptiveDoFTest() {
+		AtomicLong rays = new AtomicLong();
+		RayTracerBase tracer = new RayTracerBasic(DoFTests.createScene());
+		RayTracerBase counter = new RayTracerBase(null) {
+			@Override
+			public Color traceRay(Ray ray) {
+				rays.incrementAndGet();
+				return tracer.traceRay(ray);
+			}
+		};
+		FrameBuffer full = new FrameBuffer("adaptiveDoFExpected", 60, 60);
+		FrameBuffer adaptive = new FrameBuffer("adaptiveDoFActual", 60, 60);
+		Camera camera = DoFTests.createCamera().setRayTracer(counter).setProgressListener(ProgressListener.NONE);
+		camera.setImageWriter(full).renderImage();
+		long fullRays = rays.getAndSet(0);
+		camera.setImageWriter(adaptive).setDoFAdaptive(true).renderImage();
+		long adaptiveRays = rays.getAndSet(0);
+
+		// ============ Equivalence Partitions Tests ==============
+		// EP01: Much less rays, about the same image
+		assertTrue(adaptiveRays * 4 < fullRays, "Adaptive sampling traced " + adaptiveRays + " of " + fullRays + " rays");
+		double difference = 0;
+		for (int k = 0; k < full.getPixels().length; k++)
+			difference += Math.abs(full.getPixels()[k] - adaptive.getPixels()[k]);
+		assertTrue(difference * 255 / full.getPixels().length < 1, "Adaptive image is too different");
+
+		// =============== Boundary Values Tests ==================
+		// BV01: Ray budget of a single ray per pixel
+		camera.setDoFMaxRays(1).renderImage();
+		assertEquals(60 * 60, rays.get(), "Wrong ray budget");
+	}
+
+	/**
+	 * Test method for anti-aliasing in
+	 * {@link renderer.Camera#renderImage()}.
+	 */
+	@Test
+	void renderAntiAliasingTest() {
+		Scene scene = new Scene("Anti-aliasing").setBackground(new Color(0, 0, 0));
+		Camera camera = new Camera(new Point(0, 0, 1000), new Vector(0, 0, -1), new Vector(0, 1, 0))
+				.setVPSize(200, 200).setVPDistance(1000).setRayTracer(new RayTracerBasic(scene))
+				.setProgressListener(ProgressListener.NONE).setAntiAliasing(true);
+
+		// =============== Boundary Values Tests ==================
+		// BV01: Uniform image - only the shared corners are traced, (30 + 1)^2 rays
+		FrameBuffer frame = new FrameBuffer("antiAliasingEmpty", 30, 30);
+		camera.setImageWriter(frame).renderImage();
+		assertEquals(31 * 31, camera.getRenderProgress().getRays(), "Wrong amount of rays");
+		// BV02: Uniform image of several tiles - the corners on the tile borders are traced once
+		camera.setTileSize(8).setThreadsCount(1).renderImage();
+		assertEquals(31 * 31, camera.getRenderProgress().getRays(), "Tile border corners traced twice");
+		camera.setTileSize(32).setThreadsCount(0);
+
+		// ============ Equivalence Partitions Tests ==============
+		// EP01: The pixels on the sphere edge are divided and get a blend of the colors
+		scene.addGeometries(new Sphere(70, new Point(0, 0, 0)).setEmission(new Color(255, 0, 0)));
+		camera.setImageWriter(frame).renderImage();
+		long rays = camera.getRenderProgress().getRays();
+		// a full 8 x 8 supersampling would take 64 rays per pixel
+		assertTrue(rays > 31 * 31 && rays < 8 * 30 * 30, "Wrong amount of rays " + rays);
+		int blended = 0;
+		for (int k = 0; k < frame.getPixels().length; k += 3)
+			if (frame.getPixels()[k] > 0.05 && frame.getPixels()[k] < 0.95) blended++;
+		assertTrue(blended > 30, "Edge pixels are not blended");
+
+		// EP02: Without anti-aliasing a ray per pixel, and no blended pixels
+		camera.setAntiAliasing(false).renderImage();
+		assertEquals(30 * 30, camera.getRenderProgress().getRays(), "Wrong amount of rays");
+		for (int k = 0; k < frame.getPixels().length; k += 3)
+			assertTrue(frame.getPixels()[k] == 0 || frame.getPixels()[k] == 1, "Blended pixel without anti-aliasing");
+	}
+
 }
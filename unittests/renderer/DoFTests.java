@@ -17,16 +17,35 @@ public class DoFTests {
 
     @Test
     public void testDepthOfField() {
-        // Set up the scene
-        Scene scene = new Scene("DoF");
+        ImageWriter imageWriter = new ImageWriter("DoF", 1200, 1200);
+        createCamera().setImageWriter(imageWriter)
+                .setRayTracer(new RayTracerBasic(createScene()))
+                .renderImage()
+                .writeToImage();
+    }
 
-        // Set the camera
-        Camera camera = new Camera(
+    /**
+     * Builds the depth of field camera - shared with the render benchmarks
+     *
+     * @return the camera, without an image writer and a ray tracer
+     */
+    public static Camera createCamera() {
+        return new Camera(
                 new Point(0, 0, 2500),
                 new Vector(0, 0, -1),
                 new Vector(0, 1, 0)
         ).setVPSize(200, 200)
                 .setVPDistance(850).setDoFActive(true).setFocalLength(1600).setApertureRadius(20);
+    }
+
+    /**
+     * Builds the depth of field scene with its BVH - shared with the render benchmarks
+     *
+     * @return the scene
+     */
+    public static Scene createScene() {
+        // Set up the scene
+        Scene scene = new Scene("DoF");
 
         // Set ambient light
         AmbientLight ambientLight = new AmbientLight(new Color(30, 30, 30), 0.1);
@@ -44,7 +63,7 @@ public class DoFTests {
                 .setShininess(60)
                 .setkR(0.02)
         );
-//        scene.geometries.add(plane);
+//        scene.addGeometries(plane);
 
 
 //        // Spheres
@@ -63,21 +82,21 @@ public class DoFTests {
 //                    .setkR(0.3)
 //            );
 //
-//            scene.geometries.add(sphere);
+//            scene.addGeometries(sphere);
 //        }
-        scene.geometries.add(new Sphere(70, new Point(100, 0 ,300)).setMaterial(new Material()
+        scene.addGeometries(new Sphere(70, new Point(100, 0 ,300)).setMaterial(new Material()
                     .setKd(0.6)
                     .setKs(0.4)
                     .setShininess(100)
                     .setkR(0.3)));
 
-        scene.geometries.add(new Sphere(70, new Point(0, 0 ,900)).setMaterial(new Material()
+        scene.addGeometries(new Sphere(70, new Point(0, 0 ,900)).setMaterial(new Material()
                 .setKd(0.6)
                 .setKs(0.4)
                 .setShininess(100)
                 .setkR(0.3)));
 
-        scene.geometries.add(new Sphere(70, new Point(-100, 0 ,1500)).setMaterial(new Material()
+        scene.addGeometries(new Sphere(70, new Point(-100, 0 ,1500)).setMaterial(new Material()
                 .setKd(0.6)
                 .setKs(0.4)
                 .setShininess(100)
@@ -92,14 +111,9 @@ public class DoFTests {
 //                .setkL(0.0001);
 
         LightSource lightSource = new DirectionalLight(new Color(70, 172, 21 ),new Vector(-1,0,0) );
-        scene.lights.add(lightSource);
+        scene.addLights(lightSource);
         scene.activateBVH();
-
-        ImageWriter imageWriter = new ImageWriter("DoF", 1200, 1200);
-        camera.setImageWriter(imageWriter)
-                .setRayTracer(new RayTracerBasic(scene))
-                .renderImage()
-                .writeToImage();
+        return scene;
     }
 
 
@@ -0,0 +1,134 @@
+package renderer;
+
+import org.junit.jupiter.api.Test;
+import primitives.Color;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for renderer.FrameBuffer class
+ *
+ * @author Raz
+ */
+class FrameBufferTests {
+    private static final String FOLDER_PATH = System.getProperty("user.dir") + "/images/";
+
+    /**
+     * Frame buffer with a gradient that goes up to 4 times white
+     */
+    private static FrameBuffer gradient(String name) {
+        FrameBuffer frame = new FrameBuffer(name, 40, 30);
+        for (int y = 0; y < 30; y++)
+            for (int x = 0; x < 40; x++)
+                frame.writePixel(x, y, new Color(x * 25.5, y * 10, 100));
+        return frame;
+    }
+
+    /**
+     * Test method for {@link renderer.FrameBuffer#writeToImage()}.
+     */
+    @Test
+    void testWriteToImage() throws IOException {
+        FrameBuffer frame = gradient("frameBufferClamp");
+        ImageWriter writer = new ImageWriter("frameBufferExpected", 40, 30);
+        for (int y = 0; y < 30; y++)
+            for (int x = 0; x < 40; x++)
+                writer.writePixel(x, y, new Color(x * 25.5, y * 10, 100));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The clamped png is the png of the image writer, up to rounding
+        frame.writeToImage();
+        writer.writeToImage();
+        BufferedImage expected = ImageIO.read(new File(FOLDER_PATH + "frameBufferExpected.png"));
+        BufferedImage actual = ImageIO.read(new File(FOLDER_PATH + "frameBufferClamp.png"));
+        for (int y = 0; y < 30; y++)
+            for (int x = 0; x < 40; x++)
+                for (int shift = 0; shift <= 16; shift += 8)
+                    assertEquals(expected.getRGB(x, y) >> shift & 0xFF, actual.getRGB(x, y) >> shift & 0xFF, 1,
+                            "Wrong pixel " + x + "," + y);
+
+        // TC02: Reinhard tone mapping with exposure keeps the highlights apart
+        frame.setExposure(0.5).setToneMapper(ToneMapper.REINHARD).writeToImage();
+        actual = ImageIO.read(new File(FOLDER_PATH + "frameBufferClamp.png"));
+        assertTrue((actual.getRGB(20, 0) >> 16 & 0xFF) < (actual.getRGB(39, 0) >> 16 & 0xFF),
+                "Highlights are clamped");
+        assertEquals(Math.round(255 * 0.5 / 1.5), actual.getRGB(10, 0) >> 16 & 0xFF, "Wrong tone mapping");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Zero exposure
+        assertThrows(IllegalArgumentException.class, () -> frame.setExposure(0), "Zero exposure");
+    }
+
+    /**
+     * Test method for {@link renderer.FrameBuffer#writePfm()} and {@link renderer.FrameBuffer#readPfm(String)}.
+     */
+    @Test
+    void testPfm() {
+        FrameBuffer frame = gradient("frameBufferHdr");
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The values above white are kept
+        assertEquals(39 * 25.5 / 255, frame.getPixels()[3 * 39], 1e-6, "HDR value is lost");
+
+        // TC02: The file is read back with the same pixels
+        frame.writePfm();
+        assertArrayEquals(frame.getPixels(), FrameBuffer.readPfm("frameBufferHdr").getPixels(), "Wrong PFM pixels");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: A file larger than the I/O buffer, with rows split between its fills
+        FrameBuffer wide = new FrameBuffer("frameBufferWide", 3001, 7);
+        for (int y = 0; y < 7; y++)
+            for (int x = 0; x < 3001; x++)
+                wide.writePixel(x, y, new Color(x, y, (x + y) % 255));
+        wide.writePfm();
+        assertArrayEquals(wide.getPixels(), FrameBuffer.readPfm("frameBufferWide").getPixels(), "Wrong PFM pixels");
+    }
+
+    /**
+     * Test method for {@link renderer.FrameBuffer#FrameBuffer(String, int, int)}.
+     */
+    @Test
+    void testConstructor() {
+        // =============== Boundary Values Tests ==================
+        // TC11: The pixels don't fit in an array
+        assertThrows(IllegalArgumentException.class, () -> new FrameBuffer("huge", 30000, 30000), "Size overflow");
+        // TC12: Negative size
+        assertThrows(IllegalArgumentException.class, () -> new FrameBuffer("negative", -1, 10), "Negative size");
+    }
+
+    /**
+     * Test method for {@link renderer.FrameBuffer#writeExr()}.
+     */
+    @Test
+    void testExr() throws IOException {
+        FrameBuffer frame = gradient("frameBufferHdr");
+        frame.writeExr();
+        ByteBuffer file = ByteBuffer.wrap(Files.readAllBytes(Path.of(FOLDER_PATH, "frameBufferHdr.exr")))
+                .order(ByteOrder.LITTLE_ENDIAN);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Magic number and single part scanline version
+        assertEquals(20000630, file.getInt(0), "Wrong magic number");
+        assertEquals(2, file.getInt(4), "Wrong version");
+
+        // TC02: The line of the offsets table holds the pixels of the line, channel by channel (B, G, R)
+        int headerEnd = file.capacity() - 30 * (8 + 8 + 12 * 40);
+        long offset = file.getLong(headerEnd + 8 * 7);
+        assertEquals(7, file.getInt((int) offset), "Wrong line");
+        assertEquals(12 * 40, file.getInt((int) offset + 4), "Wrong line size");
+        float[] pixels = frame.getPixels();
+        int line = (int) offset + 8;
+        assertEquals(pixels[3 * (7 * 40 + 5) + 2], file.getFloat(line + 4 * 5), "Wrong blue");
+        assertEquals(pixels[3 * (7 * 40 + 5) + 1], file.getFloat(line + 4 * (40 + 5)), "Wrong green");
+        assertEquals(pixels[3 * (7 * 40 + 5)], file.getFloat(line + 4 * (80 + 5)), "Wrong red");
+    }
+}
@@ -0,0 +1,48 @@
+package renderer;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Helpers of the renderer tests that compare the written images
+ *
+ * @author Raz
+ */
+final class ImageAssertions {
+    /**
+     * The folder of the written images
+     */
+    static final String FOLDER_PATH = System.getProperty("user.dir") + "/images/";
+
+    private ImageAssertions() {
+    }
+
+    /**
+     * Reads an image of the images folder
+     *
+     * @param name the name of the png file
+     * @return the image
+     * @throws IOException if the file can't be read
+     */
+    static BufferedImage read(String name) throws IOException {
+        return ImageIO.read(new File(FOLDER_PATH + name + ".png"));
+    }
+
+    /**
+     * Asserts the two images have the same pixels
+     *
+     * @param expected the expected image
+     * @param actual   the actual image
+     */
+    static void assertSameImage(BufferedImage expected, BufferedImage actual) {
+        assertEquals(expected.getWidth(), actual.getWidth(), "Wrong width");
+        assertEquals(expected.getHeight(), actual.getHeight(), "Wrong height");
+        for (int y = 0; y < expected.getHeight(); y++)
+            for (int x = 0; x < expected.getWidth(); x++)
+                assertEquals(expected.getRGB(x, y), actual.getRGB(x, y), "Wrong pixel " + x + "," + y);
+    }
+}
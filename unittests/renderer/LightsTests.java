@@ -64,8 +64,8 @@ public class LightsTests {
      */
     @Test
     public void sphereDirectional() {
-        scene1.geometries.add(sphere);
-        scene1.lights.add(new DirectionalLight(sphereLightColor, new Vector(1, 1, -0.5)));
+        scene1.addGeometries(sphere);
+        scene1.addLights(new DirectionalLight(sphereLightColor, new Vector(1, 1, -0.5)));
 
         ImageWriter imageWriter = new ImageWriter("lightSphereDirectional", 500, 500);
         camera1.setImageWriter(imageWriter) //
@@ -79,8 +79,8 @@ public class LightsTests {
      */
     @Test
     public void spherePoint() {
-        scene1.geometries.add(sphere);
-        scene1.lights.add(new PointLight(sphereLightColor, sphereLightPosition)
+        scene1.addGeometries(sphere);
+        scene1.addLights(new PointLight(sphereLightColor, sphereLightPosition)
                 .setkL(0.001).setkQ(0.0002));
 
         ImageWriter imageWriter = new ImageWriter("lightSpherePoint", 500, 500);
@@ -95,8 +95,8 @@ public class LightsTests {
      */
     @Test
     public void sphereSpot() {
-        scene1.geometries.add(sphere);
-        scene1.lights.add(new SpotLight(sphereLightColor, sphereLightPosition, new Vector(1, 1, -0.5))
+        scene1.addGeometries(sphere);
+        scene1.addLights(new SpotLight(sphereLightColor, sphereLightPosition, new Vector(1, 1, -0.5))
                 .setkL(0.001).setkQ(0.0001));
 
         ImageWriter imageWriter = new ImageWriter("lightSphereSpot", 500, 500);
@@ -111,8 +111,8 @@ public class LightsTests {
      */
     @Test
     public void trianglesDirectional() {
-        scene2.geometries.add(triangle1, triangle2);
-        scene2.lights.add(new DirectionalLight(trianglesLightColor, trianglesLightDirection));
+        scene2.addGeometries(triangle1, triangle2);
+        scene2.addLights(new DirectionalLight(trianglesLightColor, trianglesLightDirection));
 
         ImageWriter imageWriter = new ImageWriter("lightTrianglesDirectional", 500, 500);
         camera2.setImageWriter(imageWriter) //
@@ -126,8 +126,8 @@ public class LightsTests {
      */
     @Test
     public void trianglesPoint() {
-        scene2.geometries.add(triangle1, triangle2);
-        scene2.lights.add(new PointLight(trianglesLightColor, trianglesLightPosition)
+        scene2.addGeometries(triangle1, triangle2);
+        scene2.addLights(new PointLight(trianglesLightColor, trianglesLightPosition)
                 .setkL(0.001).setkQ(0.0002));
 
         ImageWriter imageWriter = new ImageWriter("lightTrianglesPoint", 500, 500);
@@ -142,8 +142,8 @@ public class LightsTests {
      */
     @Test
     public void trianglesSpot() {
-        scene2.geometries.add(triangle1, triangle2);
-        scene2.lights.add(new SpotLight(trianglesLightColor, trianglesLightPosition, trianglesLightDirection)
+        scene2.addGeometries(triangle1, triangle2);
+        scene2.addLights(new SpotLight(trianglesLightColor, trianglesLightPosition, trianglesLightDirection)
                 .setkL(0.001).setkQ(0.0001));
 
         ImageWriter imageWriter = new ImageWriter("lightTrianglesSpot", 500, 500);
@@ -158,9 +158,9 @@ public class LightsTests {
      */
     @Test
     public void sphereSpotSharp() {
-        scene1.geometries.add(sphere);
-        scene1.lights
-                .add(new SpotLight(sphereLightColor, sphereLightPosition, new Vector(1, 1, -0.5))
+        scene1.addGeometries(sphere);
+        scene1
+                .addLights(new SpotLight(sphereLightColor, sphereLightPosition, new Vector(1, 1, -0.5))
                         .setNarrowBeam(10).setkL(0.001).setkQ(0.00004));
 
         ImageWriter imageWriter = new ImageWriter("lightSphereSpotSharp", 500, 500);
@@ -175,8 +175,8 @@ public class LightsTests {
      */
     @Test
     public void trianglesSpotSharp() {
-        scene2.geometries.add(triangle1, triangle2);
-        scene2.lights.add(new SpotLight(trianglesLightColor, trianglesLightPosition, trianglesLightDirection)
+        scene2.addGeometries(triangle1, triangle2);
+        scene2.addLights(new SpotLight(trianglesLightColor, trianglesLightPosition, trianglesLightDirection)
                 .setNarrowBeam(10).setkL(0.001).setkQ(0.00004));
 
         ImageWriter imageWriter = new ImageWriter("lightTrianglesSpotSharp", 500, 500);
@@ -188,11 +188,11 @@ public class LightsTests {
 
     @Test
     public void sphereMultipleLights() {
-        scene1.geometries.add(sphere);
-        scene1.lights.add(new DirectionalLight(sphereLightColor, new Vector(1, 1, -0.5)));
-        scene1.lights.add(new SpotLight(sphereLightColor, new Point(50,50,25) , new Vector(-1, -1, -0.5)).setkL(0.001).setkQ(0.0001));
-        scene1.lights.add(new PointLight(sphereLightColor, new Point(5,0,0)));
-        scene1.lights.add(new SpotLight(sphereLightColor, new Point(-50, 50, 10), new Vector(1, -1, -0.2))
+        scene1.addGeometries(sphere);
+        scene1.addLights(new DirectionalLight(sphereLightColor, new Vector(1, 1, -0.5)));
+        scene1.addLights(new SpotLight(sphereLightColor, new Point(50,50,25) , new Vector(-1, -1, -0.5)).setkL(0.001).setkQ(0.0001));
+        scene1.addLights(new PointLight(sphereLightColor, new Point(5,0,0)));
+        scene1.addLights(new SpotLight(sphereLightColor, new Point(-50, 50, 10), new Vector(1, -1, -0.2))
                 .setNarrowBeam(10).setkL(0.001).setkQ(0.00004));
 
         ImageWriter imageWriter = new ImageWriter("lightSphereMultiple", 500, 500);
@@ -203,12 +203,12 @@ public class LightsTests {
     }
     @Test
     public void trianglesMultipleLights(){
-        scene2.geometries.add(triangle1, triangle2);
-        scene2.lights.add(new DirectionalLight(new Color(83, 114, 237), trianglesLightDirection));
-        scene2.lights.add(new PointLight(trianglesLightColor, trianglesLightPosition)
+        scene2.addGeometries(triangle1, triangle2);
+        scene2.addLights(new DirectionalLight(new Color(83, 114, 237), trianglesLightDirection));
+        scene2.addLights(new PointLight(trianglesLightColor, trianglesLightPosition)
                 .setkL(0.001).setkQ(0.0008));
-        scene2.lights.add(new SpotLight(trianglesLightColor, new Point(30, -30, -100), trianglesLightDirection));
-        scene2.lights.add(new SpotLight(trianglesLightColor, new Point(-30, -10, -100), trianglesLightDirection)
+        scene2.addLights(new SpotLight(trianglesLightColor, new Point(30, -30, -100), trianglesLightDirection));
+        scene2.addLights(new SpotLight(trianglesLightColor, new Point(-30, -10, -100), trianglesLightDirection)
                 .setNarrowBeam(10).setkL(0.001).setkQ(0.00004));
 
         ImageWriter imageWriter = new ImageWriter("lightTrianglesMultiple", 500, 500);
@@ -0,0 +1,76 @@
+package renderer;
+
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Ray;
+import primitives.RayPacket;
+import primitives.Vector;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for renderer.RayGenerator class - the rays are compared to the rays of the camera
+ *
+ * @author Raz
+ */
+class RayGeneratorTests {
+    private final Camera camera = new Camera(new Point(1, 2, 3), new Vector(1, 1, 0), new Vector(0, 0, 1))
+            .setVPSize(12, 10).setVPDistance(7);
+
+    /**
+     * Test method for {@link renderer.RayGenerator#constructRay(int, int)}.
+     */
+    @Test
+    void testConstructRay() {
+        RayGenerator generator = camera.createRayGenerator(7, 5);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Every pixel of an odd resolution - including the center row and column
+        for (int i = 0; i < 5; i++)
+            for (int j = 0; j < 7; j++)
+                assertEquals(camera.constructRay(7, 5, j, i), generator.constructRay(j, i), "Wrong ray " + j + "," + i);
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Corners of an even resolution
+        generator = camera.createRayGenerator(8, 6);
+        assertEquals(camera.constructRay(8, 6, 0, 0), generator.constructRay(0, 0), "Wrong corner ray");
+        assertEquals(camera.constructRay(8, 6, 7, 5), generator.constructRay(7, 5), "Wrong corner ray");
+    }
+
+    /**
+     * Test method for {@link renderer.RayGenerator#constructRay(double, double)}.
+     */
+    @Test
+    void testConstructRayAtPoint() {
+        RayGenerator generator = camera.createRayGenerator(8, 6);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The center of a pixel
+        Ray expected = camera.constructRay(8, 6, 2, 3), actual = generator.constructRay(2.5, 3.5);
+        assertEquals(expected.getP0(), actual.getP0(), "Wrong ray head");
+        assertEquals(0, expected.getDir().distance(actual.getDir()), 1e-12, "Wrong ray direction");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: The center of the view plane
+        assertEquals(new Vector(1, 1, 0).normalize(), generator.constructRay(4.0, 3.0).getDir(), "Wrong center ray");
+    }
+
+    /**
+     * Test method for {@link renderer.RayGenerator#fillTile(int, int, int, int, RayPacket)}.
+     */
+    @Test
+    void testFillTile() {
+        RayGenerator generator = camera.createRayGenerator(7, 5);
+        RayPacket packet = new RayPacket(6);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A tile of 3 x 2 pixels, row by row
+        assertEquals(6, generator.fillTile(2, 1, 5, 3, packet), "Wrong amount of rays");
+        for (int k = 0; k < 6; k++)
+            assertEquals(camera.constructRay(7, 5, 2 + k % 3, 1 + k / 3), packet.getRay(k), "Wrong ray " + k);
+
+        // =============== Boundary Values Tests ==================
+        // TC11: The packet is full
+        assertThrows(IllegalStateException.class, () -> generator.fillRow(0, 0, 1, packet), "Full packet");
+    }
+}
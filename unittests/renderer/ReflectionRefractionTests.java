@@ -32,12 +32,12 @@ public class ReflectionRefractionTests {
         Camera camera = new Camera(new Point(0, 0, 1000), new Vector(0, 0, -1), new Vector(0, 1, 0)) //
                 .setVPSize(150, 150).setVPDistance(1000);
 
-        scene.geometries.add( //
+        scene.addGeometries( //
                 new Sphere(50d, new Point(0, 0, -50)).setEmission(new Color(BLUE)) //
                         .setMaterial(new Material().setKd(0.4).setKs(0.3).setShininess(100).setkT(0.3)),
                 new Sphere(25d, new Point(0, 0, -50)).setEmission(new Color(RED)) //
                         .setMaterial(new Material().setKd(0.5).setKs(0.5).setShininess(100)));
-        scene.lights.add( //
+        scene.addLights( //
                 new SpotLight(new Color(1000, 600, 0), new Point(-100, -100, 500), new Vector(-1, -1, -2)) //
                         .setkL(0.0004).setkQ(0.0000006));
 
@@ -58,7 +58,7 @@ public class ReflectionRefractionTests {
         scene.setAmbientLight(new AmbientLight(new Color(255, 255, 255), 0.1));
 
 
-        scene.geometries.add( //
+        scene.addGeometries( //
                 new Sphere(400d, new Point(-950, -900, -1000)).setEmission(new Color(0, 50, 100)) //
                         .setMaterial(new Material().setKd(0.25).setKs(0.25).setShininess(20)
                                 .setkT(new Double3(0.5, 0, 0))),
@@ -73,7 +73,7 @@ public class ReflectionRefractionTests {
                         .setEmission(new Color(20, 20, 20)) //
                         .setMaterial(new Material().setkR(new Double3(0.5, 0, 0.4))));
 
-        scene.lights.add(new SpotLight(new Color(1020, 400, 400), new Point(-750, -750, -150), new Vector(-1, -1, -4)) //
+        scene.addLights(new SpotLight(new Color(1020, 400, 400), new Point(-750, -750, -150), new Vector(-1, -1, -4)) //
                 .setkL(0.00001).setkQ(0.000005));
 
         ImageWriter imageWriter = new ImageWriter("reflectionTwoSpheresMirrored", 500, 500);
@@ -95,7 +95,7 @@ public class ReflectionRefractionTests {
 
         scene.setAmbientLight(new AmbientLight(new Color(WHITE), 0.15));
 
-        scene.geometries.add( //
+        scene.addGeometries( //
                 new Triangle(new Point(-150, -150, -115), new Point(150, -150, -135),
                         new Point(75, 75, -150)) //
                         .setMaterial(new Material().setKd(0.5).setKs(0.5).setShininess(60)), //
@@ -104,7 +104,7 @@ public class ReflectionRefractionTests {
                 new Sphere(30d, new Point(60, 50, -50)).setEmission(new Color(BLUE)) //
                         .setMaterial(new Material().setKd(0.2).setKs(0.2).setShininess(30).setkT(0.6)));
 
-        scene.lights.add(new SpotLight(new Color(700, 400, 400), new Point(60, 50, 0), new Vector(0, 0, -1)) //
+        scene.addLights(new SpotLight(new Color(700, 400, 400), new Point(60, 50, 0), new Vector(0, 0, -1)) //
                 .setkL(4E-5).setkQ(2E-7));
 
         ImageWriter imageWriter = new ImageWriter("refractionShadow", 600, 600);
@@ -146,7 +146,7 @@ public class ReflectionRefractionTests {
                 .setShininess(60)
                 .setkR(0.02)
         );
-        scene.geometries.add(plane);
+        scene.addGeometries(plane);
 
         // Sphere 1
         Sphere sphere1 = new Sphere(50, new Point(0, -50, 50));
@@ -157,7 +157,7 @@ public class ReflectionRefractionTests {
                 .setkR(0.3)
         );
         sphere1.setEmission(new Color(0, 0, 255));
-        scene.geometries.add(sphere1);
+        scene.addGeometries(sphere1);
 
         // Sphere 2
         Sphere sphere2 = new Sphere(30, new Point(70, 70, 30));
@@ -168,7 +168,7 @@ public class ReflectionRefractionTests {
                 .setkR(0.1).setkT(0.35)
         );
         sphere2.setEmission(new Color(255, 0, 0));
-        scene.geometries.add(sphere2);
+        scene.addGeometries(sphere2);
 
         Sphere sphere3 = new Sphere(20, new Point(70, 70, 30));
         sphere3.setMaterial(new Material()
@@ -178,7 +178,7 @@ public class ReflectionRefractionTests {
                 .setkR(0.3)
         );
         sphere3.setEmission(new Color(0, 255, 0));
-        scene.geometries.add(sphere3);
+        scene.addGeometries(sphere3);
 
         // Triangle 1
         Triangle triangle1 = new Triangle(
@@ -193,7 +193,7 @@ public class ReflectionRefractionTests {
                 .setkR(0.2)
         );
         triangle1.setEmission(new Color(0, 255, 0));
-        scene.geometries.add(triangle1);
+        scene.addGeometries(triangle1);
 
         // Triangle 2
         Triangle triangle2 = new Triangle(
@@ -208,14 +208,14 @@ public class ReflectionRefractionTests {
                 .setkR(0.2)
         );
         triangle2.setEmission(new Color(255, 255, 255));
-        scene.geometries.add(triangle2);
+        scene.addGeometries(triangle2);
 
         // Add lights to the scene
         SpotLight spotLight = new SpotLight(
                 new Color(1000, 1000, 1000),
                 new Point(-100, 100, 100),
                 new Vector(1, -1, -1)).setkL(0.0004).setkQ(0.0001);
-        scene.lights.add(spotLight);
+        scene.addLights(spotLight);
 
         // Render the scene
         ImageWriter imageWriter = new ImageWriter("MultipleObjects", 600, 600);
@@ -252,7 +252,7 @@ public class ReflectionRefractionTests {
               .setShininess(60)
               .setkR(0.02)
       );
-      scene.geometries.add(plane);
+      scene.addGeometries(plane);
 
       // Spheres
       Sphere[] spheres = new Sphere[4];
@@ -270,7 +270,7 @@ public class ReflectionRefractionTests {
                  .setkR(0.3)
          );
          sphere.setEmission(new Color((i + 1) * 50, i * 100, (i + 1) * 100));
-         scene.geometries.add(sphere);
+         scene.addGeometries(sphere);
       }
 
       // Triangles
@@ -305,7 +305,7 @@ public class ReflectionRefractionTests {
                  .setkR(0.2)
          );
          triangle.setEmission(new Color(i * 100, (i + 1) * 50, (i + 1) * 100));
-         scene.geometries.add(triangle);
+         scene.addGeometries(triangle);
       }
 
        // Polygon
@@ -323,7 +323,7 @@ public class ReflectionRefractionTests {
                .setkR(0.2)
        );
        polygon.setEmission(new Color(255, 255, 0));
-       scene.geometries.add(polygon);
+       scene.addGeometries(polygon);
 
 
       // Add lights to the scene
@@ -331,7 +331,7 @@ public class ReflectionRefractionTests {
               new Color(1000, 1000, 1000),
               new Point(-100, 100, 100),
               new Vector(1, -1, -1)).setkL(0.0004).setkQ(0.0001);
-      scene.lights.add(spotLight);
+      scene.addLights(spotLight);
 
       // Render the scene
       ImageWriter imageWriter = new ImageWriter("anotherMultipleObjectTest", 600, 600);
@@ -0,0 +1,221 @@
+package renderer;
+
+import geometries.Sphere;
+import geometries.Triangle;
+import lighting.AmbientLight;
+import lighting.SpotLight;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import scene.Scene;
+
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static renderer.ImageAssertions.assertSameImage;
+import static renderer.ImageAssertions.read;
+
+/**
+ * Unit tests for renderer.RenderFarm class - the images rendered by the workers are compared to the
+ * images of a render in this process
+ *
+ * @author Raz
+ */
+class RenderFarmTests {
+    /**
+     * The token of the farms of the workers of this process
+     */
+    private static final String TOKEN = "farm test token";
+
+    /**
+     * The camera of the test scene, without an image writer
+     */
+    private static Camera camera() {
+        Scene scene = new Scene("Farm scene").setAmbientLight(new AmbientLight(new Color(java.awt.Color.WHITE), 0.15));
+        scene.addGeometries(new Sphere(60, new Point(0, 0, -200)).setEmission(new Color(java.awt.Color.BLUE))
+                        .setMaterial(new Material().setKd(0.5).setKs(0.5).setShininess(30)),
+                new Triangle(new Point(-70, -40, 0), new Point(-40, -70, 0), new Point(-68, -68, -4))
+                        .setEmission(new Color(java.awt.Color.BLUE)).setMaterial(new Material().setKd(0.5).setKs(0.5)));
+        scene.addLights(new SpotLight(new Color(400, 240, 0), new Point(-100, -100, 200), new Vector(1, 1, -3))
+                .setkL(1E-5).setkQ(1.5E-7));
+        scene.activateBVH();
+        return new Camera(new Point(0, 0, 1000), new Vector(0, 0, -1), new Vector(0, 1, 0))
+                .setVPSize(200, 200).setVPDistance(1000).setRayTracer(new RayTracerBasic(scene))
+                .setProgressListener(ProgressListener.NONE).setTileSize(16).setThreadsCount(2);
+    }
+
+    /**
+     * Renders the test image in this process and writes it
+     */
+    private static void renderExpected(String name) {
+        camera().setImageWriter(new ImageWriter(name, 150, 130)).renderImage().writeToImage();
+    }
+
+    /**
+     * A free port for the coordinator
+     */
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * Connects to the coordinator, waiting for it to listen
+     */
+    private static Socket connect(int port) throws IOException, InterruptedException {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return new Socket("127.0.0.1", port);
+            } catch (IOException e) {
+                if (attempt == 100) throw e;
+                Thread.sleep(50);
+            }
+        }
+    }
+
+    /**
+     * Runs a worker of this process in the background, after another worker is done
+     */
+    private static Thread startWorker(int port, Thread after) {
+        Thread worker = new Thread(() -> {
+            try {
+                after.join();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            try (Socket socket = connect(port)) {
+                new RenderWorker(socket, TOKEN).run();
+            } catch (IOException | InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        worker.start();
+        return worker;
+    }
+
+    /**
+     * Answers the challenge of the coordinator
+     */
+    private static void answer(DataInputStream in, DataOutputStream out, String token) throws IOException {
+        byte[] challenge = new byte[RenderWorker.CHALLENGE_SIZE];
+        in.readFully(challenge);
+        out.write(RenderWorker.answer(token, challenge));
+        out.flush();
+    }
+
+    /**
+     * Runs a broken worker in the background - it reads the scene and then fails its tiles: it
+     * disconnects in the middle of its first tile, or replies that it failed every tile
+     */
+    private static Thread startBrokenWorker(int port, boolean disconnect) {
+        Thread worker = new Thread(() -> {
+            try (Socket socket = connect(port)) {
+                DataInputStream in = new DataInputStream(socket.getInputStream());
+                DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+                answer(in, out, TOKEN);
+                in.readFully(new byte[in.readInt()]);
+                in.readInt();
+                in.readInt();
+                while (in.readInt() != RenderWorker.STOP) {
+                    in.readInt();
+                    in.readInt();
+                    in.readInt();
+                    if (disconnect) return;
+                    out.writeLong(RenderWorker.FAILED);
+                    out.writeUTF("broken worker");
+                }
+            } catch (IOException | InterruptedException e) {
+                // the coordinator disconnects the workers of a failed render
+            }
+        });
+        worker.start();
+        return worker;
+    }
+
+    /**
+     * Test method for {@link renderer.RenderFarm#render()}.
+     */
+    @Test
+    void testRender() throws IOException, InterruptedException {
+        renderExpected("farmExpected");
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Render on local worker processes
+        Camera camera = camera().setImageWriter(new ImageWriter("farmProcesses", 150, 130));
+        RenderFarm farm = new RenderFarm(camera).setLocalWorkers(2).setTileSize(32).render();
+        camera.writeToImage();
+        assertSameImage(read("farmExpected"), read("farmProcesses"));
+        assertEquals(150 * 130, farm.getRenderProgress().getRays(), "Wrong amount of rays");
+
+        // TC02: The tiles of a worker that disconnects are rendered by another worker
+        int port = freePort();
+        Thread broken = startBrokenWorker(port, true);
+        Thread worker = startWorker(port, broken);
+        camera = camera().setImageWriter(new ImageWriter("farmRetry", 150, 130));
+        farm = new RenderFarm(camera).setAddress("127.0.0.1", port).setToken(TOKEN).setTileSize(40).render();
+        camera.writeToImage();
+        worker.join();
+        assertSameImage(read("farmExpected"), read("farmRetry"));
+        assertEquals(150 * 130, farm.getRenderProgress().getRays(), "Tile counted twice");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: A tile that failed on all its attempts fails the render
+        int failingPort = freePort();
+        broken = startBrokenWorker(failingPort, false);
+        RenderFarm failing = new RenderFarm(camera().setImageWriter(new ImageWriter("farmFailed", 150, 130)))
+                .setAddress("127.0.0.1", failingPort).setToken(TOKEN).setMaxAttempts(2);
+        assertThrows(IllegalStateException.class, failing::render, "Failed tile not reported");
+        broken.join();
+
+        // TC12: A render without workers fails after the timeout
+        RenderFarm idle = new RenderFarm(camera().setImageWriter(new ImageWriter("farmIdle", 150, 130)))
+                .setTimeout(200);
+        assertThrows(IllegalStateException.class, idle::render, "Render without workers");
+
+        // TC13: A worker with a wrong token is disconnected before it gets the scene
+        int guardedPort = freePort();
+        boolean[] gotScene = {true};
+        Thread impostor = new Thread(() -> {
+            try (Socket socket = connect(guardedPort)) {
+                DataInputStream in = new DataInputStream(socket.getInputStream());
+                answer(in, new DataOutputStream(socket.getOutputStream()), "wrong token");
+                gotScene[0] = in.read() >= 0;
+            } catch (IOException | InterruptedException e) {
+                gotScene[0] = false;
+            }
+        });
+        impostor.start();
+        worker = startWorker(guardedPort, impostor);
+        camera = camera().setImageWriter(new ImageWriter("farmGuarded", 150, 130));
+        new RenderFarm(camera).setAddress("127.0.0.1", guardedPort).setToken(TOKEN).setTileSize(40).render();
+        camera.writeToImage();
+        worker.join();
+        assertFalse(gotScene[0], "Scene sent to a worker with a wrong token");
+        assertSameImage(read("farmExpected"), read("farmGuarded"));
+    }
+
+    /**
+     * Test method for {@link renderer.RenderWorker#readCamera(byte[])}.
+     */
+    @Test
+    void testReadCamera() throws IOException {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A camera with its ray tracer and scene
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(camera());
+        }
+        assertNotNull(RenderWorker.readCamera(bytes.toByteArray()), "Camera not read");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: A stream with a class that isn't part of a camera is rejected before it is created
+        bytes.reset();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(new java.util.HashMap<String, Camera>());
+        }
+        assertThrows(InvalidClassException.class, () -> RenderWorker.readCamera(bytes.toByteArray()),
+                "Foreign class read");
+    }
+}
@@ -0,0 +1,51 @@
+package renderer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for renderer.RenderProgress class
+ *
+ * @author Raz
+ */
+class RenderProgressTests {
+
+    /**
+     * Test method for {@link renderer.RenderProgress#pixelsDone(long)}.
+     */
+    @Test
+    void testPixelsDone() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Two renders counted concurrently don't affect each other
+        AtomicInteger calls1 = new AtomicInteger(), calls2 = new AtomicInteger();
+        RenderProgress progress1 = new RenderProgress(100_000, p -> calls1.incrementAndGet());
+        RenderProgress progress2 = new RenderProgress(50_000, p -> calls2.incrementAndGet());
+        IntStream.range(0, 100_000).parallel().forEach(i -> {
+            progress1.pixelsDone(1);
+            if (i % 2 == 0) progress2.pixelsDone(1);
+        });
+        assertEquals(100_000, progress1.getDonePixels(), "Wrong amount of pixels");
+        assertEquals(50_000, progress2.getDonePixels(), "Wrong amount of pixels");
+        assertTrue(progress1.isDone() && progress2.isDone(), "Render should be done");
+
+        // TC02: The listener is called once per tenth of a percent at most
+        assertTrue(calls1.get() <= 1000 && calls1.get() > 0, "Wrong amount of listener calls");
+        assertTrue(calls2.get() <= 1000 && calls2.get() > 0, "Wrong amount of listener calls");
+
+        // TC03: The rays are summed with the pixels
+        RenderProgress progress3 = new RenderProgress(100, ProgressListener.NONE);
+        progress3.pixelsDone(40, 70);
+        progress3.pixelsDone(10);
+        assertEquals(70, progress3.getRays(), "Wrong amount of rays");
+        assertEquals(1.4, progress3.getRaysPerPixel(), 1e-10, "Wrong rays per pixel");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Empty render
+        assertThrows(IllegalArgumentException.class, () -> new RenderProgress(0, ProgressListener.NONE),
+                "Empty render should throw");
+    }
+}
@@ -25,7 +25,7 @@ public class RenderTests {
                                            new Double3(1, 1, 1))) //
          .setBackground(new Color(75, 127, 90));
 
-      scene.geometries.add(new Sphere(50d, new Point(0, 0, -100)),
+      scene.addGeometries(new Sphere(50d, new Point(0, 0, -100)),
                            new Triangle(new Point(-100, 0, -100), new Point(0, 100, -100), new Point(-100, 100, -100)), // up
                            // left
                            new Triangle(new Point(-100, 0, -100), new Point(0, -100, -100),
@@ -52,7 +52,7 @@ public class RenderTests {
     Scene scene = new Scene("Test scene")//
     .setAmbientLight(new AmbientLight(new Color(WHITE), new Double3(0.2))); //
 
-    scene.geometries.add( //
+    scene.addGeometries( //
     new Sphere(50, new Point(0, 0, -100)),
     // up left
     new Triangle(new Point(-100, 0, -100), new Point(0, 100, -100), new
@@ -30,8 +30,8 @@ public class ShadowTests {
      * Helper function for the tests in this module
      */
     void sphereTriangleHelper(String pictName, Triangle triangle, Point spotLocation) {
-        scene.geometries.add(sphere, triangle.setEmission(new Color(BLUE)).setMaterial(trMaterial));
-        scene.lights.add( //
+        scene.addGeometries(sphere, triangle.setEmission(new Color(BLUE)).setMaterial(trMaterial));
+        scene.addLights( //
                 new SpotLight(new Color(400, 240, 0), spotLocation, new Vector(1, 1, -3)) //
                         .setkL(1E-5).setkQ(1.5E-7));
         camera.setImageWriter(new ImageWriter(pictName, 400, 400)) //
@@ -101,7 +101,7 @@ public class ShadowTests {
     public void trianglesSphere() {
         scene.setAmbientLight(new AmbientLight(new Color(WHITE), 0.15));
 
-        scene.geometries.add( //
+        scene.addGeometries( //
                 new Triangle(new Point(-150, -150, -115), new Point(150, -150, -135),
                         new Point(75, 75, -150)) //
                         .setMaterial(new Material().setKs(0.8).setShininess(60)), //
@@ -111,7 +111,7 @@ public class ShadowTests {
                         .setEmission(new Color(BLUE)) //
                         .setMaterial(new Material().setKd(0.5).setKs(0.5).setShininess(30)) //
         );
-        scene.lights.add( //
+        scene.addLights( //
                 new SpotLight(new Color(700, 400, 400), new Point(40, 40, 115), new Vector(-1, -1, -4)) //
                         .setkL(4E-4).setkQ(2E-5));
 
@@ -0,0 +1,138 @@
+package renderer;
+
+import geometries.Sphere;
+import geometries.Triangle;
+import lighting.AmbientLight;
+import lighting.SpotLight;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import scene.Scene;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static renderer.ImageAssertions.assertSameImage;
+import static renderer.ImageAssertions.read;
+
+/**
+ * Unit tests for renderer.StreamingImageWriter class - the streamed files are compared to the files
+ * of the regular image writer
+ *
+ * @author Raz
+ */
+class StreamingImageWriterTests {
+
+    /**
+     * Test method for {@link renderer.StreamingImageWriter#tileDone(int, int, int, int)} through a render.
+     */
+    @Test
+    void testRender() throws IOException {
+        Scene scene = new Scene("Streaming scene").setAmbientLight(new AmbientLight(new Color(java.awt.Color.WHITE), 0.15));
+        scene.addGeometries(new Sphere(60, new Point(0, 0, -200)).setEmission(new Color(java.awt.Color.BLUE))
+                        .setMaterial(new Material().setKd(0.5).setKs(0.5).setShininess(30)),
+                new Triangle(new Point(-70, -40, 0), new Point(-40, -70, 0), new Point(-68, -68, -4))
+                        .setEmission(new Color(java.awt.Color.BLUE)).setMaterial(new Material().setKd(0.5).setKs(0.5)));
+        scene.addLights(new SpotLight(new Color(400, 240, 0), new Point(-100, -100, 200), new Vector(1, 1, -3))
+                .setkL(1E-5).setkQ(1.5E-7));
+        Camera camera = new Camera(new Point(0, 0, 1000), new Vector(0, 0, -1), new Vector(0, 1, 0))
+                .setVPSize(200, 200).setVPDistance(1000).setRayTracer(new RayTracerBasic(scene))
+                .setProgressListener(ProgressListener.NONE).setTileSize(24).setThreadsCount(3);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Streamed render of an image that isn't a whole amount of tiles and bands
+        camera.setImageWriter(new ImageWriter("streamingExpected", 301, 250)).renderImage().writeToImage();
+        camera.setImageWriter(new StreamingImageWriter("streamingActual", 301, 250)).renderImage().writeToImage();
+        assertSameImage(read("streamingExpected"), read("streamingActual"));
+    }
+
+    /**
+     * Test method for {@link renderer.StreamingImageWriter#awaitRow(int, int)} through a render.
+     */
+    @Test
+    void testAwaitRow() {
+        Scene scene = new Scene("Tall scene");
+        scene.addGeometries(new Sphere(100, new Point(0, 0, -200)).setEmission(new Color(java.awt.Color.BLUE)));
+        Camera camera = new Camera(new Point(0, 0, 1000), new Vector(0, 0, -1), new Vector(0, 1, 0))
+                .setVPSize(25, 200).setVPDistance(1000).setRayTracer(new RayTracerBasic(scene))
+                .setProgressListener(ProgressListener.NONE).setTileSize(16);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The bands held at once stay within a few rows of tiles, for any amount of threads
+        for (int threads : new int[]{2, 8}) {
+            StreamingImageWriter writer = new StreamingImageWriter("streamingTall", 256, 2048);
+            camera.setThreadsCount(threads).setImageWriter(writer).renderImage().writeToImage();
+            // the rows of tiles at the first row that isn't done and after it, and the bands they overlap
+            assertTrue(writer.getPeakBands() <= 4, "Held " + writer.getPeakBands() + " bands with " + threads
+                    + " threads");
+        }
+    }
+
+    /**
+     * Test method for {@link renderer.StreamingImageWriter#writeToImage()}.
+     */
+    @Test
+    void testWriteToImage() throws IOException {
+        ImageWriter expected = new ImageWriter("streamingGridExpected", 800, 600);
+        StreamingImageWriter actual = new StreamingImageWriter("streamingGridActual", 800, 600);
+        for (int i = 0; i < 800; i++)
+            for (int j = 0; j < 500; j++) {
+                Color color = i % 50 == 0 || j % 50 == 0 ? new Color(52, 100, 235) : new Color(235, 64, 300);
+                expected.writePixel(i, j, color);
+                actual.writePixel(i, j, color);
+            }
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Pixels written without tiles are all written at the end, the missing rows are black
+        expected.writeToImage();
+        actual.writeToImage();
+        assertSameImage(read("streamingGridExpected"), read("streamingGridActual"));
+
+        // =============== Boundary Values Tests ==================
+        // TC11: The image can't be written twice
+        assertThrows(IllegalStateException.class, actual::writeToImage, "Image written twice");
+    }
+
+    /**
+     * Test method for {@link renderer.StreamingImageWriter#writePixel(int, int, Color)}.
+     */
+    @Test
+    void testWritePixel() {
+        StreamingImageWriter writer = new StreamingImageWriter("streamingRows", 10, 10);
+        for (int i = 0; i < 10; i++)
+            for (int j = 0; j < 5; j++)
+                writer.writePixel(i, j, Color.BLACK);
+        writer.tileDone(0, 0, 10, 5);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A row that isn't done yet can be written
+        assertDoesNotThrow(() -> writer.writePixel(0, 5, Color.BLACK), "Row not written yet");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: The last done row is already in the file
+        assertThrows(IllegalStateException.class, () -> writer.writePixel(0, 4, Color.BLACK), "Row already written");
+        writer.writeToImage();
+    }
+
+    /**
+     * Test method for {@link renderer.StreamingImageWriter#close()}.
+     */
+    @Test
+    void testClose() {
+        StreamingImageWriter writer = new StreamingImageWriter("streamingClosed", 10, 10);
+        for (int i = 0; i < 10; i++)
+            writer.writePixel(i, 0, Color.BLACK);
+        writer.tileDone(0, 0, 10, 1);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A closed writer can't go on with the image
+        writer.close();
+        assertThrows(IllegalStateException.class, writer::writeToImage, "Image written after close");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Closing a closed or written writer does nothing
+        assertDoesNotThrow(writer::close, "Closed twice");
+        StreamingImageWriter written = new StreamingImageWriter("streamingClosed", 10, 10);
+        written.writeToImage();
+        assertDoesNotThrow(written::close, "Closed a written image");
+    }
+}
@@ -0,0 +1,301 @@
+package scene;
+
+import geometries.*;
+import geometries.Intersectable.GeoPoint;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for scene.AABB class - the BVH results are compared to the brute force Geometries results
+ *
+ * @author Raz
+ */
+class AABBTests {
+
+    /**
+     * Amount of random rays for each differential test
+     */
+    private static final int RAYS = 2000;
+
+    /**
+     * Builds a random scene of spheres, triangles and polygons, some of them transparent, with a plane
+     *
+     * @param random the random generator
+     * @param count  amount of bodies
+     * @return the geometries
+     */
+    private static Geometries randomScene(Random random, int count) {
+        Geometries geometries = new Geometries(new Plane(new Point(0, 0, -60), new Vector(0.1, 0.2, 1)));
+        for (int i = 0; i < count; i++) {
+            Point p = randomPoint(random, 50);
+            Geometry body = switch (i % 3) {
+                case 0 -> new Sphere(random.nextDouble(0.5, 4), p);
+                case 1 -> new Triangle(p, p.add(randomVector(random, 5)), p.add(randomVector(random, 5)));
+                default -> new Polygon(p, p.add(new Vector(4, 0, 1)), p.add(new Vector(4, 4, 2)), p.add(new Vector(0, 4, 1)));
+            };
+            if (random.nextInt(4) == 0) body.setMaterial(new Material().setkT(0.5));
+            geometries.add(body);
+        }
+        return geometries;
+    }
+
+    private static Point randomPoint(Random random, double range) {
+        return new Point(random.nextDouble(-range, range), random.nextDouble(-range, range), random.nextDouble(-range, range));
+    }
+
+    private static Vector randomVector(Random random, double range) {
+        Vector v;
+        do {
+            v = new Vector(random.nextDouble(-range, range), random.nextDouble(-range, range), random.nextDouble(-range, range));
+        } while (v.lengthSquared() < 0.01);
+        return v;
+    }
+
+    /**
+     * Random ray, every tenth ray is parallel to one of the axes
+     */
+    private static Ray randomRay(Random random, int i) {
+        Point p0 = randomPoint(random, 80);
+        if (i % 10 == 0) {
+            double s = random.nextBoolean() ? 1 : -1;
+            return new Ray(p0, switch (random.nextInt(3)) {
+                case 0 -> new Vector(s, 0, 0);
+                case 1 -> new Vector(0, s, 0);
+                default -> new Vector(0, 0, s);
+            });
+        }
+        return new Ray(p0, randomVector(random, 1));
+    }
+
+    /**
+     * Sorts the hits by the distance from the ray head
+     */
+    private static List<GeoPoint> sorted(List<GeoPoint> list, Ray ray) {
+        return list == null ? null
+                : list.stream().sorted(Comparator.comparingDouble(gp -> ray.getP0().distance(gp.getPoint()))).toList();
+    }
+
+    /**
+     * Differential test of the three queries for the given build strategy
+     */
+    private void checkAgainstBruteForce(AABB.BuildStrategy strategy, long seed) {
+        Random random = new Random(seed);
+        Geometries geometries = randomScene(random, 300);
+        AABB bvh = new AABB(geometries, strategy);
+
+        for (int i = 0; i < RAYS; i++) {
+            Ray ray = randomRay(random, i);
+            double maxDis = i % 2 == 0 ? Double.POSITIVE_INFINITY : random.nextDouble(1, 150);
+            String msg = "ray " + i + " " + ray + " maxDis " + maxDis;
+
+            var expected = sorted(geometries.findGeoIntersections(ray, maxDis), ray);
+            var actual = sorted(bvh.findGeoIntersections(ray, maxDis), ray);
+            assertEquals(expected, actual, "Wrong intersections for " + msg);
+
+            GeoPoint expectedClosest = geometries.findClosestGeoIntersection(ray, maxDis);
+            GeoPoint actualClosest = bvh.findClosestGeoIntersection(ray, maxDis);
+            if (expectedClosest == null) assertNull(actualClosest, "Wrong closest intersection for " + msg);
+            else {
+                assertNotNull(actualClosest, "Missing closest intersection for " + msg);
+                assertEquals(ray.getP0().distance(expectedClosest.getPoint()), ray.getP0().distance(actualClosest.getPoint()),
+                        1e-9, "Wrong closest intersection for " + msg);
+            }
+
+            assertEquals(geometries.findTransparency(ray, maxDis, 0.001), bvh.findTransparency(ray, maxDis, 0.001),
+                    "Wrong transparency for " + msg);
+        }
+    }
+
+    /**
+     * Test method for {@link scene.AABB#findGeoIntersections(Ray, double)} and the closest-hit and
+     * occlusion queries, built with the binned surface area heuristic
+     */
+    @Test
+    void testBinnedAgainstBruteForce() {
+        checkAgainstBruteForce(AABB.BuildStrategy.BINNED_SAH, 5783);
+    }
+
+    /**
+     * Test method for {@link scene.AABB#findGeoIntersections(Ray, double)} and the closest-hit and
+     * occlusion queries, built with the full surface area heuristic
+     */
+    @Test
+    void testFullAgainstBruteForce() {
+        checkAgainstBruteForce(AABB.BuildStrategy.FULL_SAH, 1863);
+    }
+
+    /**
+     * Test method for {@link scene.AABB#findClosestGeoIntersections(RayPacket, boolean[], double[], GeoPoint[])}.
+     * Packets of coherent rays, some of them inactive or with a max distance, are compared to single ray queries.
+     */
+    @Test
+    void testPacketAgainstSingleRays() {
+        Random random = new Random(4217);
+        Geometries geometries = randomScene(random, 300);
+        AABB bvh = new AABB(geometries);
+        RayPacket packet = new RayPacket(64);
+
+        for (int p = 0; p < RAYS / 64; p++) {
+            // a beam from a single head, or rays around a common direction from spread heads
+            packet.clear();
+            Point head = randomPoint(random, 80);
+            Vector dir = randomVector(random, 1).normalize();
+            for (int k = 0; k < packet.capacity(); k++) {
+                if (p % 2 == 0) packet.add(new Ray(head, dir.add(randomVector(random, 0.1))));
+                else packet.add(new Ray(head.add(randomVector(random, 5)), dir));
+            }
+            boolean[] active = new boolean[packet.size()];
+            double[] maxDis = new double[packet.size()];
+            for (int k = 0; k < packet.size(); k++) {
+                active[k] = k % 7 != 3;
+                maxDis[k] = k % 3 == 0 ? random.nextDouble(1, 150) : Double.POSITIVE_INFINITY;
+            }
+            double[] limits = maxDis.clone();
+            GeoPoint[] hits = new GeoPoint[packet.size()];
+            bvh.findClosestGeoIntersections(packet, active, maxDis, hits);
+
+            for (int k = 0; k < packet.size(); k++) {
+                Ray ray = packet.getRay(k);
+                String msg = "packet " + p + " ray " + k + " " + ray;
+                GeoPoint expected = active[k] ? bvh.findClosestGeoIntersection(ray, limits[k]) : null;
+                if (expected == null) {
+                    assertNull(hits[k], "Wrong closest intersection for " + msg);
+                    assertEquals(limits[k], maxDis[k], "Max distance changed without a hit for " + msg);
+                } else {
+                    assertNotNull(hits[k], "Missing closest intersection for " + msg);
+                    double distance = ray.getP0().distance(expected.getPoint());
+                    assertEquals(distance, ray.getP0().distance(hits[k].getPoint()), 1e-9, "Wrong closest intersection for " + msg);
+                    assertEquals(distance, maxDis[k], 1e-9, "Max distance not updated for " + msg);
+                }
+            }
+        }
+
+        // the packet query of the collection gives the same hits
+        GeoPoint[] bvhHits = bvh.findClosestGeoIntersections(packet);
+        GeoPoint[] geometriesHits = geometries.findClosestGeoIntersections(packet);
+        for (int k = 0; k < packet.size(); k++)
+            assertEquals(geometriesHits[k] == null ? null : geometriesHits[k].getPoint(),
+                    bvhHits[k] == null ? null : bvhHits[k].getPoint(), "Wrong collection hit of ray " + k);
+    }
+
+    /**
+     * Test method for {@link scene.AABB#findGeoIntersections(Ray, double)}.
+     */
+    @Test
+    void testFindGeoIntersections() {
+        Geometries geometries = new Geometries();
+        for (int i = 0; i < 8; i++)
+            geometries.add(new Sphere(1, new Point(10 * i, 0, 0)));
+        AABB bvh = new AABB(geometries);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Ray crosses all the spheres, which are spread over both sub-trees (16 points)
+        assertEquals(16, bvh.findGeoIntersections(new Ray(new Point(-5, 0, 0), new Vector(1, 0, 0))).size(),
+                "Wrong number of points");
+
+        // TC02: All the boxes are behind the ray head (0 points)
+        assertNull(bvh.findGeoIntersections(new Ray(new Point(80, 0, 0), new Vector(1, 0, 0))),
+                "Boxes behind the ray head");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: The ray ends inside the second box - the box enters before maxDis and leaves after it (3 points)
+        assertEquals(3, bvh.findGeoIntersections(new Ray(new Point(-5, 0, 0), new Vector(1, 0, 0)), 15).size(),
+                "Wrong number of points");
+
+        // TC12: Ray head inside the last box (1 point)
+        assertEquals(1, bvh.findGeoIntersections(new Ray(new Point(70, 0, 0), new Vector(1, 0, 0))).size(),
+                "Wrong number of points");
+    }
+
+    /**
+     * Test method for {@link scene.AABB#refit()}.
+     */
+    @Test
+    void testRefit() {
+        Random random = new Random(2205);
+        // a wavy grid mesh in a bottom level tree, placed by instances in a top level tree
+        int edge = 6;
+        double[] vertices = new double[3 * (edge + 1) * (edge + 1)];
+        int[] indices = new int[6 * edge * edge];
+        for (int y = 0, i = 0; y < edge; y++)
+            for (int x = 0; x < edge; x++, i += 6) {
+                int a = y * (edge + 1) + x;
+                System.arraycopy(new int[]{a, a + 1, a + edge + 1, a + 1, a + edge + 2, a + edge + 1}, 0, indices, i, 6);
+            }
+        TriangleMesh mesh = new TriangleMesh(wave(vertices, edge, 0), indices);
+        AABB model = new AABB(new Geometries(mesh));
+        Instance[] instances = new Instance[40];
+        Geometries top = new Geometries(), bruteForce = new Geometries();
+        for (int i = 0; i < instances.length; i++) {
+            instances[i] = new Instance(model, randomPlace(random));
+            top.add(instances[i]);
+            bruteForce.add(new Instance(mesh, instances[i].getTransform()));
+        }
+        top.add(new Sphere(3, new Point(0, 0, -30)));
+        bruteForce.add(new Sphere(3, new Point(0, 0, -30)));
+        AABB bvh = new AABB(top);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Moved instances and a moved mesh - the refitted tree finds the hits of the moved bodies
+        for (int frame = 1; frame <= 3; frame++) {
+            for (int i = 0; i < instances.length; i += frame) {
+                Transform place = randomPlace(random);
+                instances[i].setTransform(place);
+                ((Instance) bruteForce.getBodies().get(i)).setTransform(place);
+            }
+            mesh.updateVertices(wave(new double[vertices.length], edge, frame));
+            model.refit();
+            bvh.refit();
+            int hits = 0;
+            for (int r = 0; r < RAYS / 4; r++) {
+                Ray ray = new Ray(Point.ZERO, randomVector(random, 1).add(new Vector(0, 0, -2)));
+                GeoPoint expected = bruteForce.findClosestGeoIntersection(ray), actual = bvh.findClosestGeoIntersection(ray);
+                if (expected == null) {
+                    assertNull(actual, "Hit outside the bodies in frame " + frame);
+                    continue;
+                }
+                hits++;
+                assertNotNull(actual, "Missed hit in frame " + frame);
+                assertEquals(expected.getPoint(), actual.getPoint(), "Wrong closest hit in frame " + frame);
+            }
+            assertTrue(hits > 0, "No hits in frame " + frame);
+        }
+
+        // =============== Boundary Values Tests ==================
+        // TC11: A mesh can't change its amount of vertices
+        assertThrows(IllegalArgumentException.class, () -> mesh.updateVertices(new double[3]), "Vertices added");
+
+        // TC12: A move that collapses the triangles is rejected and leaves the mesh as is
+        double[] kept = mesh.getVertices().clone();
+        assertThrows(IllegalArgumentException.class, () -> mesh.updateVertices(new double[vertices.length]),
+                "Collapsed triangles");
+        assertArrayEquals(kept, mesh.getVertices(), "Changed the vertices");
+    }
+
+    /**
+     * Fills the vertices of a grid with a wave of the given phase
+     */
+    private static double[] wave(double[] vertices, int edge, int phase) {
+        for (int y = 0, v = 0; y <= edge; y++)
+            for (int x = 0; x <= edge; x++, v += 3) {
+                vertices[v] = x - edge / 2.0;
+                vertices[v + 1] = y - edge / 2.0;
+                vertices[v + 2] = Math.sin(x + phase) * 0.5 + phase * 0.2;
+            }
+        return vertices;
+    }
+
+    /**
+     * A random place in front of the origin, with a random rotation
+     */
+    private static Transform randomPlace(Random random) {
+        return Transform.rotation(randomVector(random, 1), random.nextDouble(360))
+                .then(Transform.translation(random.nextDouble(-20, 20), random.nextDouble(-20, 20), random.nextDouble(-60, -20)));
+    }
+}
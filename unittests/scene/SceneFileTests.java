@@ -0,0 +1,122 @@
+package scene;
+
+import geometries.*;
+import lighting.AmbientLight;
+import lighting.DirectionalLight;
+import lighting.PointLight;
+import lighting.SpotLight;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import renderer.RayTracerBasic;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for scene.SceneFile class - the loaded scenes are compared to the written ones by the
+ * colors of rays traced through both
+ *
+ * @author Raz
+ */
+class SceneFileTests {
+
+    /**
+     * A scene with every geometry and light of the format, a shared material and a nested collection
+     */
+    private static Scene scene() {
+        Material shared = new Material().setKd(0.4).setKs(0.3).setShininess(20).setkR(0.2);
+        Scene scene = new Scene("File scene").setBackground(new Color(10, 20, 30))
+                .setAmbientLight(new AmbientLight(new Color(40, 40, 40), new Double3(0.1, 0.2, 0.3)));
+        scene.addGeometries(new Sphere(20, new Point(0, 0, -100)).setEmission(new Color(80, 0, 0)).setMaterial(shared),
+                new Triangle(new Point(-50, -50, -120), new Point(-10, -50, -120), new Point(-30, -10, -110))
+                        .setEmission(new Color(0, 60, 0)).setMaterial(shared),
+                new Polygon(new Point(20, 20, -130), new Point(60, 20, -130), new Point(60, 60, -140), new Point(20, 60, -140))
+                        .setMaterial(new Material().setKd(new Double3(0.2, 0.5, 0.7)).setkT(0.4)),
+                new Plane(new Point(0, 0, -200), new Vector(0, 0.3, 1)).setEmission(new Color(20, 20, 20)),
+                new Geometries(new Tube(5, new Ray(new Point(-60, 0, -150), new Vector(0, 1, 0.2))),
+                        new Cylinder(new Ray(new Point(60, -60, -120), new Vector(1, 1, 1)), 8, 30)
+                                .setEmission(new Color(0, 0, 90))),
+                new TriangleMesh(new double[]{-20, 30, -90, 0, 30, -95, -10, 50, -90, 10, 50, -100},
+                        new int[]{0, 1, 2, 1, 3, 2}).setEmission(new Color(50, 50, 0)).setMaterial(shared));
+        scene.addLights(new DirectionalLight(new Color(100, 100, 100), new Vector(1, -1, -1)));
+        scene.addLights(new PointLight(new Color(200, 150, 100), new Point(0, 100, 0)).setkL(0.001).setkQ(0.0001));
+        scene.addLights(new SpotLight(new Color(300, 0, 200), new Point(-50, 50, 50), new Vector(1, -1, -3))
+                .setkC(2).setNarrowBeam(5));
+        return scene;
+    }
+
+    /**
+     * Asserts the colors of a grid of rays are the same in both scenes
+     */
+    private static void assertSameColors(Scene expected, Scene actual) {
+        RayTracerBasic expectedTracer = new RayTracerBasic(expected), actualTracer = new RayTracerBasic(actual);
+        for (int y = -20; y <= 20; y++)
+            for (int x = -20; x <= 20; x++) {
+                Ray ray = new Ray(Point.ZERO, new Vector(x * 0.05, y * 0.05, -1));
+                Color e = expectedTracer.traceRay(ray), a = actualTracer.traceRay(ray);
+                assertEquals(e.getRed(), a.getRed(), "Wrong red of ray " + x + "," + y);
+                assertEquals(e.getGreen(), a.getGreen(), "Wrong green of ray " + x + "," + y);
+                assertEquals(e.getBlue(), a.getBlue(), "Wrong blue of ray " + x + "," + y);
+            }
+    }
+
+    /**
+     * Test method for {@link scene.SceneFile#read(java.nio.file.Path)}.
+     */
+    @Test
+    void testRead() throws IOException {
+        Path file = Files.createTempFile("scene", ".rts");
+        try {
+            // ============ Equivalence Partitions Tests ==============
+            // TC01: A scene with every record type is loaded as it was written
+            Scene scene = scene();
+            SceneFile.write(scene, file);
+            Scene loaded = SceneFile.read(file);
+            assertEquals("File scene", loaded.getName(), "Wrong scene name");
+            assertEquals(7, loaded.geometries.getBodies().size(), "Nested geometries not flattened");
+            assertEquals(3, loaded.getLights().size(), "Wrong amount of lights");
+            assertSame(((Geometry) loaded.geometries.getBodies().get(0)).getMaterial(),
+                    ((Geometry) loaded.geometries.getBodies().get(1)).getMaterial(), "Shared material not shared");
+            TriangleMesh mesh = (TriangleMesh) loaded.geometries.getBodies().get(6);
+            TriangleMesh written = (TriangleMesh) scene.geometries.getBodies().get(5);
+            assertArrayEquals(written.getVertices(), mesh.getVertices(), "Wrong mesh vertices");
+            assertArrayEquals(written.getIndices(), mesh.getIndices(), "Wrong mesh indices");
+            assertSameColors(scene, loaded);
+
+            // TC02: A loaded scene is the same with a BVH
+            assertSameColors(scene, SceneFile.read(file).activateBVH());
+
+            // =============== Boundary Values Tests ==================
+            // TC11: An empty scene
+            SceneFile.write(new Scene(""), file);
+            loaded = SceneFile.read(file);
+            assertTrue(loaded.geometries.getBodies().isEmpty(), "Geometries in an empty scene");
+            assertTrue(loaded.getLights().isEmpty(), "Lights in an empty scene");
+
+            // TC12: A file that is not a scene file
+            Files.write(file, new byte[100]);
+            assertThrows(IllegalArgumentException.class, () -> SceneFile.read(file), "Bad magic accepted");
+
+            // TC13: A truncated scene file
+            SceneFile.write(scene, file);
+            byte[] bytes = Files.readAllBytes(file);
+            Files.write(file, Arrays.copyOf(bytes, bytes.length - 4));
+            assertThrows(IllegalArgumentException.class, () -> SceneFile.read(file), "Truncated file accepted");
+
+            // TC14: A geometry record with a material out of the table
+            ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+            int records = bytes.length - buffer.getInt(8) - 4 * (buffer.getInt(32) + 8 * buffer.getInt(20));
+            buffer.putInt(records + 4, 99);
+            Files.write(file, bytes);
+            assertThrows(IllegalArgumentException.class, () -> SceneFile.read(file), "Bad material accepted");
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
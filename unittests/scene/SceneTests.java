@@ -0,0 +1,71 @@
+package scene;
+
+import geometries.*;
+import lighting.PointLight;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for scene.Scene class
+ *
+ * @author Raz
+ */
+class SceneTests {
+    /**
+     * The vertices of a mesh of 2 triangles
+     */
+    private final double[] meshVertices = {-1, -1, -5, 1, -1, -5, 1, 1, -5, -1, 1, -5};
+
+    /**
+     * Test method for {@link scene.Scene#freeze()}.
+     */
+    @Test
+    void testFreeze() {
+        Sphere sphere = new Sphere(1, new Point(0, 0, -10));
+        TriangleMesh mesh = new TriangleMesh(meshVertices, new int[]{0, 1, 2, 0, 2, 3});
+        Instance instance = new Instance(new Sphere(1, Point.ZERO), Transform.translation(5, 0, -10));
+        Scene scene = new Scene("Frozen scene");
+        scene.addGeometries(new Geometries(sphere, mesh), instance);
+        scene.addLights(new PointLight(new Color(100, 100, 100), Point.ZERO));
+        scene.freeze().activateBVH();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The bounds are computed and the nested bodies are frozen
+        assertTrue(scene.isFrozen(), "Scene is not frozen");
+        assertTrue(sphere.isFrozen() && mesh.isFrozen() && instance.isFrozen(), "Body is not frozen");
+        assertEquals(new Point(-1, -1, -11), scene.geometries.getMinABBA(), "Wrong min point");
+        assertEquals(new Point(6, 1, -5), scene.geometries.getMaxABBA(), "Wrong max point");
+
+        // TC02: A BVH built after the freeze on the kept bounds finds the hits
+        Ray ray = new Ray(new Point(5, 0, 0), new Vector(0, 0, -1));
+        assertEquals(new Point(5, 0, -9), scene.getGeometries().findClosestGeoIntersection(ray).getPoint(), "Wrong hit");
+        ray = new Ray(new Point(0.5, 0, 0), new Vector(0, 0, -1));
+        assertEquals(new Point(0.5, 0, -5), scene.getGeometries().findClosestGeoIntersection(ray).getPoint(), "Wrong hit");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: The scene and its geometries reject any change
+        assertThrows(IllegalStateException.class, () -> scene.setBackground(Color.BLACK), "Changed a frozen scene");
+        assertThrows(IllegalStateException.class, () -> scene.addGeometries(new Sphere(1, Point.ZERO)),
+                "Added a body to a frozen collection");
+        assertThrows(IllegalStateException.class, () -> sphere.setEmission(new Color(10, 0, 0)),
+                "Changed a frozen geometry");
+        assertThrows(IllegalStateException.class, () -> mesh.updateVertices(meshVertices), "Moved a frozen mesh");
+        assertThrows(IllegalStateException.class, () -> instance.setTransform(Transform.IDENTITY),
+                "Moved a frozen instance");
+        assertThrows(IllegalStateException.class, scene::refitBVH, "Refitted a frozen BVH");
+        assertThrows(IllegalStateException.class, () -> scene.addLights(new PointLight(Color.BLACK, Point.ZERO)),
+                "Added a light to a frozen scene");
+
+        // TC12: The lists of the scene and its geometries are unmodifiable
+        assertThrows(UnsupportedOperationException.class,
+                () -> scene.getLights().add(new PointLight(Color.BLACK, Point.ZERO)), "Added a light to the list");
+        assertThrows(UnsupportedOperationException.class,
+                () -> scene.geometries.getBodies().add(new Sphere(1, Point.ZERO)), "Added a body to the list");
+
+        // TC13: Freezing again keeps the scene as is
+        assertSame(scene, scene.freeze(), "Wrong scene");
+        assertEquals(1, scene.getLights().size(), "Wrong lights");
+    }
+}
@@ -28,8 +28,6 @@ public class TeapotTest {
             .setImageWriter(imageWriter) ;//
 
 
-    private final Scene scene = new Scene("Test scene");
-
     private static final Color color = new Color(200, 0, 0);
     private static final Material mat = new Material().setKd(0.5).setKs(0.5).setShininess(60);
 
@@ -571,7 +569,17 @@ public class TeapotTest {
      */
     @Test
     public void teapot() {
-        scene.geometries.add( //
+        camera.setRayTracer(new RayTracerBasic(createScene())).renderImage().printGrid(50, new Color(YELLOW)).writeToImage();
+    }
+
+    /**
+     * Builds the teapot scene with its BVH - shared with the render benchmarks
+     *
+     * @return the scene
+     */
+    public static Scene createScene() {
+        Scene scene = new Scene("Test scene");
+        scene.addGeometries( //
                 new Triangle(pnts[7], pnts[6], pnts[1]).setEmission(color).setMaterial(mat), //
                 new Triangle(pnts[1], pnts[2], pnts[7]).setEmission(color).setMaterial(mat), //
                 new Triangle(pnts[8], pnts[7], pnts[2]).setEmission(color).setMaterial(mat), //
@@ -1565,10 +1573,9 @@ public class TeapotTest {
                 new Triangle(pnts[470], pnts[469], pnts[529]).setEmission(color).setMaterial(mat), //
                 new Triangle(pnts[529], pnts[530], pnts[470]).setEmission(color).setMaterial(mat) //
         );
-        scene.lights.add(new PointLight(new Color(500, 500, 500), new Point(100, 0, -100)).setkQ(0.000001));
+        scene.addLights(new PointLight(new Color(500, 500, 500), new Point(100, 0, -100)).setkQ(0.000001));
         scene.activateBVH();
-
-        camera.setRayTracer(new RayTracerBasic(scene)).renderImage().printGrid(50, new Color(YELLOW)).writeToImage();
+        return scene;
     }
 
 }
\ No newline at end of file